@@ -0,0 +1,25 @@
+; arithmetic kernel: fibonacci numbers mod 4096 mixed with shifts and logic ops
+.MAIN
+set $ax !0
+set $bx !1
+set $ex !400
+.outer
+set $cx !500
+.inner
+set $dx $ax
+add $dx $bx
+and $dx !4095
+set $ax $bx
+set $bx $dx
+shl $dx !2
+shr $dx !1
+xor $dx $ax
+or $dx !1
+mul $dx !3
+and $dx !8191
+loop inner
+dec $ex
+cmp $ex !0
+jne outer
+out $bx
+ext
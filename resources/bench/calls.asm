@@ -0,0 +1,28 @@
+; call kernel: nested calls passing values on the stack
+.MAIN
+set $ex !600
+.outer
+set $cx !100
+.inner
+push $cx
+call square
+pop $ax
+call twice
+loop inner
+dec $ex
+cmp $ex !0
+jne outer
+out $bx
+ext
+.square
+set $bx $cx
+and $bx !127
+mul $bx $bx
+ret
+.twice
+call half
+add $bx $bx
+ret
+.half
+shr $bx !1
+ret
@@ -0,0 +1,33 @@
+; memory kernel: fills a buffer with bytes and words, then reads it back
+.DATA
+buf resb !256
+end
+.MAIN
+set $ex !300
+.outer
+la $dx ~buf
+set $cx !128
+.fill
+set $al $cl
+set &dx $al
+inc $dx
+loop fill
+set $cx !64
+.wfill
+set #word &dx $cx
+add $dx !2
+loop wfill
+la $dx ~buf
+set $bx !0
+set $cx !128
+.sum
+set $al &dx
+add $bx $ax
+and $bx !4095
+inc $dx
+loop sum
+dec $ex
+cmp $ex !0
+jne outer
+out $bx
+ext
@@ -0,0 +1,33 @@
+; string kernel: walks a byte string and a word string until their terminators, counting characters
+.DATA
+text db "The quick brown fox jumps over the lazy dog. 0123456789"
+wide dw "Pack my box with five dozen liquor jugs."
+end
+.MAIN
+set $ex !3000
+.again
+set $fx !0
+la $dx ~text
+.bytes
+set $al &dx
+cmp $al !127
+je words
+inc $fx
+inc $dx
+jmp bytes
+.words
+la $dx ~wide
+.wloop
+set $bx #word &dx
+cmp $bx !127
+je done
+inc $fx
+add $dx !2
+jmp wloop
+.done
+len $cx ~text
+dec $ex
+cmp $ex !0
+jne again
+out $fx
+ext
@@ -0,0 +1,173 @@
+import java.lang.management.ManagementFactory;
+
+public class AllocationBenchmark {
+
+    // Checks that the interpreter loop does not allocate while it executes instructions.
+    // Each kernel is run with two different iteration counts. The fixed cost of starting a program
+    // (register file, instruction cache, pacer) is the same for both runs, so the difference in the bytes
+    // allocated by this thread comes only from the extra iterations.
+    // Any instruction that allocates costs at least one 16 byte object per execution, so a difference
+    // smaller than one byte per executed instruction means the steady state is allocation free.
+    // Kernels avoid the console and interrupt instructions.
+
+    static final int SHORT_RUN = 2_000;
+    static final int LONG_RUN = 40_000;
+    static final int WARMUP_RUNS = 5;
+
+    // instructions executed per iteration of the kernels below (loop body + call + ret + loop)
+    static final int INSTRUCTIONS_PER_ITERATION_16 = 22;
+    static final int INSTRUCTIONS_PER_ITERATION_8 = 22;
+
+
+    public static void main(String[] args) {
+
+        Launcher.appConfig = Settings.loadSettings();
+        Launcher.appConfig.put("Throttle", "false");
+        Logger.setLevel(Logger.Level.OFF);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM can't report per thread allocations.");
+            System.exit(2);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        boolean passed = true;
+
+        Launcher.appConfig.put("Architecture", "16");
+        passed &= run(threads, new CPUModule16BIT(), AllocationBenchmark::kernel16, INSTRUCTIONS_PER_ITERATION_16);
+
+        Launcher.appConfig.put("Architecture", "8");
+        passed &= run(threads, new CPUModule8BIT(), AllocationBenchmark::kernel8, INSTRUCTIONS_PER_ITERATION_8);
+
+        System.exit(passed ? 0 : 1);
+    }
+
+    interface Kernel {
+        String source(int iterations);
+    }
+
+    private static boolean run(com.sun.management.ThreadMXBean threads, CPU cpu, Kernel kernel, int instructionsPerIteration){
+
+        VirtualMachine vm = new VirtualMachine(cpu);
+
+        for(int i = 0; i < WARMUP_RUNS; i++) {
+            measure(threads, vm, cpu, kernel.source(SHORT_RUN));
+            measure(threads, vm, cpu, kernel.source(LONG_RUN));
+        }
+
+        long shortBytes = measure(threads, vm, cpu, kernel.source(SHORT_RUN));
+        long longBytes = measure(threads, vm, cpu, kernel.source(LONG_RUN));
+
+        long instructions = (long) (LONG_RUN - SHORT_RUN) * instructionsPerIteration;
+        long extraBytes = longBytes - shortBytes;
+        double bytesPerInstruction = (double) Math.max(0, extraBytes) / instructions;
+        boolean passed = extraBytes < instructions;
+
+        System.out.printf("%d-bit: %d bytes for %d iterations, %d bytes for %d iterations. %.4f bytes per instruction -> %s\n",
+                cpu.bit_length, shortBytes, SHORT_RUN, longBytes, LONG_RUN, bytesPerInstruction,
+                passed ? "OK" : "ALLOCATES");
+        return passed;
+    }
+
+    // returns the bytes allocated by this thread while executing the program (compilation excluded)
+    private static long measure(com.sun.management.ThreadMXBean threads, VirtualMachine vm, CPU cpu, String source){
+        vm.sendCode(source);
+        int[] image = cpu.machineCode;
+        cpu.programEnd = false;
+
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        cpu.executeCompiledCode(image);
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+
+    // outer counter in $dx, inner counter in $cx (loop). 22 instructions per inner iteration
+    private static String kernel16(int iterations){
+        int outer = iterations / 100;
+        return  ".DATA\n" +
+                "nums dw !1 !2 !3 !4\n" +
+                "end\n" +
+                ".MAIN\n" +
+                "set $dx !" + outer + "\n" +
+                ".outer\n" +
+                "set $cx !100\n" +
+                ".inner\n" +
+                "set $ax !7\n" +
+                "add $ax $bx\n" +
+                "sub $ax !3\n" +
+                "mul $ax !2\n" +
+                "div $ax !2\n" +
+                "and $ax !255\n" +
+                "or $ax !1\n" +
+                "xor $ax !3\n" +
+                "shl $ax !1\n" +
+                "shr $ax !1\n" +
+                "set *200 $ax\n" +
+                "set $bx *200\n" +
+                "la $ex ~nums\n" +
+                "set $bx #word &ex\n" +
+                "push $ax\n" +
+                "pop $bx\n" +
+                "inc $bx\n" +
+                "cmp $ax $bx\n" +
+                "jne skip\n" +
+                ".skip\n" +
+                "call fn\n" +
+                "loop inner\n" +
+                "dec $dx\n" +
+                "cmp $dx !0\n" +
+                "jne outer\n" +
+                "ext\n" +
+                ".fn\n" +
+                "ret\n";
+    }
+
+    // outer counter in $rd, inner counter in $rc (loop). 22 instructions per inner iteration
+    private static String kernel8(int iterations){
+        int outer = iterations / 100;
+        StringBuilder source = new StringBuilder(
+                ".MAIN\n");
+        // 8-bit registers top out at 255, split the outer count over two nested counters
+        source.append("set $re !").append(outer / 20).append("\n")
+              .append(".top\n")
+              .append("set $rd !20\n")
+              .append(".outer\n")
+              .append("set $rc !100\n")
+              .append(".inner\n")
+              .append("set $ra !7\n")
+              .append("add $ra $rb\n")
+              .append("sub $ra !3\n")
+              .append("mul $ra !2\n")
+              .append("div $ra !2\n")
+              .append("and $ra !127\n")
+              .append("or $ra !1\n")
+              .append("xor $ra !3\n")
+              .append("shl $ra !1\n")
+              .append("shr $ra !1\n")
+              .append("set *200 $ra\n")
+              .append("set $rb *200\n")
+              // data addresses don't fit an 8-bit register, point at the byte written above instead
+              .append("set $rf !200\n")
+              .append("set $rb &rf\n")
+              .append("push $ra\n")
+              .append("pop $rb\n")
+              .append("inc $rb\n")
+              .append("cmp $ra $rb\n")
+              .append("jne skip\n")
+              .append(".skip\n")
+              .append("call fn\n")
+              .append("loop inner\n")
+              .append("dec $rd\n")
+              .append("cmp $rd !0\n")
+              .append("jne outer\n")
+              .append("dec $re\n")
+              .append("cmp $re !0\n")
+              .append("jne top\n")
+              .append("ext\n")
+              .append(".fn\n")
+              .append("ret\n");
+        return source.toString();
+    }
+}
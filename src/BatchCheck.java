@@ -0,0 +1,110 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class BatchCheck {
+
+    // Checks that the programs of a batch (BatchRunner) share the disk without losing each other's files.
+    // PROGRAMS 16-bit programs run on JOBS machines, each saves its own file through the file interrupt, reads it
+    // back and saves a second file after it, so the machines save at the same time. The check passes when every
+    // program ends with status 0 and the disk image, mounted again after the batch, holds every file with the bytes
+    // its program saved (and no other file).
+
+    static final int PROGRAMS = 64;
+    static final int JOBS = 8;
+
+    private static final PrintStream console = System.out;
+
+
+    public static void main(String[] args) throws Exception {
+
+        Launcher.appConfig = Settings.loadSettings();
+        Launcher.appConfig.put("Architecture", "16");
+        Launcher.appConfig.put("Throttle", "false");
+        if (args.length > 0) Launcher.appConfig.put(ExecutionEngine.CONFIG_KEY, args[0]);
+        Logger.setLevel(Logger.Level.OFF);
+
+        int failures = 0;
+        Path directory = Files.createTempDirectory("batchcheck");
+        Path image = directory.resolve("disk.img");
+        boolean passed;
+
+        // the compiler, the batch and the driver print their progress, the JSON lines are checked through the disk
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < PROGRAMS; i++) compile(program(i), directory.resolve(String.format("p%02d.tky", i)));
+            passed = BatchRunner.run(directory.toString(), JOBS, image.toString());
+
+            HardDiskDriver disk = new HardDiskDriver(image.toString());
+            if (disk.getFileCount() != 2 * PROGRAMS) failures++;
+            for (int i = 0; i < PROGRAMS; i++) {
+                if (!Arrays.equals(disk.readFile("file" + i), terminated(data(i)))) failures++;
+                if (!Arrays.equals(disk.readFile("copy" + i), terminated(data(i)))) failures++;
+            }
+            disk.closeDrive();
+        } finally {
+            System.setOut(console);
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+
+        if (!passed) failures++;
+        System.out.printf("%d programs on %d machines, %s, %d missing or wrong files -> %s\n",
+                PROGRAMS, JOBS, passed ? "all ended with status 0" : "some FAILED", failures,
+                failures == 0 ? "OK" : "FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void compile(String source, Path binary) throws Exception {
+        CPU cpu = new CPUModule16BIT();
+        new VirtualMachine(cpu).sendCode(source);
+
+        byte[] bytes = new byte[cpu.machineCode.length];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) (cpu.machineCode[i] & 0xff);
+        Files.write(binary, bytes);
+    }
+
+    // different lengths, so the files take a different number of blocks
+    private static String data(int id){
+        return ("data of program " + id + " ").repeat(1 + id % 5);
+    }
+
+    // a db string ends with the array terminator, the programs save it with the string
+    private static byte[] terminated(String data){
+        byte[] bytes = Arrays.copyOf(data.getBytes(), data.length() + 1);
+        bytes[data.length()] = CPU.ARRAY_TERMINATOR;
+        return bytes;
+    }
+
+    // save fileN, read it into buf and save buf as copyN
+    private static String program(int id){
+        int length = data(id).length() + 1;
+        return  ".DATA\n" +
+                "name db \"file" + id + "\"\n" +
+                "copy db \"copy" + id + "\"\n" +
+                "data db \"" + data(id) + "\"\n" +
+                "buf resb !" + length + "\n" +
+                "end\n" +
+                ".MAIN\n" +
+                "la $ss ~name\n" +
+                "la $di ~data\n" +
+                "set $dx !" + length + "\n" +
+                "set $ah !" + CPU.INT_FILE + "\n" +
+                "set $al !" + CPU.FILE_WRITE + "\n" +
+                "int\n" +
+                "la $di ~buf\n" +
+                "set $ah !" + CPU.INT_FILE + "\n" +
+                "set $al !" + CPU.FILE_READ + "\n" +
+                "int\n" +
+                "la $ss ~copy\n" +
+                "la $di ~buf\n" +
+                "set $ah !" + CPU.INT_FILE + "\n" +
+                "set $al !" + CPU.FILE_WRITE + "\n" +
+                "int\n" +
+                "ext\n";
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class BatchRunner {
+
+    // Runs many compiled binaries in one JVM:
+    //   java Launcher batch <directory | manifest> [-j JOBS]
+    // A directory runs every .tky and .bin file in it, in name order. A program reads its input from the file
+    // next to it with the same name and the .in extension, when there is one (prog.tky <- prog.in).
+    // A manifest lists one program per line: the binary, optionally followed by its input file.
+    // relative paths are resolved against the manifest's directory, empty lines and lines starting with # are skipped.
+    //
+    // JOBS machines (one per core by default) are built once and reused, so the settings, the memory layout and
+    // the CPU setup are paid once per machine instead of once per program. Every program runs on a free machine
+    // with its own console: input comes from its input file (empty without one), output goes to a buffer.
+    // The architecture comes from the config, as with CLI.
+    // The machines share one disk driver on one disk image (./disk0.img), the driver runs one file operation at a
+    // time, so programs saving at the same time keep each other's files (see BatchCheck).
+    //
+    // One JSON line per program goes to the console, in input order:
+    //   {"program":"a.tky","input":null,"exit":0,"outputSha256":"...","outputBytes":12,"instructions":1234,"wallMs":1.234,"error":null}
+    // exit is the program's status code (see ErrorHandler), FAILED_TO_RUN when the program couldn't be run at all.
+    // wallMs covers loading the binary and running it. Everything else the machines print is swallowed,
+    // the totals go to stderr.
+
+    static final int FAILED_TO_RUN = -1;
+    static final String INPUT_EXTENSION = ".in";
+    static final String[] BINARY_EXTENSIONS = {".tky", ".bin"};
+    static final String DISK_IMAGE_PATH = "./disk0.img";
+
+    private static final PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+    record Program(Path binary, Path input) {}
+
+    record Result(Program program, int exitCode, String outputHash, int outputBytes, long instructions,
+                  double wallMs, String error) {}
+
+    // a VM with its console buffer. owned by one program at a time
+    private static final class Machine {
+        final CPU cpu;
+        final VirtualMachine vm;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final PrintStream console = new PrintStream(output, true);
+
+        Machine(HardDiskDriver disk){
+            String architecture = Launcher.appConfig.get("Architecture");
+            cpu = architecture.equals("8") ? new CPUModule8BIT() : new CPUModule16BIT();
+            cpu.audible = false;
+            vm = new VirtualMachine(cpu);
+            vm.UIMode = false;
+            cpu.diskDriver = disk;
+        }
+    }
+
+
+    public static int defaultJobs(){
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    // returns true when every program ended with status 0
+    public static boolean run(String source, int jobs) throws IOException {
+        return run(source, jobs, DISK_IMAGE_PATH);
+    }
+
+    public static boolean run(String source, int jobs, String diskImagePath) throws IOException {
+        List<Program> programs = readPrograms(Path.of(source));
+        jobs = Math.max(1, Math.min(jobs, programs.size()));
+
+        PrintStream console = System.out;
+        System.setOut(discard);
+
+        BlockingQueue<Machine> machines = new ArrayBlockingQueue<>(jobs);
+        int failures = 0;
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        HardDiskDriver disk = new HardDiskDriver(diskImagePath);
+        try {
+            for (int i = 0; i < jobs; i++) machines.add(new Machine(disk));
+
+            List<Future<Result>> results = new ArrayList<>();
+            for (Program program : programs) {
+                results.add(pool.submit(() -> {
+                    Machine machine = machines.take();
+                    try {
+                        return runProgram(machine, program);
+                    } finally {
+                        machines.put(machine);
+                    }
+                }));
+            }
+
+            for (Future<Result> future : results) {
+                Result result = future.get();
+                if (result.exitCode() != ErrorHandler.ERR_CODE_SUCCESS) failures++;
+                console.println(toJson(result));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            disk.closeDrive();
+            System.setOut(console);
+        }
+
+        System.err.printf("Ran %d programs on %d machines in %.2f ms, %d failed.%n",
+                programs.size(), jobs, (System.nanoTime() - start) / 1e6, failures);
+        return failures == 0;
+    }
+
+    private static Result runProgram(Machine machine, Program program) throws IOException {
+        CPU cpu = machine.cpu;
+        machine.vm.resetCPU();
+        machine.output.reset();
+        cpu.instructionsRetired = 0; // a program that fails to load reports 0, not the previous program's count
+
+        long start = System.nanoTime();
+        String error = null;
+        int exitCode;
+
+        InputStream input = InputStream.nullInputStream();
+        try {
+            if (program.input() != null) input = Files.newInputStream(program.input());
+            machine.vm.setConsole(machine.console, input);
+
+            CLI loader = new CLI(machine.vm, cpu, program.binary().toFile());
+            loader.loadBinaryFile();
+            loader.setEntryPoint();
+            cpu.executeCompiledCode(cpu.machineCode);
+            exitCode = cpu.status_code;
+        } catch (IOException | RuntimeException e) {
+            // errors raised through triggerProgramError carry their status code
+            exitCode = cpu.status_code != ErrorHandler.ERR_CODE_SUCCESS ? cpu.status_code : FAILED_TO_RUN;
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        } finally {
+            machine.vm.setConsole(null, null);
+            input.close();
+        }
+        double wallMs = (System.nanoTime() - start) / 1e6;
+
+        byte[] output = machine.output.toByteArray();
+        return new Result(program, exitCode, sha256(output), output.length, cpu.instructionsRetired, wallMs, error);
+    }
+
+    /// ///////////////////////////// INPUT //////////////////////////////////////////////////
+
+    static List<Program> readPrograms(Path source) throws IOException {
+        if (Files.isDirectory(source)) return readDirectory(source);
+
+        List<Program> programs = new ArrayList<>();
+        Path base = source.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(source)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] paths = line.split("\\s+");
+            if (paths.length > 2) throw new IOException("Invalid manifest line: " + line);
+            programs.add(new Program(base.resolve(paths[0]), paths.length == 2 ? base.resolve(paths[1]) : null));
+        }
+        return programs;
+    }
+
+    private static List<Program> readDirectory(Path directory) throws IOException {
+        List<Program> programs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path binary : files.filter(BatchRunner::isBinary).sorted().toList()) {
+                String name = binary.getFileName().toString();
+                Path input = binary.resolveSibling(name.substring(0, name.lastIndexOf('.')) + INPUT_EXTENSION);
+                programs.add(new Program(binary, Files.isRegularFile(input) ? input : null));
+            }
+        }
+        return programs;
+    }
+
+    private static boolean isBinary(Path path){
+        if (!Files.isRegularFile(path)) return false;
+        String name = path.getFileName().toString();
+        for (String extension : BINARY_EXTENSIONS) if (name.endsWith(extension)) return true;
+        return false;
+    }
+
+    /// ///////////////////////////// OUTPUT //////////////////////////////////////////////////
+
+    private static String sha256(byte[] bytes){
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM ships SHA-256
+        }
+    }
+
+    static String toJson(Result result){
+        return "{" +
+                "\"program\":" + quote(result.program().binary().toString()) + "," +
+                "\"input\":" + (result.program().input() == null ? "null" : quote(result.program().input().toString())) + "," +
+                "\"exit\":" + result.exitCode() + "," +
+                "\"outputSha256\":" + quote(result.outputHash()) + "," +
+                "\"outputBytes\":" + result.outputBytes() + "," +
+                "\"instructions\":" + result.instructions() + "," +
+                "\"wallMs\":" + String.format(Locale.ROOT, "%.3f", result.wallMs()) + "," +
+                "\"error\":" + (result.error() == null ? "null" : quote(result.error())) +
+                "}";
+    }
+
+    private static String quote(String value){
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+                    else quoted.append(c);
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,312 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchmarkSuite {
+
+    // Benchmarks for the emulator core. run them with
+    //   java Launcher bench [filter]
+    // filter is a substring of the benchmark names (dispatch, memory, compile, cli, program.strings ...).
+    // The usual options apply, e.g. -e INTERPRETER to compare the execution engines.
+    //
+    // Every benchmark does WARMUP_ITERATIONS untimed runs followed by MEASURED_ITERATIONS timed ones and reports
+    //   ops/s    operations per second. the operation is named in the unit column (instructions, accesses, lines, bytes)
+    //   MB/s     bytes allocated by the benchmark thread per second
+    //   B/op     bytes allocated per operation
+    // Program output is swallowed while the benchmarks run. the 16-bit CPU is used throughout.
+    //
+    // The programs benchmarked under program.* are bundled in resources/bench.
+
+    static final int WARMUP_ITERATIONS = 5;
+    static final int MEASURED_ITERATIONS = 10;
+
+    static final String CORPUS_PATH = "bench/";
+    static final String[] CORPUS = {"arithmetic.asm", "strings.asm", "calls.asm", "memory.asm"};
+
+    // dispatch loops run ITERATIONS times through a body of one kind of instruction
+    static final int DISPATCH_ITERATIONS = 200_000;
+    static final int MEMORY_ACCESSES = 1_000_000;
+
+    // keeps the JIT from dropping the read loops
+    static int sink;
+
+    private static final PrintStream console = System.out;
+    private static final PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final List<Benchmark> benchmarks = new ArrayList<>();
+
+
+    interface Benchmark {
+        String name();
+        String unit();
+        // untimed work before every run (reloading memory, resetting state)
+        default void prepare() {}
+        // returns the number of operations done
+        long run();
+    }
+
+    private record SimpleBenchmark(String name, String unit, Runnable before, Operation operation) implements Benchmark {
+        public void prepare() { if (before != null) before.run(); }
+        public long run() { return operation.run(); }
+    }
+
+    interface Operation {
+        long run();
+    }
+
+
+    public static void run(String filter){
+        Launcher.appConfig.put("Architecture", "16");
+        Launcher.appConfig.put("Throttle", "false");
+        Logger.setLevel(Logger.Level.OFF);
+
+        BenchmarkSuite suite = new BenchmarkSuite();
+        try {
+            System.setOut(discard);
+            suite.addDispatchBenchmarks();
+            suite.addMemoryBenchmarks();
+            suite.addCompileBenchmarks();
+            suite.addLoadBenchmark();
+            suite.addProgramBenchmarks();
+        } catch (IOException e) {
+            System.setOut(console);
+            throw new RuntimeException(e);
+        }
+        System.setOut(console);
+
+        suite.measureAll(filter == null ? "" : filter);
+    }
+
+    private void add(String name, String unit, Runnable before, Operation operation){
+        benchmarks.add(new SimpleBenchmark(name, unit, before, operation));
+    }
+
+    /// ///////////////////////////// MEASUREMENT //////////////////////////////////////////////////
+
+    private void measureAll(String filter){
+        if (threads.isThreadAllocatedMemorySupported()) threads.setThreadAllocatedMemoryEnabled(true);
+
+        console.printf("Engine: %s, %d warmup + %d measured iterations%n",
+                ExecutionEngine.fromConfig(), WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+        console.printf("%-28s %-13s %16s %12s %10s%n", "benchmark", "unit", "ops/s", "MB/s", "B/op");
+
+        for (Benchmark benchmark : benchmarks) {
+            if (!benchmark.name().contains(filter)) continue;
+            measure(benchmark);
+        }
+    }
+
+    private void measure(Benchmark benchmark){
+        long threadId = Thread.currentThread().threadId();
+
+        System.setOut(discard);
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                benchmark.prepare();
+                benchmark.run();
+            }
+
+            long operations = 0, nanos = 0, allocated = 0;
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                benchmark.prepare();
+
+                long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                operations += benchmark.run();
+                nanos += System.nanoTime() - start;
+                allocated += threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+            }
+            System.setOut(console);
+
+            double seconds = nanos / 1e9;
+            console.printf("%-28s %-13s %16.0f %12.2f %10.2f%n",
+                    benchmark.name(), benchmark.unit(),
+                    operations / seconds,
+                    allocated / seconds / (1024 * 1024),
+                    operations == 0 ? 0.0 : (double) allocated / operations);
+        } catch (RuntimeException e) {
+            System.setOut(console);
+            console.printf("%-28s failed: %s%n", benchmark.name(), e.getMessage());
+        }
+    }
+
+    /// ///////////////////////////// BENCHMARKS //////////////////////////////////////////////////
+
+    // one loop per kind of instruction. the loop overhead (LOOP) is the same for all of them
+    private void addDispatchBenchmarks(){
+        addDispatchBenchmark("dispatch.nop", "nop\nnop\nnop\nnop\n");
+        addDispatchBenchmark("dispatch.set", "set $ax !7\nset $bx $ax\nset $al !1\nset $bh $al\n");
+        addDispatchBenchmark("dispatch.add", "add $ax !3\nsub $ax !3\nadd $bx $ax\nsub $bx $ax\n");
+        addDispatchBenchmark("dispatch.inc", "inc $ax\ndec $ax\ninc $bl\ndec $bl\n");
+        addDispatchBenchmark("dispatch.logic", "and $ax !255\nor $ax !1\nxor $ax !3\nshl $ax !1\nshr $ax !1\n");
+        addDispatchBenchmark("dispatch.cmp_jump", "cmp $ax !0\njne skip\n.skip\ncmp $ax $bx\nje skip2\n.skip2\n");
+        addDispatchBenchmark("dispatch.stack", "push $ax\npush $bx\npop $bx\npop $ax\n");
+        addDispatchBenchmark("dispatch.memory", "set *200 $ax\nset $bx *200\nset #word *202 $bx\nset $ax #word *202\n");
+        addDispatchBenchmark("dispatch.call_ret", "call fn\ncall fn\n", ".fn\nret\n");
+    }
+
+    private void addDispatchBenchmark(String name, String body){
+        addDispatchBenchmark(name, body, "");
+    }
+
+    private void addDispatchBenchmark(String name, String body, String functions){
+        String source = ".MAIN\n" +
+                "set $ax !0\n" +
+                "set $bx !0\n" +
+                "set $dx !" + (DISPATCH_ITERATIONS / 1000) + "\n" +
+                ".outer\n" +
+                "set $cx !1000\n" +
+                ".inner\n" +
+                body +
+                "loop inner\n" +
+                "dec $dx\n" +
+                "cmp $dx !0\n" +
+                "jne outer\n" +
+                "ext\n" +
+                functions;
+        addProgram(name, source);
+    }
+
+    private void addMemoryBenchmarks(){
+        CPUModule16BIT cpu = new CPUModule16BIT();
+        new VirtualMachine(cpu);
+        MemoryModule memory = cpu.memoryController;
+        // a window at the start of the data section, clear of the ARRAY_TERMINATOR check
+        int window = Math.min(1024, memory.last_addressable_location - memory.data_start) & ~1;
+
+        add("memory.readByte", "accesses", null, () -> {
+            int sum = 0;
+            for (int i = 0; i < MEMORY_ACCESSES; i++) sum += memory.readByte(i % window);
+            sink += sum;
+            return MEMORY_ACCESSES;
+        });
+        add("memory.readWord", "accesses", null, () -> {
+            int sum = 0;
+            for (int i = 0; i < MEMORY_ACCESSES; i++) sum += memory.readWord((i << 1) % window);
+            sink += sum;
+            return MEMORY_ACCESSES;
+        });
+        add("memory.writeByte", "accesses", null, () -> {
+            for (int i = 0; i < MEMORY_ACCESSES; i++) memory.setMemory(i % window, i & 0x3f, CPU.DATA_BYTE_MODE);
+            return MEMORY_ACCESSES;
+        });
+        add("memory.writeWord", "accesses", null, () -> {
+            for (int i = 0; i < MEMORY_ACCESSES; i++) memory.setMemory((i << 1) % window, i & 0x3f3f, CPU.DATA_WORD_MODE);
+            return MEMORY_ACCESSES;
+        });
+    }
+
+    private void addCompileBenchmarks() throws IOException {
+        CPUModule16BIT cpu = new CPUModule16BIT();
+        new VirtualMachine(cpu);
+
+        // compileToMemoryImage gets the source after VirtualMachine.sendCode removed the comments
+        String small = loadCorpus("strings.asm").lines()
+                .filter(line -> !line.startsWith(CPU.COMMENT_PREFIX))
+                .reduce("", (source, line) -> source + line + "\n");
+        // as many blocks as the ROM holds, 27 bytes each
+        int blocks = (cpu.memoryController.rom_end - 16) / 27;
+        StringBuilder large = new StringBuilder(".MAIN\n");
+        for (int i = 0; i < blocks; i++) {
+            large.append(".block").append(i).append("\n")
+                 .append("set $ax !").append(i).append("\n")
+                 .append("add $bx $ax\n")
+                 .append("and $bx !4095\n")
+                 .append("cmp $bx !").append(i & 0xff).append("\n")
+                 .append("jne block").append((i + 1) % blocks).append("\n");
+        }
+        large.append("ext\n");
+
+        addCompileBenchmark(cpu, "compile.small", small);
+        addCompileBenchmark(cpu, "compile.large", large.toString());
+        addIncrementalCompileBenchmark(cpu, large.toString(), blocks);
+    }
+
+    // assembles the whole source every run
+    private void addCompileBenchmark(CPUModule16BIT cpu, String name, String source){
+        long lines = source.lines().count();
+        add(name, "lines", () -> {
+            cpu.reset();
+            cpu.discardAssembledFunctions();
+        }, () -> {
+            cpu.compileToMemoryImage(source);
+            return lines;
+        });
+    }
+
+    // the large source with one block edited before every run, as when editing a program in the UI.
+    // the edit changes the block's length, so the code after it moves
+    private void addIncrementalCompileBenchmark(CPUModule16BIT cpu, String source, int blocks){
+        long lines = source.lines().count();
+        int[] edit = {0};
+        String[] edited = {source};
+        add("compile.incremental", "lines", () -> {
+            cpu.reset();
+            int block = edit[0]++ % blocks;
+            edited[0] = source.replace(".block" + block + "\n", ".block" + block + "\nnop\n");
+        }, () -> {
+            cpu.compileToMemoryImage(edited[0]);
+            return lines;
+        });
+    }
+
+    private void addLoadBenchmark() throws IOException {
+        CPUModule16BIT cpu = new CPUModule16BIT();
+        VirtualMachine vm = new VirtualMachine(cpu);
+        vm.sendCode(loadCorpus("strings.asm"));
+
+        byte[] binary = new byte[cpu.machineCode.length];
+        for (int i = 0; i < binary.length; i++) binary[i] = (byte) (cpu.machineCode[i] & 0xff);
+
+        File file = File.createTempFile("bench", ".tky");
+        file.deleteOnExit();
+        Files.write(file.toPath(), binary);
+
+        CLI loader = new CLI(vm, cpu, file);
+        add("cli.loadBinaryFile", "bytes", null, () -> {
+            loader.loadBinaryFile();
+            return binary.length;
+        });
+    }
+
+    private void addProgramBenchmarks() throws IOException {
+        for (String program : CORPUS)
+            addProgram("program." + program.substring(0, program.lastIndexOf('.')), loadCorpus(program));
+    }
+
+    // compiles once, every run starts from a fresh copy of the memory image
+    private void addProgram(String name, String source){
+        CPUModule16BIT cpu = new CPUModule16BIT();
+        VirtualMachine vm = new VirtualMachine(cpu);
+        vm.sendCode(source);
+        int[] image = cpu.machineCode;
+
+        add(name, "instructions", () -> {
+            vm.loadImageToMemory(image, cpu.memoryController);
+            cpu.registers[CPUModule16BIT.SP] = cpu.memoryController.stack_end;
+            cpu.outputString.setLength(0);
+            cpu.programEnd = false;
+        }, () -> {
+            cpu.executeCompiledCode(image);
+            return cpu.instructionsRetired;
+        });
+    }
+
+    // bundled with the classes, or ./resources/bench when running from the source tree
+    static String loadCorpus(String name) throws IOException {
+        try (InputStream in = BenchmarkSuite.class.getResourceAsStream("/" + CORPUS_PATH + name)) {
+            if (in != null) return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        return Files.readString(Path.of("resources", CORPUS_PATH, name));
+    }
+}
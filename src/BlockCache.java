@@ -0,0 +1,256 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class BlockCache extends DiskStorage {
+
+    // The disk image, read and written through a fixed number of cached blocks.
+    // An access only reaches the file when its block isn't cached: a miss reads the whole block.
+    // Writes stay in the cache (the block is marked dirty) until the block is evicted or the cache is flushed
+    // (flush, sync, close). when the cache is full the block used longest ago makes room.
+    // flush(position, length) writes the dirty blocks of a range right away, the driver uses it to put its metadata
+    // writes in the file in a safe order (see HardDiskDriver.flushBitmap).
+    // hits and misses count block lookups.
+    // The bulk transfers (read and write with a ByteBuffer) take the cached blocks of their range from the cache and
+    // go around it for the others: a run of blocks that aren't cached is one positional read or write of the file,
+    // and isn't cached afterwards. a file's contents pass through once and would only push the driver's metadata
+    // blocks out of the cache.
+
+    private static final class Block {
+        final byte[] data;
+        boolean dirty;
+
+        Block(int size){
+            data = new byte[size];
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int capacity;
+    // access order, the eldest entry is the least recently used block
+    private final LinkedHashMap<Integer, Block> blocks;
+
+    private long length;
+
+    // the block of the last access. most accesses land in the same block as the one before
+    private int currentIndex = -1;
+    private Block current;
+
+    private long hits = 0, misses = 0, writeBacks = 0, directTransfers = 0;
+
+
+    public BlockCache(RandomAccessFile file, int blockSize, int capacity) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.blockSize = blockSize;
+        this.capacity = Math.max(1, capacity);
+        this.blocks = new LinkedHashMap<>(this.capacity * 2, 0.75f, true);
+        this.length = file.length();
+    }
+
+    /// ///////////////////////////// BLOCKS //////////////////////////////////////////////////
+
+    private Block block(int index) throws IOException {
+        if (index == currentIndex) {
+            hits++;
+            return current;
+        }
+
+        Block block = blocks.get(index);
+        if (block != null) hits++;
+        else {
+            misses++;
+            if (blocks.size() >= capacity) evictEldest();
+            block = load(index);
+            blocks.put(index, block);
+        }
+
+        currentIndex = index;
+        current = block;
+        return block;
+    }
+
+    private Block load(int index) throws IOException {
+        Block block = new Block(blockSize);
+        long start = (long) index * blockSize;
+        int size = (int) Math.max(0, Math.min(blockSize, file.length() - start));
+
+        file.seek(start);
+        file.readFully(block.data, 0, size); // past the end of the file the block reads as zeros
+        return block;
+    }
+
+    private void evictEldest() throws IOException {
+        Iterator<Map.Entry<Integer, Block>> eldest = blocks.entrySet().iterator();
+        Map.Entry<Integer, Block> entry = eldest.next();
+        writeBack(entry.getKey(), entry.getValue());
+        eldest.remove();
+        if (entry.getKey() == currentIndex) {
+            currentIndex = -1;
+            current = null;
+        }
+    }
+
+    private void writeBack(int index, Block block) throws IOException {
+        if (!block.dirty) return;
+
+        long start = (long) index * blockSize;
+        file.seek(start);
+        file.write(block.data, 0, (int) Math.min(blockSize, length - start));
+        block.dirty = false;
+        writeBacks++;
+    }
+
+    // writes every dirty block to the file, in disk order
+    @Override
+    public void flush() throws IOException {
+        TreeMap<Integer, Block> dirty = new TreeMap<>();
+        for (Map.Entry<Integer, Block> entry : blocks.entrySet())
+            if (entry.getValue().dirty) dirty.put(entry.getKey(), entry.getValue());
+
+        for (Map.Entry<Integer, Block> entry : dirty.entrySet()) writeBack(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public void flush(long position, int length) throws IOException {
+        if (length <= 0) return;
+        int last = (int) ((position + length - 1) / blockSize);
+        for (int index = (int) (position / blockSize); index <= last; index++) {
+            Block block = blocks.get(index);
+            if (block != null) writeBack(index, block);
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            file.close();
+        }
+    }
+
+    public long getHits(){
+        return hits;
+    }
+
+    public long getMisses(){
+        return misses;
+    }
+
+    @Override
+    public String describe(){
+        long lookups = hits + misses;
+        return String.format("Block cache: %d hits, %d misses (%.1f%% hits), %d blocks written back, %d direct transfers, %d of %d blocks in use",
+                hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, writeBacks, directTransfers, blocks.size(), capacity);
+    }
+
+    /// ///////////////////////////// BYTES //////////////////////////////////////////////////
+
+    @Override
+    int get(long position) throws IOException {
+        if (position >= length) throw new EOFException();
+        return block((int) (position / blockSize)).data[(int) (position % blockSize)] & 0xff;
+    }
+
+    @Override
+    void put(long position, int value) throws IOException {
+        Block block = block((int) (position / blockSize));
+        block.data[(int) (position % blockSize)] = (byte) value;
+        markDirty(block);
+        if (position >= length) length = position + 1;
+    }
+
+    private void markDirty(Block block){
+        block.dirty = true;
+    }
+
+    /// ///////////////////////////// BULK TRANSFERS //////////////////////////////////////////////////
+
+    @Override
+    public void read(ByteBuffer destination, long position) throws IOException {
+        if (position < 0 || position + destination.remaining() > length) throw new EOFException();
+
+        while (destination.hasRemaining()) {
+            int index = (int) (position / blockSize), offset = (int) (position % blockSize);
+            Block block = blocks.get(index);
+            if (block != null) {
+                hits++;
+                int count = Math.min(blockSize - offset, destination.remaining());
+                destination.put(block.data, offset, count);
+                position += count;
+                continue;
+            }
+
+            int count = uncachedRun(index, position, destination.remaining());
+            ByteBuffer run = destination.slice(destination.position(), count);
+            while (run.hasRemaining())
+                if (channel.read(run, position + run.position()) < 0) throw new EOFException();
+            destination.position(destination.position() + count);
+            position += count;
+            directTransfers++;
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer source, long position) throws IOException {
+        if (position < 0 || position + source.remaining() > length)
+            throw new IOException("Write past the end of the disk image at " + position);
+
+        while (source.hasRemaining()) {
+            int index = (int) (position / blockSize), offset = (int) (position % blockSize);
+            Block block = blocks.get(index);
+            if (block != null) {
+                hits++;
+                int count = Math.min(blockSize - offset, source.remaining());
+                source.get(block.data, offset, count);
+                markDirty(block);
+                position += count;
+                continue;
+            }
+
+            int count = uncachedRun(index, position, source.remaining());
+            ByteBuffer run = source.slice(source.position(), count);
+            while (run.hasRemaining()) channel.write(run, position + run.position());
+            source.position(source.position() + count);
+            position += count;
+            directTransfers++;
+        }
+    }
+
+    // the bytes from position (in block index) up to the next cached block, at most remaining
+    private int uncachedRun(int index, long position, int remaining){
+        long end = position + remaining;
+        int last = index;
+        while ((long) (last + 1) * blockSize < end && !blocks.containsKey(last + 1)) last++;
+        return (int) (Math.min(end, (long) (last + 1) * blockSize) - position);
+    }
+
+    /// ///////////////////////////// SIZE //////////////////////////////////////////////////
+
+    @Override
+    public long length(){
+        return length;
+    }
+
+    // for a new disk image, before anything is cached
+    @Override
+    public void setLength(long newLength) throws IOException {
+        file.setLength(newLength);
+        length = newLength;
+    }
+}
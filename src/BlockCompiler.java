@@ -0,0 +1,277 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+
+public class BlockCompiler {
+
+    // Second execution tier of the 16-bit CPU.
+    // The interpreter asks lookup() for a block at every instruction start. lookup() counts how many times
+    // each ROM address was reached, and once an address gets hot the basic block starting there
+    // (up to and including the first JMP/Jcc/CALL/Ccc/RET/LOOP/EXT) is translated into a hidden class.
+    //
+    // The generated run() method is straight-line code. for every instruction it does
+    //     cpu.registers[PC] = <last byte>         where the interpreter leaves PC while executing
+    //     cpu.add(0x0100AB, 0x03000A)            the instruction method, operands as constants
+    //     cpu.checkError()                       error flag check
+    // and the block ends with cpu.finishBlock(<bytes>, <instructions>) for the final step, the pacer and UI updates.
+    // There is no fetch, no decode and no dispatch left, and the JVM can inline the instruction methods
+    // with their operand mode switches folded away. Since the very same instruction methods run,
+    // bounds checks, overflow protection and error codes behave exactly like in the interpreter.
+    //
+    // Blocks never contain INT or console I/O instructions (or opcodes added with registerInstruction),
+    // a block ends right before them and the interpreter executes them.
+    // An instruction that can write PC (a register operand naming PC, or POP) ends its block like a jump does,
+    // the PC store of the next instruction would throw the write away.
+
+    static final int DEFAULT_THRESHOLD = 1000;
+    static final int MAX_BLOCK_INSTRUCTIONS = 64;
+
+    // how an opcode is translated
+    private static final int KIND_INTERPRETED = 0;  // never compiled
+    private static final int KIND_NOP = 1;          // nothing to call
+    private static final int KIND_NO_OPERANDS = 2;  // name()
+    private static final int KIND_ONE_OPERAND = 3;  // name(operandA)
+    private static final int KIND_TWO_OPERANDS = 4; // name(operandA, operandB)
+    private static final int KIND_ADDRESS = 5;      // name(operandA, value of operandB)
+    private static final int KIND_JUMP = 6;         // name(target)
+    private static final int KIND_CALL = 7;         // name(target, return address)
+
+    private static final int[] kinds = new int[DispatchTable.OPCODE_COUNT];
+    private static final String[] methods = new String[DispatchTable.OPCODE_COUNT];
+    private static final boolean[] terminators = new boolean[DispatchTable.OPCODE_COUNT];
+
+    private static final String CPU_CLASS = "CPUModule16BIT";
+    private static final String BLOCK_INTERFACE = "CompiledBlock";
+
+    static {
+        translate(CPU.INS_NOP, KIND_NOP, null);
+        translate(CPU.INS_EXT, KIND_NO_OPERANDS, "ext");
+        translate(CPU.INS_RET, KIND_NO_OPERANDS, "ret");
+
+        translate(CPU.INS_SET, KIND_TWO_OPERANDS, "set");
+        translate(CPU.INS_SHL, KIND_TWO_OPERANDS, "shift_left");
+        translate(CPU.INS_SHR, KIND_TWO_OPERANDS, "shift_right");
+        translate(CPU.INS_ADD, KIND_TWO_OPERANDS, "add");
+        translate(CPU.INS_SUB, KIND_TWO_OPERANDS, "sub");
+        translate(CPU.INS_MUL, KIND_TWO_OPERANDS, "mul");
+        translate(CPU.INS_DIV, KIND_TWO_OPERANDS, "div");
+        translate(CPU.INS_POW, KIND_TWO_OPERANDS, "pow");
+        translate(CPU.INS_RND, KIND_TWO_OPERANDS, "rnd");
+        translate(CPU.INS_AND, KIND_TWO_OPERANDS, "and");
+        translate(CPU.INS_OR, KIND_TWO_OPERANDS, "or");
+        translate(CPU.INS_XOR, KIND_TWO_OPERANDS, "xor");
+        translate(CPU.INS_NAND, KIND_TWO_OPERANDS, "nand");
+        translate(CPU.INS_NOR, KIND_TWO_OPERANDS, "nor");
+        translate(CPU.INS_CMP, KIND_TWO_OPERANDS, "cmp");
+
+        translate(CPU.INS_SQRT, KIND_ONE_OPERAND, "sqrt");
+        translate(CPU.INS_INC, KIND_ONE_OPERAND, "inc");
+        translate(CPU.INS_DEC, KIND_ONE_OPERAND, "dec");
+        translate(CPU.INS_NOT, KIND_ONE_OPERAND, "not");
+        translate(CPU.INS_PUSH, KIND_ONE_OPERAND, "push");
+        translate(CPU.INS_POP, KIND_ONE_OPERAND, "pop");
+
+        translate(CPU.INS_LA, KIND_ADDRESS, "la");
+        translate(CPU.INS_LLEN, KIND_ADDRESS, "llen");
+        translate(CPU.INS_LENW, KIND_ADDRESS, "lenw");
+
+        translate(CPU.INS_JMP, KIND_JUMP, "jmp");
+        translate(CPU.INS_JE, KIND_JUMP, "je");
+        translate(CPU.INS_JNE, KIND_JUMP, "jne");
+        translate(CPU.INS_JL, KIND_JUMP, "jl");
+        translate(CPU.INS_JLE, KIND_JUMP, "jle");
+        translate(CPU.INS_JG, KIND_JUMP, "jg");
+        translate(CPU.INS_JGE, KIND_JUMP, "jge");
+        translate(CPU.INS_LOOP, KIND_JUMP, "loop");
+
+        translate(CPU.INS_CALL, KIND_CALL, "call");
+        translate(CPU.INS_CE, KIND_CALL, "ce");
+        translate(CPU.INS_CNE, KIND_CALL, "cne");
+        translate(CPU.INS_CL, KIND_CALL, "cl");
+        translate(CPU.INS_CLE, KIND_CALL, "cle");
+        translate(CPU.INS_CG, KIND_CALL, "cg");
+        translate(CPU.INS_CGE, KIND_CALL, "cge");
+
+        for (int opcode : new int[]{CPU.INS_EXT, CPU.INS_RET, CPU.INS_JMP, CPU.INS_JE, CPU.INS_JNE, CPU.INS_JL,
+                CPU.INS_JLE, CPU.INS_JG, CPU.INS_JGE, CPU.INS_LOOP, CPU.INS_CALL, CPU.INS_CE, CPU.INS_CNE,
+                CPU.INS_CL, CPU.INS_CLE, CPU.INS_CG, CPU.INS_CGE})
+            terminators[opcode] = true;
+    }
+
+    private static void translate(int opcode, int kind, String method){
+        kinds[opcode] = kind;
+        methods[opcode] = method;
+    }
+
+
+    // counter value of an address that failed to compile. it will not be tried again
+    private static final int GAVE_UP = Integer.MIN_VALUE;
+
+    private final InstructionCache instructionCache;
+    private final int threshold;
+    private final boolean[] excluded = new boolean[DispatchTable.OPCODE_COUNT];
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private CompiledBlock[] blocks = new CompiledBlock[0];
+    private int[] counters = new int[0];
+    private int compiledBlocks = 0;
+
+    String logDevice = "BLOCK_COMPILER";
+    Logger.Device log = Logger.device(logDevice);
+
+
+    public BlockCompiler(InstructionCache instructionCache, int threshold){
+        this.instructionCache = instructionCache;
+        this.threshold = Math.max(1, threshold);
+    }
+
+    // returns null when the JIT is turned off (threshold 0)
+    public static BlockCompiler fromConfig(InstructionCache instructionCache){
+        int threshold = Integer.parseInt(Launcher.appConfig.getOrDefault("JitThreshold", Integer.toString(DEFAULT_THRESHOLD)));
+        if (threshold <= 0) return null;
+        return new BlockCompiler(instructionCache, threshold);
+    }
+
+    // call after InstructionCache.bind. compiled blocks survive as long as the ROM doesn't change
+    public void bind(int codeLength, boolean romChanged){
+        if (!romChanged && blocks.length == codeLength) return;
+        blocks = new CompiledBlock[codeLength];
+        counters = new int[codeLength];
+        compiledBlocks = 0;
+    }
+
+    public void invalidate(){
+        blocks = new CompiledBlock[blocks.length];
+        counters = new int[counters.length];
+        compiledBlocks = 0;
+    }
+
+    // keeps an opcode in the interpreter, used when its handler gets replaced
+    public void exclude(int opcode){
+        excluded[opcode & 0xff] = true;
+        invalidate();
+    }
+
+    public CompiledBlock lookup(int address){
+        CompiledBlock block = blocks[address];
+        if (block == null && ++counters[address] == threshold) block = compile(address);
+        return block;
+    }
+
+    public int getCompiledBlockCount(){
+        return compiledBlocks;
+    }
+
+
+    private CompiledBlock compile(int address){
+        int[] instructions = findBlock(address);
+        if (instructions.length == 0) {
+            counters[address] = GAVE_UP;
+            return null;
+        }
+
+        try {
+            byte[] classBytes = generate(address, instructions);
+            MethodHandles.Lookup blockLookup = lookup.defineHiddenClass(classBytes, true);
+            CompiledBlock block = (CompiledBlock) blockLookup
+                    .findConstructor(blockLookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+
+            blocks[address] = block;
+            compiledBlocks++;
+            log.debug("Compiled block at 0x%04X with %d instructions", address, instructions.length);
+            return block;
+        } catch (Throwable e) {
+            // stay in the interpreter for this address
+            log.log(Logger.Level.WARN, "Could not compile block at 0x%04X : %s", address, e.toString());
+            counters[address] = GAVE_UP;
+            return null;
+        }
+    }
+
+    // addresses of the instructions in the block starting at the address
+    private int[] findBlock(int address){
+        int[] instructions = new int[MAX_BLOCK_INSTRUCTIONS];
+        int count = 0;
+        int current = address;
+
+        while (count < MAX_BLOCK_INSTRUCTIONS && current < blocks.length) {
+            int opcode;
+            int length;
+            try {
+                int record = instructionCache.fetch(current);
+                opcode = InstructionCache.opcode(record);
+                length = InstructionCache.length(record);
+            } catch (ArrayIndexOutOfBoundsException e) {
+                break; // truncated instruction at the end of the ROM. the interpreter reports it
+            }
+
+            if (kinds[opcode] == KIND_INTERPRETED || excluded[opcode]) break;
+            if (current + length > blocks.length) break;
+
+            instructions[count++] = current;
+            if (terminators[opcode] || writesPC(opcode, instructionCache.operandA(current))) break;
+            current += length;
+        }
+
+        return Arrays.copyOf(instructions, count);
+    }
+
+    private static boolean writesPC(int opcode, int operandA){
+        if (opcode == CPU.INS_POP) return true;
+        int mode = CPU.operandMode(operandA);
+        return (mode == CPU.REGISTER_MODE || mode == CPU.REGISTER_WORD_MODE) && CPU.operandValue(operandA) == CPUModule16BIT.PC;
+    }
+
+    private byte[] generate(int address, int[] instructions){
+        ClassFileBuilder classFile = new ClassFileBuilder(
+                String.format("CompiledBlock_%04X", address), "java/lang/Object", BLOCK_INTERFACE);
+
+        ClassFileBuilder.Code constructor = classFile.code()
+                .aload(0)
+                .invokeSpecial("java/lang/Object", "<init>", "()V")
+                .returnVoid();
+        constructor.maxStack = 1;
+        constructor.maxLocals = 1;
+        classFile.addMethod(ClassFileBuilder.ACC_PUBLIC, "<init>", "()V", constructor);
+
+        // local 1 is the CPU
+        ClassFileBuilder.Code run = classFile.code();
+        int bytes = 0;
+        for (int instruction : instructions) {
+            int record = instructionCache.fetch(instruction);
+            int opcode = InstructionCache.opcode(record);
+            int operandA = instructionCache.operandA(instruction);
+            int operandB = instructionCache.operandB(instruction);
+            int lastByte = instruction + InstructionCache.length(record) - 1;
+            bytes += InstructionCache.length(record);
+
+            run.aload(1).getField(CPU_CLASS, "registers", "[I").pushInt(CPUModule16BIT.PC).pushInt(lastByte).intArrayStore();
+
+            switch (kinds[opcode]) {
+                case KIND_NO_OPERANDS -> run.aload(1)
+                        .invokeVirtual(CPU_CLASS, methods[opcode], "()V");
+                case KIND_ONE_OPERAND -> run.aload(1).pushInt(operandA)
+                        .invokeVirtual(CPU_CLASS, methods[opcode], "(I)V");
+                case KIND_TWO_OPERANDS -> run.aload(1).pushInt(operandA).pushInt(operandB)
+                        .invokeVirtual(CPU_CLASS, methods[opcode], "(II)V");
+                case KIND_ADDRESS -> run.aload(1).pushInt(operandA).pushInt(CPU.operandValue(operandB))
+                        .invokeVirtual(CPU_CLASS, methods[opcode], "(II)V");
+                case KIND_JUMP -> run.aload(1).pushInt(CPU.operandValue(operandA))
+                        .invokeVirtual(CPU_CLASS, methods[opcode], "(I)V");
+                case KIND_CALL -> run.aload(1).pushInt(CPU.operandValue(operandA)).pushInt(lastByte)
+                        .invokeVirtual(CPU_CLASS, methods[opcode], "(II)V");
+                default -> { } // KIND_NOP
+            }
+
+            run.aload(1).invokeVirtual(CPU_CLASS, "checkError", "()V");
+        }
+        run.aload(1).pushInt(bytes).pushInt(instructions.length).invokeVirtual(CPU_CLASS, "finishBlock", "(II)V");
+        run.returnVoid();
+        run.maxStack = 3;
+        run.maxLocals = 2;
+        classFile.addMethod(ClassFileBuilder.ACC_PUBLIC, "run", "(L" + CPU_CLASS + ";)V", run);
+
+        return classFile.toByteArray();
+    }
+}
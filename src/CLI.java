@@ -1,8 +1,9 @@
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class CLI {
     private VirtualMachine vm;
@@ -11,6 +12,8 @@ public class CLI {
     String architecture = Launcher.appConfig.get("Architecture");
     File binFile;
 
+    static final int MAP_THRESHOLD = 16 * 1024;
+
     public CLI(String filePath){
 
         binFile = new File(filePath);
@@ -37,11 +40,7 @@ public class CLI {
 
             System.exit(-1);
         }
-        vm.readyToExecute = true;
-        int entryPointLow = cpuModule.machineCode[ cpuModule.machineCode.length - 1 ];
-        int entryPointHigh = cpuModule.machineCode[ cpuModule.machineCode.length - 2 ];
-
-        cpuModule.functions.put("MAIN",  (entryPointHigh << 8) | entryPointLow );
+        setEntryPoint();
         VirtualMachine.beep(VirtualMachine.beepSuccess[0], VirtualMachine.beepSuccess[1]);
         vm.executeCode();
     }
@@ -72,12 +71,24 @@ public class CLI {
 
             System.exit(-1);
         }
+        setEntryPoint();
+        vm.executeCode();
+    }
+
+    // loads binaries into an existing VM without running them. used by the benchmarks and the batch runner
+    CLI(VirtualMachine vm, CPU cpuModule, File binFile){
+        this.vm = vm;
+        this.cpuModule = cpuModule;
+        this.binFile = binFile;
+    }
+
+    // points MAIN at the entry point stored in the last two bytes of the loaded binary
+    public void setEntryPoint(){
         vm.readyToExecute = true;
         int entryPointLow = cpuModule.machineCode[ cpuModule.machineCode.length - 1 ];
         int entryPointHigh = cpuModule.machineCode[ cpuModule.machineCode.length - 2 ];
 
         cpuModule.functions.put("MAIN",  (entryPointHigh << 8) | entryPointLow );
-        vm.executeCode();
     }
 
     public void loadBinaryFile(){
@@ -85,12 +96,10 @@ public class CLI {
         try {
             System.out.println("READING FILE CONTENT.\n");
 
-            byte[] fileBin = Files.readAllBytes(binFile.toPath());
+            ByteBuffer fileBin = readBinary(binFile.toPath());
 
             byte[] metadata = new byte[CPU.metadataLength];
-            for(int i = 0; i < metadata.length; i++){
-                metadata[i] = fileBin[ fileBin.length - metadata.length + i ];
-            }
+            fileBin.get(fileBin.limit() - metadata.length, metadata);
             int Fver = metadata[ metadata.length - 5] + metadata[ metadata.length - 6 ] + metadata[ metadata.length - 7 ];
 
             String fileVersion = String.valueOf((char) metadata[metadata.length - 8]) +
@@ -116,33 +125,35 @@ public class CLI {
 
             System.out.println("CHECKING MEMORY.");
 
-            if (fileBin.length > cpuModule.memoryController.mem_size_B) {
+            // compileToMemoryImage writes mem_size_B - (metadataLength - 2) bytes of memory followed by the
+            // metadataLength bytes of metadata, so binaries made for this configuration are 2 bytes bigger than the memory
+            if (fileBin.limit() > cpuModule.memoryController.mem_size_B + 2) {
                 String err = String.format("""
                         THE CURRENT MEMORY CONFIGURATION USES %.3fKB OF MEMORY.
                         THE COMPILED BINARY FILE USES %.3fKB OF MEMORY.
                         PLEASE INCREASE MEMORY SIZE.
-                        """, cpuModule.memoryController.mem_size_B / 1024f, fileBin.length / 1024f);
+                        """, cpuModule.memoryController.mem_size_B / 1024f, fileBin.limit() / 1024f);
 
                 cpuModule.triggerProgramError(err, ErrorHandler.ERR_CODE_INSUFFICIENT_MEMORY);
             }
             System.out.printf("BINARY FILE SIZE: %.3fKB, MEMORY SIZE: %.3fKB. MEMORY OK\n",
-                    fileBin.length / 1024f, cpuModule.memoryController.mem_size_B / 1024f);
+                    fileBin.limit() / 1024f, cpuModule.memoryController.mem_size_B / 1024f);
 
             int index_file = 0, index_memory = 0;
             int file_rom_size = 0, file_data_size = 0;
 
-            for(file_rom_size = 0; fileBin[file_rom_size] != CPU.TEXT_SECTION_END; file_rom_size++);
-            for(int i = file_rom_size + 1; fileBin[i] != CPU.MEMORY_SECTION_END; i++) file_data_size++;
+            for(file_rom_size = 0; fileBin.get(file_rom_size) != CPU.TEXT_SECTION_END; file_rom_size++);
+            for(int i = file_rom_size + 1; fileBin.get(i) != CPU.MEMORY_SECTION_END; i++) file_data_size++;
 
-            int mem_rom_size = MemoryModule.rom_end - MemoryModule.rom_start;
-            int mem_data_size = MemoryModule.stack_end - MemoryModule.data_start;
+            int mem_rom_size = cpuModule.memoryController.rom_end - cpuModule.memoryController.rom_start;
+            int mem_data_size = cpuModule.memoryController.stack_end - cpuModule.memoryController.data_start;
 
             if (file_rom_size > mem_rom_size) {
                 String err = String.format("""
                         THE ROM SIZE OF THE COMPILED BINARY EXCEEDS THE ROM SIZE IN THE CURRENT MEMORY CONFIGURATION.
                         PLEASE INCREASE ROM SIZE.
                         BINARY FILE ROM SIZE: %dB, CURRENT ROM SIZE: %dB
-                        """, file_rom_size, MemoryModule.rom_end);
+                        """, file_rom_size, cpuModule.memoryController.rom_end);
 
                 cpuModule.triggerProgramError(err, ErrorHandler.ERR_CODE_INSUFFICIENT_MEMORY);
             }
@@ -159,48 +170,54 @@ public class CLI {
 
             System.out.println("ADDING AND ALIGNING THE BINARY DATA TO MEMORY\n");
 
-            List<Integer> machineCode = new ArrayList<>();
-            for(int i = 0; i < cpuModule.memoryController.mem_size_B; i++) machineCode.add(0x00);
-
+            // the sections go from the mapping straight into memory, the image the CPU executes is read back from it
+            MemoryModule memory = cpuModule.memoryController;
+            memory.clear();
 
             System.out.println("COPYING ROM DATA TO MEMORY IMAGE.");
-            for(int i = 0; i < file_rom_size; i++){
-                machineCode.set(index_file, fileBin[index_file] & 0xff);
-                index_file++;
-            }
-            machineCode.set(mem_rom_size + 1, CPU.TEXT_SECTION_END & 0xff);
+            memory.loadSection(0, fileBin, 0, file_rom_size);
+            index_file = file_rom_size;
+            memory.setMemoryAbsolute(mem_rom_size + 1, CPU.TEXT_SECTION_END, CPU.DATA_BYTE_MODE);
 
             System.out.println("COPYING DATA SECTION TO MEMORY IMAGE.");
 
             // we have to align the contents of the file to the memory.
-            index_memory = MemoryModule.data_start - 1;
-            for(int i = 0; i < file_data_size; i++){
-                machineCode.set(index_memory, fileBin[index_file] & 0xff);
-                index_file++;
-                index_memory++;
-            }
-            machineCode.set(mem_rom_size + mem_data_size, CPU.MEMORY_SECTION_END & 0xff);
+            index_memory = memory.data_start - 1;
+            memory.loadSection(index_memory, fileBin, index_file, file_data_size);
+            memory.setMemoryAbsolute(mem_rom_size + mem_data_size, CPU.MEMORY_SECTION_END, CPU.DATA_BYTE_MODE);
 
 
             System.out.println("COPYING METADATA TO MEMORY IMAGE.");
 
-            int copyIndex = fileBin.length - 1;
-            for(int i = 0; i <= CPU.metadataLength; i++){
-                machineCode.set( machineCode.size() - i - 1, (int) fileBin[copyIndex]);
-                copyIndex--;
-            }
+            int trailerLength = CPU.metadataLength + 1;
+            memory.loadSection(memory.mem_size_B - trailerLength, fileBin, fileBin.limit() - trailerLength, trailerLength);
 
             System.out.println("ASSEMBLING THE MEMORY.");
-            int[] image = machineCode.stream().mapToInt(Integer::intValue).toArray();
+            int[] image = memory.toImage();
+            // the metadata keeps its sign, the memory size and the version are read back as signed bytes
+            for(int i = image.length - trailerLength; i < image.length; i++) image[i] = (byte) image[i];
+
             cpuModule.machineCode = image;
             vm.setMemImage(image);
 
-            for(int i = 0; i < cpuModule.memoryController.mem_size_B; i++)
-                cpuModule.memoryController.setMemoryAbsolute(i, (short) image[i], CPU.DATA_BYTE_MODE);
-
             System.out.println("DONE. STARTING EXECUTION.\n");
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    // binaries of MAP_THRESHOLD bytes and more are mapped instead of read onto the heap, smaller ones are
+    // cheaper to read than to map. the loaders copy what they need out of the buffer right away,
+    // a mapping goes away with its buffer
+    static ByteBuffer readBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+            return buffer.flip();
+        }
+    }
+
 }
@@ -1,3 +1,5 @@
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.util.*;
 
 public abstract class CPU {
@@ -92,6 +94,21 @@ public abstract class CPU {
     public static final int DATA_BUFFER_BYTE_MODE = 3;
     public static final int DATA_BUFFER_WORD_MODE = 4;
 
+    // Instruction operands are packed into a single int so fetching them doesn't allocate.
+    // bits 16-23 hold the addressing mode, bits 0-15 the value:
+    // a register code for register / indirect modes, (high << 8) | low for direct, immediate, data and function modes.
+    public static int packOperand(int mode, int value){
+        return (mode << 16) | (value & 0xffff);
+    }
+
+    public static int operandMode(int operand){
+        return (operand >> 16) & 0xff;
+    }
+
+    public static int operandValue(int operand){
+        return operand & 0xffff;
+    }
+
     public static final long UI_UPDATE_MAX_INTERVAL = Long.parseLong(Launcher.appConfig.get("UiUpdateInterval"));
     protected long lastTimeSinceUpdate = 0;
 
@@ -103,10 +120,12 @@ public abstract class CPU {
     protected int currentByte = 0;
     public int bit_length = 0;
     protected boolean canExecute = true;
-    protected static boolean programEnd = false;
+    protected boolean programEnd = false;
+    // instructions completed by the last executeCompiledCode call
+    protected long instructionsRetired = 0;
     protected boolean noStep = false;
     protected boolean UIMode = false;
-    protected static int currentLine = 1;
+    protected int currentLine = 1;
 
     protected int MAX_STRING_LENGTH = 250;
 
@@ -116,15 +135,34 @@ public abstract class CPU {
     protected int max_byte_value = 255;
     protected int last_addressable_location;
 
-    protected int delayAmountMilliseconds = (int) ( (1.0 / Integer.parseInt(Launcher.appConfig.get("Cycles"))) * 1000 );
+    // meters execution to the configured Cycles rate, or runs flat-out when Throttle=false
+    protected CyclePacer pacer = CyclePacer.fromConfig();
 
 
-    protected static StringBuilder outputString = new StringBuilder();
+    protected StringBuilder outputString = new StringBuilder();
     protected String output = "";
 
-    protected static int status_code = 0;
+    // the program's console output, written out in batches (see ConsoleDevice)
+    protected final ConsoleDevice consoleOutput = ConsoleDevice.fromConfig(this::writeConsole);
+    // outputString keeps the last outputHistory characters of the output, the UI shows them. 0 keeps everything
+    private final int outputHistory =
+            Integer.parseInt(Launcher.appConfig.getOrDefault(ConsoleDevice.HISTORY_KEY, "65536").trim());
+
+    // the program's console. null means the process console, looked up on every use so redirecting
+    // System.out / System.in keeps working. see setConsole
+    private PrintStream consoleOut;
+    private InputStream consoleIn;
+    private Scanner consoleScanner;
+    private InputStream consoleScannerSource;
+
+    // beep on errors and buffer overflows. the batch runner turns it off
+    protected boolean audible = true;
+
+    protected int status_code = 0;
 
     protected MemoryModule memoryController;
+    // the disk of the machine running this CPU, attached by VirtualMachine.executeCode
+    protected HardDiskDriver diskDriver;
 
     //protected float ROMpercentage = (35.0f / 100);
     protected float DATApercentage = (Float.parseFloat(Launcher.appConfig.get("DataPercentage")) / 100);
@@ -150,7 +188,7 @@ public abstract class CPU {
     protected HashMap<String, Integer> definitionMap = new HashMap<>();
     protected HashMap<String, Integer> dataMap = new HashMap<>();
     protected HashMap<String, Integer> functions = new HashMap<>();
-    protected Stack<Integer> functionCallStack = new Stack<>();
+    protected CallStack functionCallStack = new CallStack();
 
 
     public final static char REGISTER_PREFIX = '$';
@@ -199,7 +237,8 @@ public abstract class CPU {
     // 2 bytes for version checksum and 4 bytes for memory size, architecture flag, entry point address
     static int metadataLength = signature.length() + lastUpdateDate.length() + compilerVersion.length() + 4;
 
-    protected static String logDevice = "CPU_GENERIC";
+    protected String logDevice = "CPU_GENERIC";
+    protected Logger.Device log = Logger.device(logDevice);
 
     public CPU() {
 
@@ -335,23 +374,89 @@ public abstract class CPU {
     public abstract void setUIupdateListener(onStepListener listener);
 
 
+    // gives the machine its own console, e.g. a file as input and a buffer as output. null restores the process console
+    public void setConsole(PrintStream out, InputStream in){
+        consoleOutput.flush(); // what the program printed so far belongs to the old console
+        consoleOut = out;
+        consoleIn = in;
+        consoleScanner = null;
+    }
+
+    // for printing straight to the console. the program's buffered output comes first
+    public PrintStream console(){
+        consoleOutput.flush();
+        return consoleStream();
+    }
+
+    private PrintStream consoleStream(){
+        return consoleOut != null ? consoleOut : System.out;
+    }
+
+    // a batch of the program's output, to the console and to outputString
+    private void writeConsole(char[] chars, int offset, int length){
+        PrintStream out = consoleStream();
+        out.print(new String(chars, offset, length));
+        out.flush();
+
+        outputString.append(chars, offset, length);
+        if (outputHistory > 0 && outputString.length() > 2 * outputHistory)
+            outputString.delete(0, outputString.length() - outputHistory);
+    }
+
+    // one scanner per input, a new scanner per read would drop whatever the previous one buffered.
+    // the prompt the program printed is written out before the read blocks
+    public Scanner consoleInput(){
+        consoleOutput.flush();
+        InputStream in = consoleIn != null ? consoleIn : System.in;
+        if (consoleScanner == null || consoleScannerSource != in) {
+            consoleScanner = new Scanner(in);
+            consoleScannerSource = in;
+        }
+        return consoleScanner;
+    }
+
+    // console output. every character costs one cycle, same as before
+    protected void emit(char c){
+        pacer.tick(1);
+        consoleOutput.write(c);
+    }
+
+    // prints the decimal digits of a number one by one so no String is built for it
+    protected void emitNumber(int value){
+        long remaining = value;
+        if (remaining < 0){
+            emit('-');
+            remaining = -remaining;
+        }
+
+        long divisor = 1;
+        while (remaining / divisor >= 10) divisor *= 10;
+
+        while (divisor > 0){
+            emit((char) ('0' + (remaining / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+
+
     public void triggerProgramError(String errMsg, int errCode){
         status_code = errCode;
+        consoleOutput.flush();
         outputString.append("line " + currentLine + " : " + errMsg);
         programEnd = true;
         RuntimeException exceptionType = new RuntimeException("line " + currentLine + " : " + errMsg);
-        Logger.addLog("line : " + currentLine + " : " + errMsg, logDevice);
-        Logger.addLog("Program terminated with code : " + status_code, logDevice);
-        Logger.addLog("=============Program ROM=================", logDevice);
-        Logger.addLog(memoryController.dumpROM(), logDevice);
-        Logger.addLog("=============Program registers=================", logDevice);
-        Logger.addLog(dumpRegisters(), logDevice);
-        Logger.addLog(dumpFlags(), logDevice);
-        Logger.addLog("=============Program memory===================", logDevice);
-        Logger.addLog(memoryController.dumpMemory(), logDevice);
+        log.error("line : " + currentLine + " : " + errMsg);
+        log.error("Program terminated with code : " + status_code);
+        log.error("=============Program ROM=================");
+        log.error(memoryController.dumpROM());
+        log.error("=============Program registers=================");
+        log.error(dumpRegisters());
+        log.error(dumpFlags());
+        log.error("=============Program memory===================");
+        log.error(memoryController.dumpMemory());
         Logger.writeLogFile("./ErrLog.log");
-        System.out.println("Program terminated with code : " + status_code);
-        for(int i = 0; i < 3; i++){
+        console().println("Program terminated with code : " + status_code);
+        for(int i = 0; audible && i < 3; i++){
             VirtualMachine.beep(VirtualMachine.beepError[0], VirtualMachine.beepError[1]);
             try {
                 Thread.sleep(VirtualMachine.beepError[2]);
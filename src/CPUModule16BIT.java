@@ -18,18 +18,30 @@ public class CPUModule16BIT extends CPU {
     int registerPairStart;
 
 
-    static int PC = 18;
-    static int SP = 19;
-    static int SS = 20;
-    static int SE = 21;
-    static int DI = 22;
-    static int DP = 23;
-    static int CX;
+    static final int PC = 18;
+    static final int SP = 19;
+    static final int SS = 20;
+    static final int SE = 21;
+    static final int DI = 22;
+    static final int DP = 23;
+    int CX;
 
 
-    // flags
+    // flags. N, C, O and Z are evaluated lazily, read them after materializeFlags()
     boolean N, C, O, Z, I, T, E;
 
+    // what the last ALU operation or CMP left behind for N and Z
+    private static final int FLAGS_CURRENT = 0;
+    private static final int FLAGS_RESULT = 1;   // flagA = result of an ALU operation
+    private static final int FLAGS_COMPARE = 2;  // flagA = destination, flagB = source of a CMP
+    private int flagKind = FLAGS_CURRENT;
+    private int flagA, flagB;
+
+    // C is only set by non negative results and O by negative ones, otherwise they keep their value.
+    // flagHistory[sign bit] holds the last result of each kind, flagHistoryPending marks the ones not applied yet
+    private final int[] flagHistory = new int[2];
+    private int flagHistoryPending;
+
     // listeners
     private onStepListener stepListener;
 
@@ -41,6 +53,168 @@ public class CPUModule16BIT extends CPU {
     HashMap<Integer, String> dataAddresses;
     StringBuilder code;
 
+    // opcode -> handler. see createDispatchTable
+    DispatchTable<CPUModule16BIT> dispatch = createDispatchTable();
+
+    // decoded ROM records, operands come out of it already packed (see CPU.packOperand)
+    InstructionCache instructionCache = new InstructionCache(dispatch);
+
+    // Engine=INTERPRETER | THREADED | JIT, see ExecutionEngine
+    ExecutionEngine engine = ExecutionEngine.fromConfig();
+
+    // compiles hot basic blocks to JVM bytecode. null unless Engine=JIT and JitThreshold > 0
+    BlockCompiler jit = engine == ExecutionEngine.JIT ? BlockCompiler.fromConfig(instructionCache) : null;
+
+    // the ROM as linked closure nodes. null unless Engine=THREADED
+    ThreadedCode threaded = engine == ExecutionEngine.THREADED ? new ThreadedCode(instructionCache, dispatch) : null;
+
+    // per-opcode and per-address counts. null unless Profile=COUNTS or TIMING
+    Profiler profiler = Profiler.fromConfig();
+
+
+    /// /////////////////////////// INSTRUCTION DISPATCH ///////////////////////////////////////////////////
+    /// PC already points at the last byte of the instruction when a handler runs.
+    /// operands come out of the instruction cache with operandA(address) and operandB(address)
+
+    private static DispatchTable<CPUModule16BIT> createDispatchTable(){
+        DispatchTable<CPUModule16BIT> table = new DispatchTable<>(CPUModule16BIT::undefinedInstruction);
+
+        table.register(INS_EXT, (cpu, address) -> cpu.ext());
+        table.register(INS_NOP, (cpu, address) -> {}); // do nothing for 1 cycle
+
+        table.register(INS_SET, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.set(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_SHL, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.shift_left(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_SHR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.shift_right(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_ADD, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.add(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_SUB, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.sub(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_MUL, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.mul(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_DIV, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.div(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_POW, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.pow(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_RND, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.rnd(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_AND, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.and(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_OR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.or(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_XOR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.xor(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_NAND, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.nand(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_NOR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.nor(cpu.operandA(address), cpu.operandB(address)));
+        table.register(INS_CMP, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.cmp(cpu.operandA(address), cpu.operandB(address)));
+
+        table.register(INS_OUT, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.out(cpu.operandA(address)));
+        table.register(INS_OUTC, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.outc(cpu.operandA(address)));
+        table.register(INS_SQRT, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.sqrt(cpu.operandA(address)));
+        table.register(INS_INC, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.inc(cpu.operandA(address)));
+        table.register(INS_DEC, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.dec(cpu.operandA(address)));
+        table.register(INS_NOT, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.not(cpu.operandA(address)));
+        table.register(INS_PUSH, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.push(cpu.operandA(address)));
+        table.register(INS_POP, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.pop(cpu.operandA(address)));
+
+        // Get the destination (must be 16-bit compatible). the address follows it
+        table.register(INS_LA, DispatchTable.LAYOUT_OPERAND_ADDRESS, (cpu, address) -> cpu.la(cpu.operandA(address), operandValue(cpu.operandB(address))));
+        table.register(INS_LLEN, DispatchTable.LAYOUT_OPERAND_ADDRESS, (cpu, address) -> cpu.llen(cpu.operandA(address), operandValue(cpu.operandB(address))));
+        table.register(INS_LENW, DispatchTable.LAYOUT_OPERAND_ADDRESS, (cpu, address) -> cpu.lenw(cpu.operandA(address), operandValue(cpu.operandB(address))));
+
+        table.register(INS_OUTS, (cpu, address) -> cpu.outs());
+        table.register(INS_OUTSW, (cpu, address) -> cpu.outsw());
+
+        table.register(INS_CALL, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.call(operandValue(cpu.operandA(address)), cpu.registers[PC]));
+        table.register(INS_RET, (cpu, address) -> cpu.ret());
+
+        table.register(INS_CE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.ce(operandValue(cpu.operandA(address)), cpu.registers[PC]));
+        table.register(INS_CNE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.cne(operandValue(cpu.operandA(address)), cpu.registers[PC]));
+        table.register(INS_CL, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.cl(operandValue(cpu.operandA(address)), cpu.registers[PC]));
+        table.register(INS_CLE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.cle(operandValue(cpu.operandA(address)), cpu.registers[PC]));
+        table.register(INS_CG, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.cg(operandValue(cpu.operandA(address)), cpu.registers[PC]));
+        table.register(INS_CGE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.cge(operandValue(cpu.operandA(address)), cpu.registers[PC]));
+
+        table.register(INS_JMP, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jmp(operandValue(cpu.operandA(address))));
+        table.register(INS_JE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.je(operandValue(cpu.operandA(address))));
+        table.register(INS_JNE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jne(operandValue(cpu.operandA(address))));
+        table.register(INS_JL, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jl(operandValue(cpu.operandA(address))));
+        table.register(INS_JLE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jle(operandValue(cpu.operandA(address))));
+        table.register(INS_JG, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jg(operandValue(cpu.operandA(address))));
+        table.register(INS_JGE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jge(operandValue(cpu.operandA(address))));
+        table.register(INS_LOOP, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.loop(operandValue(cpu.operandA(address))));
+
+        table.register(INS_INT, (cpu, address) -> cpu.interrupt());
+
+        return table;
+    }
+
+    // makes a new instruction available to the assembler, disassembler and the executor
+    public void registerInstruction(int opcode, String mnemonic, int layout, InstructionHandler<CPUModule16BIT> handler){
+        dispatch.register(opcode, layout, handler);
+        instructionSet.put(opcode, mnemonic);
+        translationMap.put(mnemonic, opcode);
+        instructionCache.invalidate();
+        if (jit != null) jit.exclude(opcode);
+        if (threaded != null) threaded.exclude(opcode);
+    }
+
+    // decode once, then move PC onto the last byte of the instruction like the per-byte stepping did.
+    // compiled blocks call this too, so keep the two in sync
+    public int beginInstruction(int address){
+        int record = instructionCache.fetch(address);
+        log.trace("Executing instruction 0x%X at ROM address 0x%X", InstructionCache.opcode(record), address);
+
+        int length = InstructionCache.length(record);
+        if (length > 1) advance(length - 1);
+        return record;
+    }
+
+    private void profileInstruction(int opcode, int address){
+        profiler.count(opcode, address);
+        if (!profiler.sampleNext()) {
+            dispatch.execute(this, opcode, address);
+            return;
+        }
+        long start = System.nanoTime();
+        dispatch.execute(this, opcode, address);
+        profiler.sample(opcode, System.nanoTime() - start);
+    }
+
+    public void retireInstruction(){
+        checkError();
+        instructionsRetired++;
+
+        canExecute = !T;
+        output = "";
+        step();
+    }
+
+    public void checkError(){
+        if (E) {
+            status_code = ErrorHandler.ERR_CODE_PROGRAM_ERROR;
+            String err = String.format("The program triggered an error with code : %s", status_code);
+            triggerProgramError(
+                    err, status_code);
+        }
+    }
+
+    // end of a compiled block. same as the retireInstruction() + advance() calls of every instruction in it,
+    // but the pacer and the UI are only updated once
+    public void finishBlock(int bytes, int instructions){
+        instructionsRetired += instructions;
+        canExecute = !T;
+        output = "";
+        registers[PC]++;
+
+        long currentTime = System.currentTimeMillis();
+        consoleOutput.poll(currentTime);
+        if (stepListener != null && (currentTime - lastTimeSinceUpdate) > UI_UPDATE_MAX_INTERVAL ){
+            stepListener.updateUI();
+            lastTimeSinceUpdate = currentTime;
+        }
+        pacer.tick(bytes);
+    }
+
+    private void undefinedInstruction(int address){
+        String err = String.format(
+                "Undefined instruction at address 0x%04X(%d). please check the instruction codes : 0x%04X(%d)",
+                address, address, InstructionCache.opcode(instructionCache.fetch(address)), InstructionCache.opcode(instructionCache.fetch(address)));
+        status_code = ErrorHandler.ERR_CODE_INVALID_INSTRUCTION_FORMAT;
+        triggerProgramError(
+                err, status_code);
+    }
+
 
     /// /////////////////////////// HELPER FUNCTIONS /////////////////////////////////////////////////////////
     /// /////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -49,15 +223,15 @@ public class CPUModule16BIT extends CPU {
         return registers[PC];
     }
 
-    public int getOperandValue(int[] source) {
-        Logger.addLog("Fetching source", logDevice);
-        return switch (source[0]) {
-            case REGISTER_MODE, REGISTER_WORD_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.readByte( ( source[1] << 8 ) | source[2]);
-            case DIRECT_WORD_MODE -> memoryController.bytePairToWordLE((memoryController.readWord( ( source[1] << 8 ) | source[2])));
-            case INDIRECT_MODE -> memoryController.readByte(getRegister(source[1]));
-            case INDIRECT_WORD_MODE -> memoryController.bytePairToWordLE(memoryController.readWord(getRegister(source[1])));
-            case IMMEDIATE_MODE -> (source[1] << 8) | source[2];
+    public int getOperandValue(int source) {
+        log.trace("Fetching source");
+        return switch (operandMode(source)) {
+            case REGISTER_MODE, REGISTER_WORD_MODE -> getRegister(operandValue(source));
+            case DIRECT_MODE -> memoryController.readByte( operandValue(source));
+            case DIRECT_WORD_MODE -> memoryController.readWord( operandValue(source));
+            case INDIRECT_MODE -> memoryController.readByte(getRegister(operandValue(source)));
+            case INDIRECT_WORD_MODE -> memoryController.readWord(getRegister(operandValue(source)));
+            case IMMEDIATE_MODE -> operandValue(source);
             default -> max_pair_value + 1;
         };
     }
@@ -113,7 +287,7 @@ public class CPUModule16BIT extends CPU {
                             err, ErrorHandler.ERR_CODE_CPU_SIZE_VIOLATION);
                 } else {
                     registers[registerID] = value;
-                    updateRegisterPairs();
+                    updateRegisterPair(registerID);
                 }
             } else if (registerID >= registerPairStart) {
 
@@ -124,7 +298,7 @@ public class CPUModule16BIT extends CPU {
                             err, ErrorHandler.ERR_CODE_CPU_SIZE_VIOLATION);
                 } else {
                     registers[registerID] = value;
-                    updateRegisterBytes();
+                    updateRegisterBytes(registerID);
                 }
             }
         }
@@ -161,29 +335,33 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void updateRegisterPairs() {
-        int lowByteIndex = 0;
-        int highByteIndex = 1;
+    // The byte registers (al, ah, bl ... fh) and the pairs (ax ... fx) share one value:
+    //   registers[2n] = low byte of pair n, registers[2n + 1] = high byte, registers[registerPairStart + n] = the pair
+    // A write only refreshes its own alias (updateRegisterPair / updateRegisterBytes with an id).
+    // The no argument versions resync all six pairs, for code that wrote into registers[] directly.
 
-        for (int i = registerPairStart; i < registerPairStart + 6; i++) {
-            registers[i] = (registers[highByteIndex] << 8) | registers[lowByteIndex];
-            lowByteIndex += 2;
-            highByteIndex += 2;
-        }
+    // byte register -> its pair
+    public void updateRegisterPair(int byteRegisterID) {
+        int lowByteIndex = byteRegisterID & ~1;
+        registers[registerPairStart + (byteRegisterID >> 1)] = (registers[lowByteIndex + 1] << 8) | registers[lowByteIndex];
     }
 
-    public void updateRegisterBytes() {
-        int registerLowByteIndex = 0;
-        int registerHighByteIndex = 1;
+    // pair -> its two byte registers. PC, SP, SS, SE, DI and DP have no byte registers
+    public void updateRegisterBytes(int pairRegisterID) {
+        int pair = pairRegisterID - registerPairStart;
+        if (pair < 0 || pair >= 6) return;
 
-        for (int i = registerPairStart; i < registerPairStart + 6; i++) {
+        int value = registers[pairRegisterID];
+        registers[pair << 1] = value & 0xff;
+        registers[(pair << 1) + 1] = (value >> 8) & 0xff;
+    }
 
-            registers[registerLowByteIndex] = registers[i] & 0xff;
-            registers[registerHighByteIndex] = (registers[i] >> 8) & 0xff;
+    public void updateRegisterPairs() {
+        for (int i = 0; i < registerPairStart; i += 2) updateRegisterPair(i);
+    }
 
-            registerLowByteIndex += 2;
-            registerHighByteIndex += 2;
-        }
+    public void updateRegisterBytes() {
+        for (int i = registerPairStart; i < registerPairStart + 6; i++) updateRegisterBytes(i);
     }
 
 
@@ -202,6 +380,7 @@ public class CPUModule16BIT extends CPU {
 
     @Override
     public String dumpFlags() {
+        materializeFlags();
         StringBuilder result = new StringBuilder();
 
         result.append(String.format("N = %d\tO = %d\tC = %d\n" +
@@ -219,13 +398,43 @@ public class CPUModule16BIT extends CPU {
     }
 
     public void updateFlags(int value) {
-        Logger.addLog("Updating flags.", logDevice);
-        short flagSetter = (short) value;
+        log.trace("Updating flags.");
+        flagKind = FLAGS_RESULT;
+        flagA = value;
 
-        Z = flagSetter == 0;
-        N = ((flagSetter >>> 15) & 1) == 1;
-        if (N) O = value > Short.MAX_VALUE || value < Short.MIN_VALUE;
-        else C = value > max_pair_value;
+        int sign = (value >>> 15) & 1;
+        flagHistory[sign] = value;
+        flagHistoryPending |= 1 << sign;
+    }
+
+    // brings N, C, O and Z up to date with the recorded results. conditional jumps and calls, dumpFlags()
+    // (which the UI and error dumps go through) and interrupts call this before reading them
+    public void materializeFlags() {
+        switch (flagKind) {
+            case FLAGS_RESULT -> {
+                short flagSetter = (short) flagA;
+                Z = flagSetter == 0;
+                N = flagSetter < 0;
+            }
+            case FLAGS_COMPARE -> {
+                Z = flagA == flagB;
+                N = flagA < flagB;
+            }
+        }
+        flagKind = FLAGS_CURRENT;
+
+        if ((flagHistoryPending & 1) != 0) C = flagHistory[0] > max_pair_value;
+        if ((flagHistoryPending & 2) != 0) O = flagHistory[1] > Short.MAX_VALUE || flagHistory[1] < Short.MIN_VALUE;
+        flagHistoryPending = 0;
+    }
+
+    private void resetFlags() {
+        N = false;
+        C = false;
+        O = false;
+        Z = false;
+        flagKind = FLAGS_CURRENT;
+        flagHistoryPending = 0;
     }
 
 
@@ -233,25 +442,42 @@ public class CPUModule16BIT extends CPU {
 
         registers[PC]++;
         long currentTime = System.currentTimeMillis();
+        consoleOutput.poll(currentTime);
         if (stepListener != null && (currentTime - lastTimeSinceUpdate) > UI_UPDATE_MAX_INTERVAL ){
             stepListener.updateUI();
             lastTimeSinceUpdate = currentTime;
         }
-        try {
-            Thread.sleep(delayAmountMilliseconds);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        pacer.tick(1);
+        return registers[PC];
+    }
+
+    // same as step() but for a whole instruction at once. used with the instruction cache
+    public int advance(int bytes) {
+
+        registers[PC] += bytes;
+        long currentTime = System.currentTimeMillis();
+        consoleOutput.poll(currentTime);
+        if (stepListener != null && (currentTime - lastTimeSinceUpdate) > UI_UPDATE_MAX_INTERVAL ){
+            stepListener.updateUI();
+            lastTimeSinceUpdate = currentTime;
         }
+        pacer.tick(bytes);
         return registers[PC];
     }
 
+    private int operandA(int address) {
+        return instructionCache.operandA(address);
+    }
+
+    private int operandB(int address) {
+        return instructionCache.operandB(address);
+    }
+
+    // only used by the disassembler, execution reads operands from the instruction cache
     public int[] getNextOperand() {
-        List<Integer> n = new ArrayList<>();
-        n.add(machineCode[step()]);
-        if (n.getFirst() == DIRECT_MODE || n.getFirst() == DIRECT_WORD_MODE) n.add(machineCode[step()]);
-        else if (n.getFirst() == IMMEDIATE_MODE) n.add(machineCode[step()]);
-        n.add(machineCode[step()]);
-        return n.stream().mapToInt(Integer::intValue).toArray();
+        int mode = machineCode[step()];
+        if (InstructionCache.hasWideOperand(mode)) return new int[]{mode, machineCode[step()], machineCode[step()]};
+        return new int[]{mode, machineCode[step()]};
     }
 
 
@@ -277,9 +503,10 @@ public class CPUModule16BIT extends CPU {
     public int[] toMachineCode(String instruction) {return new int[] {0};}
 
 
-    public List<Integer> toMachineCode16(String instruction) {
-        String[] tokens = instruction.trim().split(" ");
-        List<Integer> result = new ArrayList<>();
+    // encodes one instruction at the end of code. function, variable and symbol operands are left to fixups
+    // (see resolveFixups)
+    private void assembleInstruction(String instruction, String[] tokens, CodeBuffer code) {
+        int start = code.length();
 
         // Instruction format: opcode (1 byte) optional: operand1 (2 bytes) optional: operand2 (2 bytes)
         // NOTE: if the instruction has an address, then operand size will be 3 bytes (1 byte for mode, 2 bytes for address)
@@ -290,151 +517,127 @@ public class CPUModule16BIT extends CPU {
             String err = String.format("Unknown instruction : %s\n", tokens[0]);
             status_code = ErrorHandler.ERR_COMP_UNDEFINED_INSTRUCTION;
             triggerProgramError(err, status_code);
-        } else result.add(opCode); // tokens[0] should always be the opcode.
+        } else code.emit(opCode); // tokens[0] should always be the opcode.
 
         // figure out which addressing mode is used.
-        if (tokens.length > 1) {
-            int byteIndex = 1;
-            for (int i = 1; i < tokens.length; i++) {
-
-                switch (tokens[i].charAt(0)) {
-                    case REGISTER_PREFIX -> {
-                        result.add(REGISTER_MODE);
-                        result.add(getRegisterCode( tokens[i].substring(1) ));
-                        byteIndex += 2;
-                    }
-                    case DIRECT_MEMORY_PREFIX ->{
-                        result.add(DIRECT_MODE);
-                        int addr = Integer.parseInt(tokens[i].substring(1));
-                        int low = addr & 0xff;
-                        int high = (addr >> 8) & 0xff;
-                        result.add(high);
-                        result.add(low);
-                        byteIndex += 3;
-                    }
-                    case INDIRECT_MEMORY_PREFIX ->{
-                        result.add(INDIRECT_MODE);
-                        result.add( getRegisterCode( tokens[i].substring(1) ) );
-                        byteIndex += 2;
-                    }
-                    case IMMEDIATE_PREFIX -> {
-                        result.add(IMMEDIATE_MODE);
-                        int imm16 = Integer.parseInt(tokens[i].substring(1));
-                        int low = imm16 & 0xff;
-                        int high = (imm16 >> 8) & 0xff;
-                        result.add(high);
-                        result.add(low);
-                        byteIndex += 3;
-                    }
-                    case DATA_PREFIX, DATA_PREFIX_ALT -> {
-                        result.add(DATA_MODE);
-                        Integer addr = dataMap.get( tokens[i].substring(1) );
-                        if (addr == null) {
-                            String err = String.format("The variable '%s' doesn't exist in the data section.\n",
-                                tokens[i].substring(1));
-                            status_code = ErrorHandler.ERR_COMP_NULL_DATA_POINTER;
-                            triggerProgramError(
-                                err, status_code);
-                        }
-                        else {
-                            int low = addr & 0xff;
-                            int high = (addr >> 8) & 0xff;
-                            result.add(high);
-                            result.add(low);
-                            byteIndex += 3;
-                        }
-                    }
-                    case STRING_PREFIX ->{
-                        result.add(STRING_MODE);
-                        byteIndex++;
-                    }
-                    case MEMORY_SEGMENT_OFFSET_PREFIX ->{
-                        result.add(0x0A);
-                        byteIndex++;
-                    }
-                    case MEMORY_MODE_PREFIX -> {
-                        continue;
-                    }
-                    default -> {
-                        // if we meet a non-prefixed token
-                        // we first assume it's a function definition
-                        // if not found in the function table, we assume it's a symbol
-                        // if neither, throw error.
-                        Integer addr = functions.get( tokens[i] );
-                        if (addr == null) {
-                            Integer val = definitionMap.get( tokens[i] );
-                            if (val == null) {
-                                String err = String.format("The function '%s' doesn't exist in the ROM.\n",
-                                        tokens[i].substring(1));
-                                status_code = ErrorHandler.ERR_COMP_NULL_DATA_POINTER;
-                                triggerProgramError(
-                                        err, status_code);
-                                return result;
-                            }else{
-                                result.add(IMMEDIATE_MODE);
-                                int low = val & 0xff;
-                                int high = (val >> 8) & 0xff;
-                                result.add(high);
-                                result.add(low);
-                                byteIndex += 3;
-                            }
-                        }
-                        else {
-                            result.add(FUNCTION_MODE);
-                            int low = addr & 0xff;
-                            int high = (addr >> 8) & 0xff;
-                            result.add(high);
-                            result.add(low);
-                            byteIndex += 3;
-                        }
-                    }
+        for (int i = 1; i < tokens.length; i++) {
+
+            switch (tokens[i].charAt(0)) {
+                case REGISTER_PREFIX -> {
+                    code.emit(REGISTER_MODE);
+                    code.emit(getRegisterCode( tokens[i].substring(1) ));
+                }
+                case DIRECT_MEMORY_PREFIX ->{
+                    code.emit(DIRECT_MODE);
+                    code.emitWord(Integer.parseInt(tokens[i].substring(1)));
+                }
+                case INDIRECT_MEMORY_PREFIX ->{
+                    code.emit(INDIRECT_MODE);
+                    code.emit( getRegisterCode( tokens[i].substring(1) ) );
+                }
+                case IMMEDIATE_PREFIX -> {
+                    code.emit(IMMEDIATE_MODE);
+                    code.emitWord(Integer.parseInt(tokens[i].substring(1)));
                 }
+                case DATA_PREFIX, DATA_PREFIX_ALT -> code.emitFixup(tokens[i].substring(1), true, currentLine);
+                case STRING_PREFIX -> code.emit(STRING_MODE);
+                case MEMORY_SEGMENT_OFFSET_PREFIX -> code.emit(0x0A);
+                case MEMORY_MODE_PREFIX -> {
+                    continue;
+                }
+                // a function if there's one with that name, otherwise a symbol
+                default -> code.emitFixup(tokens[i], false, currentLine);
+            }
 
-                // decide if we are dealing with a byte or a word depending on the register name
-                if (tokens[i].charAt(0) == REGISTER_PREFIX &&
-                        tokens[i].charAt(tokens[i].length() - 1) == 'x')
-                    result.set(byteIndex - 2, REGISTER_WORD_MODE);
+            int end = code.length();
 
-                if (tokens[i].charAt(0) == DIRECT_MEMORY_PREFIX &&
-                        tokens[i - 1].charAt(0) == REGISTER_PREFIX &&
-                        tokens[i - 1].charAt(tokens[i - 1].length() - 1) == 'x')
-                    result.set(byteIndex - 3, DIRECT_WORD_MODE);
+            // decide if we are dealing with a byte or a word depending on the register name
+            if (tokens[i].charAt(0) == REGISTER_PREFIX &&
+                    tokens[i].charAt(tokens[i].length() - 1) == 'x')
+                code.set(end - 2, REGISTER_WORD_MODE);
 
-                else if (tokens[i].charAt(0) == INDIRECT_MEMORY_PREFIX &&
-                        tokens[i].charAt(tokens[i].length() - 1) == 'x')
-                    result.set(byteIndex - 2, INDIRECT_MODE);
+            if (tokens[i].charAt(0) == DIRECT_MEMORY_PREFIX &&
+                    tokens[i - 1].charAt(0) == REGISTER_PREFIX &&
+                    tokens[i - 1].charAt(tokens[i - 1].length() - 1) == 'x')
+                code.set(end - 3, DIRECT_WORD_MODE);
 
+            else if (tokens[i].charAt(0) == INDIRECT_MEMORY_PREFIX &&
+                    tokens[i].charAt(tokens[i].length() - 1) == 'x')
+                code.set(end - 2, INDIRECT_MODE);
 
-                // maybe the user wants to manually specify the mode. (mode overriding)
-                if (tokens[i - 1].equalsIgnoreCase(MEMORY_MODE_PREFIX + "byte")){
 
-                    switch (tokens[i].charAt(0)){
-                        case DIRECT_MEMORY_PREFIX -> result.set(byteIndex - 3, DIRECT_MODE);
-                        case INDIRECT_MEMORY_PREFIX -> result.set(byteIndex - 2, INDIRECT_MODE);
-                        case REGISTER_PREFIX -> result.set(byteIndex - 2, REGISTER_MODE);
-                    }
+            // maybe the user wants to manually specify the mode. (mode overriding)
+            if (tokens[i - 1].equalsIgnoreCase(MEMORY_MODE_PREFIX + "byte")){
+
+                switch (tokens[i].charAt(0)){
+                    case DIRECT_MEMORY_PREFIX -> code.set(end - 3, DIRECT_MODE);
+                    case INDIRECT_MEMORY_PREFIX -> code.set(end - 2, INDIRECT_MODE);
+                    case REGISTER_PREFIX -> code.set(end - 2, REGISTER_MODE);
                 }
-                else if (tokens[i - 1].equalsIgnoreCase(MEMORY_MODE_PREFIX + "word")){
+            }
+            else if (tokens[i - 1].equalsIgnoreCase(MEMORY_MODE_PREFIX + "word")){
 
-                    switch (tokens[i].charAt(0)){
-                        case DIRECT_MEMORY_PREFIX -> result.set(byteIndex - 3, DIRECT_WORD_MODE);
-                        case INDIRECT_MEMORY_PREFIX -> result.set(byteIndex - 2, INDIRECT_WORD_MODE);
-                        case REGISTER_PREFIX -> result.set(byteIndex - 2, REGISTER_WORD_MODE);
-                    }
+                switch (tokens[i].charAt(0)){
+                    case DIRECT_MEMORY_PREFIX -> code.set(end - 3, DIRECT_WORD_MODE);
+                    case INDIRECT_MEMORY_PREFIX -> code.set(end - 2, INDIRECT_WORD_MODE);
+                    case REGISTER_PREFIX -> code.set(end - 2, REGISTER_WORD_MODE);
+                }
 
+            }
+        }
+
+        if (log.isEnabled(Logger.Level.DEBUG)) {
+            StringBuilder listing = new StringBuilder(instruction).append(" =>");
+            for (int j = start; j < code.length(); j++) listing.append(String.format(" 0x%X", code.get(j)));
+            log.debug(listing.toString());
+        }
+    }
+
+    // fills in the function, variable and symbol operands once every name is known
+    private void resolveFixups(CodeBuffer code) {
+        for (CodeBuffer.Fixup fixup : code.fixups()) {
+            currentLine = fixup.line();
+
+            if (fixup.data()) {
+                Integer addr = dataMap.get( fixup.symbol() );
+                if (addr == null) {
+                    String err = String.format("The variable '%s' doesn't exist in the data section.\n",
+                            fixup.symbol());
+                    status_code = ErrorHandler.ERR_COMP_NULL_DATA_POINTER;
+                    triggerProgramError(
+                            err, status_code);
                 }
+                code.patch(fixup, DATA_MODE, addr);
+                continue;
+            }
+
+            // if we meet a non-prefixed token
+            // we first assume it's a function definition
+            // if not found in the function table, we assume it's a symbol
+            // if neither, throw error.
+            Integer addr = functions.get( fixup.symbol() );
+            if (addr != null) {
+                code.patch(fixup, FUNCTION_MODE, addr);
+                continue;
+            }
+            Integer val = definitionMap.get( fixup.symbol() );
+            if (val == null) {
+                String err = String.format("The function '%s' doesn't exist in the ROM.\n",
+                        fixup.symbol().substring(1));
+                status_code = ErrorHandler.ERR_COMP_NULL_DATA_POINTER;
+                triggerProgramError(
+                        err, status_code);
             }
+            code.patch(fixup, IMMEDIATE_MODE, val);
         }
-        System.out.print(instruction + " => ");
-        for (int j : result) System.out.printf("0x%X ", j);
-        System.out.println();
-        return result;
     }
 
     @Override
     public int getInstructionLength(String instruction){
-        String[] tokens = instruction.trim().split(" ");
+        return getInstructionLength(instruction.trim().split(" "));
+    }
 
+    private int getInstructionLength(String[] tokens){
         // Instruction format: opcode (1 byte) optional: operand1 (2 bytes) optional: operand2 (2 bytes)
         // NOTE: if the instruction has an address, then operand size will be 3 bytes (1 byte for mode, 2 bytes for address)
         // Output machine code: opcode operand1_addressing_mode operand1_value operand2_addressing_mode operand2_value
@@ -451,15 +654,71 @@ public class CPUModule16BIT extends CPU {
     }
 
 
+    // reused by every compile
+    private final CodeBuffer romCode = new CodeBuffer();
+
+    // Incremental assembly: the code of every function of the last compile, by label line ("" for the code before
+    // the first label). a function is only assembled again when its source (from its label to the next one)
+    // changed, the others are copied. operands naming functions, variables and symbols are left to fixups, so a
+    // copied function is correct wherever it lands and whatever the names now resolve to.
+    // (see compileToMemoryImage, step 2)
+    private Map<String, AssembledFunction> assembledFunctions = new HashMap<>();
+
+    // source, sourceStart, sourceLength: where the function was in the source it was assembled from.
+    // offsets: where each instruction starts, by the instruction lengths (the function addresses follow these).
+    // lines: the source line of each instruction, counted from the label. firstLine: currentLine at the label
+    private record AssembledFunction(String source, int sourceStart, int sourceLength,
+                                     CodeBuffer code, int length, int[] offsets, int[] lines, int firstLine) {}
+
+    // the lines from a function's label up to the next label
+    private static final class FunctionSpan {
+        final String name;
+        final int start;
+        final int firstLine;
+        int end;
+        final List<Integer> instructions = new ArrayList<>(); // line indices
+        final List<Integer> instructionLines = new ArrayList<>(); // currentLine of each, for the error messages
+
+        FunctionSpan(String name, int start, int firstLine){
+            this.name = name;
+            this.start = start;
+            this.firstLine = firstLine;
+        }
+    }
+
+    private AssembledFunction assembleFunction(String[] lines, FunctionSpan function,
+                                               String source, int sourceStart, int sourceLength){
+        CodeBuffer code = new CodeBuffer(function.instructions.size() * 5);
+        int[] offsets = new int[function.instructions.size()];
+        int[] sourceLines = new int[offsets.length];
+        int length = 0;
+
+        for (int j = 0; j < offsets.length; j++) {
+            int i = function.instructions.get(j);
+            currentLine = function.instructionLines.get(j);
+            // in this architecture there's only 3 possible cases
+            // no-operand instruction = 1 byte
+            // single-operand instruction = 3 bytes
+            // 2 operand instruction = 5 bytes
+            String[] tokens = lines[i].trim().split(" ");
+            offsets[j] = length;
+            sourceLines[j] = i - function.start;
+            length += getInstructionLength(tokens);
+            assembleInstruction(lines[i], tokens, code);
+        }
+        return new AssembledFunction(source, sourceStart, sourceLength, code, length, offsets, sourceLines,
+                function.firstLine);
+    }
+
+    // the next compile assembles every function again
+    void discardAssembledFunctions(){
+        assembledFunctions = new HashMap<>();
+    }
+
     @Override
     public int[] compileToMemoryImage(String code) {
         String[] lines = code.split("\n");
-        List<Integer> memImageList = new ArrayList<>();
-
-        // preset the list size
-        for(int i = 0; i < memoryController.mem_size_B - (metadataLength - 2); i++) memImageList.add(0x00);
-
-        StringBuilder machineCodeString = new StringBuilder();
+        romCode.clear();
 
         if (memoryController.mem_size_B > 0xffff) {
             String err = "This Maximum amount of addressable memory for this architecture is 64KB";
@@ -467,13 +726,16 @@ public class CPUModule16BIT extends CPU {
         }
 
 
-        // Step 1- Calculate the function offset addresses, add .DATA variables to the data section, and build a raw code string
-        String fullCode = "";
+        // Step 1- add .DATA variables to the data section, DEFINE the symbols and split the code into functions.
+        // the lines before the first function are a function without a name
+        List<FunctionSpan> spans = new ArrayList<>();
+        FunctionSpan span = new FunctionSpan(null, 0, currentLine + 1);
+        spans.add(span);
         for (int i = 0; i < lines.length; i++) {
             currentLine++;
             // Which section are we in? (is it a line of code? is it a function. and if it starts with '.' is it the data section?)
             if (lines[i].equals(".DATA")) {
-                System.out.println("Data section detected.");
+                log.debug("Data section detected.");
                 int offset = 0;
                 i++; // skip .DATA line
 
@@ -501,15 +763,15 @@ public class CPUModule16BIT extends CPU {
                         else if (x[1].equalsIgnoreCase("resb")){
                             int bufferSize = Integer.parseInt(x[2].substring(1));
                             memoryController.setMemory(dataStart + offset + bufferSize, ARRAY_TERMINATOR, DATA_BYTE_MODE);
-                            System.out.printf("""
+                            if (log.isEnabled(Logger.Level.DEBUG)) log.debug("""
                                     reserved '%d' bytes for byte buffer '%s', start address: 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d), end address: 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d) 
                                     """, bufferSize, x[0],
-                                    MemoryModule.data_start, MemoryModule.data_start,
+                                    memoryController.data_start, memoryController.data_start,
                                     dataStart + offset, dataStart + offset,
-                                    MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
-                                    MemoryModule.data_start, MemoryModule.data_start,
+                                    memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
+                                    memoryController.data_start, memoryController.data_start,
                                     dataStart + offset + bufferSize, dataStart + offset + bufferSize,
-                                    MemoryModule.data_start + dataStart + offset + bufferSize, MemoryModule.data_start + dataStart + offset + bufferSize);
+                                    memoryController.data_start + dataStart + offset + bufferSize, memoryController.data_start + dataStart + offset + bufferSize);
 
                             offset += bufferSize;
                             storeMode = DATA_BUFFER_BYTE_MODE;
@@ -518,15 +780,15 @@ public class CPUModule16BIT extends CPU {
                         else if (x[1].equalsIgnoreCase("resw")){
                             int bufferSize = Integer.parseInt(x[2].substring(1)) * 2;
                             memoryController.setMemory(dataStart + offset + bufferSize, ARRAY_TERMINATOR, DATA_BYTE_MODE);
-                            System.out.printf("""
+                            if (log.isEnabled(Logger.Level.DEBUG)) log.debug("""
                                     reserved '%d' bytes for word buffer '%s', start address: 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d), end address: 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d) 
                                     """, bufferSize, x[0],
-                                    MemoryModule.data_start, MemoryModule.data_start,
+                                    memoryController.data_start, memoryController.data_start,
                                     dataStart + offset, dataStart + offset,
-                                    MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
-                                    MemoryModule.data_start, MemoryModule.data_start,
+                                    memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
+                                    memoryController.data_start, memoryController.data_start,
                                     dataStart + offset + bufferSize, dataStart + offset + bufferSize,
-                                    MemoryModule.data_start + dataStart + offset + bufferSize, MemoryModule.data_start + dataStart + offset + bufferSize);
+                                    memoryController.data_start + dataStart + offset + bufferSize, memoryController.data_start + dataStart + offset + bufferSize);
 
                             offset += bufferSize;
                             storeMode = DATA_BUFFER_WORD_MODE;
@@ -551,19 +813,20 @@ public class CPUModule16BIT extends CPU {
 
                             List<Integer> string_bytes = toByteString(fullString);
 
-                            fullString = "";
+                            StringBuilder decoded = new StringBuilder(string_bytes.size());
                             for(int j = 0; j < string_bytes.size(); j++){
-                                fullString += (char) (int) string_bytes.get(j);
+                                decoded.append((char) (int) string_bytes.get(j));
                             }
+                            fullString = decoded.toString();
 
 
                             for (int j = 0; j < fullString.length(); j++) {
 
                                 if (storeMode == DATA_BYTE_MODE) {
-                                     System.out.printf("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to byte char %c\n",
-                                            MemoryModule.data_start, MemoryModule.data_start,
+                                     if (log.isEnabled(Logger.Level.DEBUG)) log.debug("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to byte char %c",
+                                            memoryController.data_start, memoryController.data_start,
                                             dataStart + offset, dataStart + offset,
-                                            MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
+                                            memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
                                             fullString.charAt(j));
                                     memoryController.setMemory(dataStart + offset, (short) fullString.charAt(j), DATA_BYTE_MODE);
                                     offset++;
@@ -571,10 +834,10 @@ public class CPUModule16BIT extends CPU {
                                 }else if (storeMode == DATA_WORD_MODE){
                                     int low = fullString.charAt(j) & 0xff;
                                     int high = (fullString.charAt(j) >> 8) & 0xff;
-                                    System.out.printf("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to word char %c\n",
-                                            MemoryModule.data_start, MemoryModule.data_start,
+                                    if (log.isEnabled(Logger.Level.DEBUG)) log.debug("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to word char %c",
+                                            memoryController.data_start, memoryController.data_start,
                                             dataStart + offset, dataStart + offset,
-                                            MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset
+                                            memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset
                                             , fullString.charAt(j));
                                     memoryController.setMemory(dataStart + offset, fullString.charAt(j), DATA_WORD_MODE);
                                     offset += 2;
@@ -590,10 +853,10 @@ public class CPUModule16BIT extends CPU {
 
                                 if (storeMode == DATA_BYTE_MODE) {
 
-                                    System.out.printf("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to byte value 0x%X(%d)\n",
-                                            MemoryModule.data_start, MemoryModule.data_start,
+                                    if (log.isEnabled(Logger.Level.DEBUG)) log.debug("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to byte value 0x%X(%d)",
+                                            memoryController.data_start, memoryController.data_start,
                                             dataStart + offset, dataStart + offset,
-                                            MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
+                                            memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
                                             Integer.parseInt(x[j].substring(1)), Integer.parseInt(x[j].substring(1)));
 
                                     memoryController.setMemory(dataStart + offset, Integer.parseInt(x[j].substring(1)), DATA_BYTE_MODE);
@@ -604,10 +867,10 @@ public class CPUModule16BIT extends CPU {
                                     int low = value & 0xff;
                                     int high = (value >> 8) & 0xff;
 
-                                    System.out.printf("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to word value 0x%X(%d)\n",
-                                            MemoryModule.data_start, MemoryModule.data_start,
+                                    if (log.isEnabled(Logger.Level.DEBUG)) log.debug("Setting memory location 0x%X(%d):0x%X(%d) -> 0x%X(%d) to word value 0x%X(%d)",
+                                            memoryController.data_start, memoryController.data_start,
                                             dataStart + offset, dataStart + offset,
-                                            MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
+                                            memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
                                             value, value);
 
                                     memoryController.setMemory(dataStart + offset, value, DATA_WORD_MODE);
@@ -627,79 +890,91 @@ public class CPUModule16BIT extends CPU {
                 String symbolName = tokens[1];
                 Integer symbolValue = Integer.parseInt(tokens[2].substring(1));
                 definitionMap.put(symbolName, symbolValue);
-                System.out.printf("set the definition for symbol '%s' to value 0x%04X(%d)\n", symbolName, symbolValue, symbolValue);
-            }
-            else if (lines[i].startsWith(".")) { // regular function. add the function along with the calculated offset
-                functions.put(lines[i].substring(1), currentByte);
-                System.out.println("Mapped function '" + lines[i].substring(1) + "' to address: 0x" +
-                        Integer.toHexString(currentByte));
-            } else { // code line. append the offset based on the string length.
-                // in this architecture there's only 3 possible cases
-                // no-operand instruction = 1 byte
-                // single-operand instruction = 3 bytes
-                // 2 operand instruction = 5 bytes
+                log.debug("set the definition for symbol '%s' to value 0x%04X(%d)", symbolName, symbolValue, symbolValue);
+            }
+            else if (lines[i].startsWith(".")) { // regular function. its address is known once the code before it is laid out
+                span.end = i;
+                span = new FunctionSpan(lines[i].substring(1), i, currentLine);
+                spans.add(span);
+            } else { // code line. assembled with the rest of its function in step 2
                 if (lines[i].isEmpty() || lines[i].startsWith(COMMENT_PREFIX)) continue;
-                currentByte += getInstructionLength(lines[i]);
-                fullCode += lines[i] + "\n";
+                span.instructions.add(i);
+                span.instructionLines.add(currentLine);
             }
         }
+        span.end = lines.length;
         //System.out.println(functionPointers);
         //System.out.println(dataMap);
 
-        // Step 2- convert the raw code to machine code array.
-        String[] fullLines = fullCode.split("\n");
+        // Step 2- assemble the functions that changed since the last compile, lay out all of them.
+        // functions whose source is the same as last time are copied from assembledFunctions
+        int lastLine = currentLine;
+        int[] lineStarts = new int[lines.length + 1];
+        for (int i = 0; i < lines.length; i++)
+            lineStarts[i + 1] = Math.min(lineStarts[i] + lines[i].length() + 1, code.length());
+        Map<String, AssembledFunction> assembled = new HashMap<>(spans.size() * 2);
+        for (FunctionSpan function : spans) {
+            int sourceStart = lineStarts[function.start], sourceLength = lineStarts[function.end] - sourceStart;
+            // by the label line, the same name may label another function now. the source tells
+            String label = function.name == null ? "" : lines[function.start];
+            AssembledFunction assembly = assembledFunctions.get(label);
+            if (assembly == null || assembly.sourceLength() != sourceLength ||
+                    !code.regionMatches(sourceStart, assembly.source(), assembly.sourceStart(), sourceLength))
+                assembly = assembleFunction(lines, function, code, sourceStart, sourceLength);
+            assembled.put(label, assembly);
+
+            if (function.name != null) {
+                functions.put(function.name, currentByte);
+                log.debug("Mapped function '%s' to address: 0x%x", function.name, currentByte);
+            }
+            for (int j = 0; j < assembly.offsets().length; j++) // source line of the instruction, for the profiler
+                lineMap.put(currentByte + assembly.offsets()[j], function.start + assembly.lines()[j] + 1);
+
+            romCode.append(assembly.code(), function.firstLine - assembly.firstLine());
+            currentByte += assembly.length();
+        }
+        assembledFunctions = assembled;
+        currentLine = lastLine;
 
-        currentLine = 1;
+        // Step 3- fill in the forward references and lay out the memory image.
         eachInstruction = new HashMap<>();
-        for (int i = 0; i < fullLines.length; i++) {
-
-            currentLine++;
-            List<Integer> translatedLine = toMachineCode16(fullLines[i]);
-            //String a = Arrays.toString(toMachineCode(fullLines[i])).replace("[", "").replace("]", "");
-            String a = Arrays.toString(translatedLine.toArray()).replace("[", "").replace("]", "");
-            //eachInstruction.put(i, toMachineCode(fullLines[i]));
-            machineCodeString.append(a);
-            if (i < fullLines.length - 1) machineCodeString.append(", ");
+        resolveFixups(romCode);
+
+        if (romCode.length() > memoryController.rom_end) { // The TEXT section (ROM/CODE)
+            String err = String.format("""
+                    The compiled machine code is too big to fit in the ROM section of memory.
+                    Please optimize your code to occupy less space or increase ROM size.
+                    current ROM size : 0x%X, compiled machine code size: 0x%X
+                    """, memoryController.rom_end, romCode.length());
+            triggerProgramError(err, ErrorHandler.ERR_CODE_INSUFFICIENT_MEMORY);
         }
 
-        String[] eachNum = machineCodeString.toString().split(", ");
+        // the memory followed by metadataLength bytes of metadata
+        int metadataStart = memoryController.mem_size_B - (metadataLength - 2);
+        int[] image = new int[metadataStart + metadataLength];
 
-        for (int i = 0; i < eachNum.length; i++) { // The TEXT section (ROM/CODE)
+        romCode.copyTo(image);
+        image[memoryController.rom_end] = TEXT_SECTION_END & 0xff;
 
-            if (i >= MemoryModule.rom_end) {
-                String err = String.format("""
-                        The compiled machine code is too big to fit in the ROM section of memory.
-                        Please optimize your code to occupy less space or increase ROM size.
-                        current ROM size : 0x%X, compiled machine code size: 0x%X
-                        """, MemoryModule.rom_end, eachNum.length);
-                triggerProgramError(err, ErrorHandler.ERR_CODE_INSUFFICIENT_MEMORY);
-                }
-            if (isNumber(eachNum[i])) {
-
-                memImageList.set(i, Integer.parseInt(eachNum[i]));
-            }
-        }
-
-        memImageList.set(MemoryModule.rom_end ,(int) TEXT_SECTION_END & 0xff);
-
-        for (int i = MemoryModule.data_start; i <= memoryController.mem_size_B - metadataLength; i++) { // The DATA and STACK sections
-            memImageList.set(i, memoryController.readByteAbsolute(i) & 0xff);
-        }
-        memImageList.set(MemoryModule.stack_end, (int) MEMORY_SECTION_END & 0xff);
+        // The DATA and STACK sections, as the data declarations left them in memory
+        memoryController.copyToImage(image, memoryController.data_start,
+                memoryController.mem_size_B - metadataLength + 1 - memoryController.data_start);
+        image[memoryController.stack_end] = MEMORY_SECTION_END & 0xff;
 
 
         // My signature, last release date and compiler version
+        int index = metadataStart;
         for (int i = 0; i < signature.length(); i++)
-            memImageList.add((int) signature.charAt(i));
+            image[index++] = signature.charAt(i);
 
         for (int i = 0; i < lastUpdateDate.length(); i++)
-            memImageList.add((int) lastUpdateDate.charAt(i));
+            image[index++] = lastUpdateDate.charAt(i);
 
         for(int i = 0; i < compilerVersion.length(); i++)
-            memImageList.add((int) compilerVersion.charAt(i));
+            image[index++] = compilerVersion.charAt(i);
 
-        memImageList.add((int) (memorySizeKB + 1)); // The memory size in KB
-        memImageList.add(bit_length); // the CPU architecture flag
+        image[index++] = (int) (memorySizeKB + 1); // The memory size in KB
+        image[index++] = bit_length; // the CPU architecture flag
 
         // Add the program's entry point.
         int entryPoint = functions.get("MAIN");
@@ -707,10 +982,10 @@ public class CPUModule16BIT extends CPU {
         int entryPointLow = entryPoint & 0xff;
         int entryPointHigh = (entryPoint >> 8) & 0xff;
 
-        memImageList.add(entryPointHigh);
-        memImageList.add(entryPointLow);
+        image[index++] = entryPointHigh;
+        image[index] = entryPointLow;
 
-        machineCode = memImageList.stream().mapToInt(Integer::intValue).toArray();
+        machineCode = image;
 
         if (stepListener != null) stepListener.updateUI();
         return machineCode;
@@ -727,6 +1002,7 @@ public class CPUModule16BIT extends CPU {
         }
         registers[PC] = mainEntryPoint;
         I = true;
+        instructionsRetired = 0;
 
         int[] metadata = new int[2];
         metadata[0] = machine_code[machine_code.length - 4]; // memory size
@@ -760,6 +1036,12 @@ public class CPUModule16BIT extends CPU {
 
 
 
+        boolean romChanged = instructionCache.bind(machine_code, memoryController.rom_end + 1);
+        if (jit != null) jit.bind(machine_code.length, romChanged);
+        if (threaded != null) threaded.bind(machine_code.length, romChanged);
+        if (profiler != null) profiler.bind(machine_code);
+        pacer.reset();
+
         while (!programEnd && registers[PC] != TEXT_SECTION_END) {
 
             if (registers[PC] >= machine_code.length) {
@@ -769,391 +1051,49 @@ public class CPUModule16BIT extends CPU {
                         err, ErrorHandler.ERR_CODE_PC_ACCESS_VIOLATION);
             }
             if (canExecute) {
-                Logger.addLog(String.format("Executing instruction 0x%X -> %s at ROM address 0x%X",
-                        machine_code[registers[PC]],
-                        instructionSet.get(machine_code[registers[PC]]), registers[PC]), logDevice);
-
-                switch (machine_code[registers[PC]]) {
-
-                    case INS_EXT -> {
-                        Logger.addLog("Terminating program.", logDevice);
-                        programEnd = true;
-                    }
-
-                    // step function increments PC and returns its value
-                    // we step two times for each operand. one step for mode. another step for value
-                    case INS_SET -> {
-                        Logger.addLog("Fetching operands.", logDevice);
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        set(destination, source);
-                    }
-                    case INS_OUT -> {
-                        int[] source = getNextOperand();
-                        out(source);
-                    }
+                int address = registers[PC];
 
-                    case INS_OUTC -> {
-                        int[] source = getNextOperand();
-                        outc(source);
-                    }
-
-                    case INS_SHL -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        shift_left(destination, source);
-                    }
-
-                    case INS_SHR -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        shift_right(destination, source);
-                    }
-
-                    case INS_ADD -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        add(destination, source);
-                    }
-
-                    case INS_SUB -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        sub(destination, source);
-                    }
-                    case INS_MUL -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        mul(destination, source);
-                    }
-                    case INS_DIV -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        div(destination, source);
-                    }
-
-
-                    case INS_POW -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        pow(destination, source);
-                    }
-
-                    case INS_SQRT -> {
-                        int[] destination = getNextOperand();
-                        sqrt(destination);
-                    }
-
-                    case INS_RND -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        rnd(destination, source);
-                    }
-
-                    case INS_INC -> {
-                        int[] destination = getNextOperand();
-                        inc(destination);
-                    }
-                    case INS_DEC -> {
-                        int[] destination = getNextOperand();
-                        dec(destination);
-                    }
-
-                    case INS_NOT -> {
-                        int[] source = getNextOperand();
-                        not(source);
-                    }
-
-                    case INS_AND -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        and(destination, source);
-                    }
-
-                    case INS_OR -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        or(destination, source);
-                    }
-
-                    case INS_XOR -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        xor(destination, source);
-                    }
-
-                    case INS_NAND -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        nand(destination, source);
-                    }
-
-                    case INS_NOR -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        nor(destination, source);
-                    }
-
-                    case INS_LA -> {
-                        // Get the destination (must be 16-bit compatible). step to the address. load into source
-                        int[] destination = getNextOperand();
-                        step();
-                        step();
-                        la(destination);
-                    }
-
-                    case INS_LLEN -> {
-                        int[] destination = getNextOperand();
-                        step();
-                        step();
-                        int start = (machine_code[registers[PC]] << 8) | machine_code[step()];
-                        short len = 0;
-                        while (memoryController.readByte(start) != ARRAY_TERMINATOR) {
-                            start++;
-                            len++;
-                        }
-
-                        switch (destination[0]) {
-                            case REGISTER_MODE, REGISTER_WORD_MODE -> setRegister(destination[1], len);
-                            case DIRECT_MODE -> memoryController.setMemory(destination[1], len, DATA_BYTE_MODE);
-                            case DIRECT_WORD_MODE -> memoryController.setMemory(destination[1], len, DATA_WORD_MODE);
-                            case INDIRECT_MODE -> memoryController.setMemory(getRegister(destination[1]), len, DATA_BYTE_MODE);
-                            case INDIRECT_WORD_MODE -> memoryController.setMemory(getRegister(destination[1]), len, DATA_WORD_MODE);
-                            default -> E = true;
-                        }
-                    }
-
-                    case INS_LENW -> {
-                        int[] destination = getNextOperand();
-                        step();
-                        step();
-                        int start = (machine_code[registers[PC]] << 8) | machine_code[step()];
-                        short len = 0;
-                        while (memoryController.readWord(start)[0] != ARRAY_TERMINATOR){
-                            start += 2;
-                            len++;
-                        }
-
-                        switch (destination[0]) {
-                            case REGISTER_MODE, REGISTER_WORD_MODE -> setRegister(destination[1], len);
-                            case DIRECT_MODE -> memoryController.setMemory(destination[1], len, DATA_BYTE_MODE);
-                            case DIRECT_WORD_MODE -> memoryController.setMemory(destination[1], len, DATA_WORD_MODE);
-                            case INDIRECT_MODE -> memoryController.setMemory(getRegister(destination[1]), len, DATA_BYTE_MODE);
-                            case INDIRECT_WORD_MODE -> memoryController.setMemory(getRegister(destination[1]), len, DATA_WORD_MODE);
-                            default -> E = true;
-                        }
-                    }
-
-                    case INS_OUTS -> {
-                        int start = registers[SS];
-                        while (memoryController.readByte(start) != ARRAY_TERMINATOR) {
-
-                            outputString.append((char) memoryController.readByte(start));
-                            output += (char) memoryController.readByte(start);
-                            try {
-                                System.out.print((char) memoryController.readByte(start));
-                                Thread.sleep(delayAmountMilliseconds);
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                            }
-                            start++;
-                        }
-                    }
-
-                    case INS_OUTSW -> {
-                        int start = registers[SS];
-                        while (memoryController.readWord(start)[0] != ARRAY_TERMINATOR){
-                            int[] current = memoryController.readWord(start);
-                            int low = current[0];
-                            int high = current[1];
-                            char currentChar = (char) ((low) | (high << 8));
-                            outputString.append(currentChar);
-                            output += currentChar;
-
-                            try {
-                                System.out.print(currentChar);
-                                Thread.sleep(delayAmountMilliseconds);
-                            } catch (InterruptedException e) {
-                                throw new RuntimeException(e);
-                            }
-
-                            start += 2;
-                        }
-                    }
-
-                    case INS_PUSH -> {
-                        int[] source = getNextOperand();
-                        push(source);
-                    }
-
-
-                    case INS_POP -> {
-                        int[] source = getNextOperand();
-                        pop(source);
-                    }
-
-                    case INS_CALL -> {
-                        step();
-                        int address = ((machine_code[step()] << 8) | machine_code[step()]);
-                        int return_address = step() - 1;
-                        call(address, return_address);
-                    }
-                    case INS_RET -> {
-                        int return_address = functionCallStack.pop();
-                        Logger.addLog(String.format("Popping return address 0x%X from function call stack", return_address), logDevice);
-                        registers[PC] = return_address;
-                    }
-
-                    case INS_CE -> {
-                        step();
-                        int address = ((machine_code[step()] << 8) | machine_code[step()]);
-                        int return_address = step() - 1;
-                        if (Z) call(address, return_address);
-                        else registers[PC] = return_address;
-                    }
-                    case INS_CNE -> {
-                        step();
-                        int address = ((machine_code[step()] << 8) | machine_code[step()]);
-                        int return_address = step() - 1;
-                        if (!Z) call(address, return_address);
-                        else registers[PC] = return_address;
-                    }
-                    case INS_CL -> {
-                        step();
-                        int address = ((machine_code[step()] << 8) | machine_code[step()]);
-                        int return_address = step() - 1;
-                        if (N) call(address, return_address);
-                        else registers[PC] = return_address;
-                    }
-                    case INS_CLE -> {
-                        step();
-                        int address = ((machine_code[step()] << 8) | machine_code[step()]);
-                        int return_address = step() - 1;
-                        if (N || Z) call(address, return_address);
-                        else registers[PC] = return_address;
-                    }
-                    case INS_CG -> {
-                        step();
-                        int address = ((machine_code[step()] << 8) | machine_code[step()]);
-                        int return_address = step() - 1;
-                        if (!N) call(address, return_address);
-                        else registers[PC] = return_address;
-                    }
-                    case INS_CGE -> {
-                        step();
-                        int address = ((machine_code[step()] << 8) | machine_code[step()]);
-                        int return_address = step() - 1;
-                        if (!N || Z) call(address, return_address);
-                        else registers[PC] = return_address;
-                    }
-
-                    case INS_JMP -> {
-                        step();
-                        step();
-                        jmp();
-                    }
-                    case INS_JE -> {
-                        step();
-                        step();
-                        if (Z) jmp();
-                        else step();
-                    }
-                    case INS_JNE -> {
-                        step();
-                        step();
-                        if (!Z) jmp();
-                        else step();
-                    }
-                    case INS_JL -> {
-                        step();
-                        step();
-                        if (N) jmp();
-                        else step();
-                    }
-                    case INS_JLE -> {
-                        step();
-                        step();
-                        if (N || Z) jmp();
-                        else step();
-                    }
-                    case INS_JG -> {
-                        step();
-                        step();
-                        if (!N) jmp();
-                        else step();
-                    }
-                    case INS_JGE -> {
-                        step();
-                        step();
-                        if (!N || Z) jmp();
-                        else step();
-                    }
-
-                    case INS_CMP -> {
-                        int[] destination = getNextOperand();
-                        int[] source = getNextOperand();
-                        cmp(destination, source);
-                    }
-
-                    case INS_LOOP -> {
-                        // if RCX > 0: decrement RC and jump to the label address specified.
-                        step();
-                        step();
-
-                        registers[CX]--;
-                        updateRegisterBytes();
-                        if (registers[CX] > 0) {
-                            jmp();
-                        } else step();
-                    }
-
-                    case INS_INT -> {
-                        if (I) {
-                            boolean x = InterruptHandler.triggerSoftwareInterrupt(this, registers, memoryController);
-                            if (!x) E = true;
-                        } else Logger.addLog("Interrupt flag not set. skipping.", logDevice, true);
-                    }
-
-
-                    case INS_NOP ->{ // do nothing for 1 cycle
-                    }
-
-
-                    default -> {
-                        String err = String.format(
-                                "Undefined instruction at address 0x%04X(%d). please check the instruction codes : 0x%04X(%d)",
-                                registers[PC], registers[PC], machine_code[registers[PC]], machine_code[registers[PC]]);
-                        status_code = ErrorHandler.ERR_CODE_INVALID_INSTRUCTION_FORMAT;
-                        triggerProgramError(
-                                err, status_code);
-                    }
+                // per-instruction traces and profiles only come from the interpreter
+                if (threaded != null && profiler == null && !log.isTraceEnabled()) {
+                    // returns once the program stops or PC leaves the ROM, the check above reports the latter
+                    threaded.run(this, address);
+                    continue;
                 }
-
-                if (E) {
-                    status_code = ErrorHandler.ERR_CODE_PROGRAM_ERROR;
-                    String err = String.format("The program triggered an error with code : %s", status_code);
-                    triggerProgramError(
-                            err, status_code);
+                if (jit != null && profiler == null && !log.isTraceEnabled()) {
+                    CompiledBlock block = jit.lookup(address);
+                    if (block != null) {
+                        block.run(this);
+                        continue;
+                    }
                 }
 
-                canExecute = !T;
-                output = "";
-                step();
+                int record = beginInstruction(address);
+                if (profiler == null) dispatch.execute(this, InstructionCache.opcode(record), address);
+                else profileInstruction(InstructionCache.opcode(record), address);
+                retireInstruction();
             }
         }
 
+        if (profiler != null) {
+            profiler.writeReport(Profiler.REPORT_PATH, instructionSet, functions, lineMap);
+            Logger.addLog("Profile written to " + Profiler.REPORT_PATH, logDevice);
+        }
+
+        consoleOutput.flush();
+
         outputString.append("Program terminated with code : ").append(status_code);
         output = "Program terminated with code : " + status_code;
         Logger.addLog("Program terminated with code : " + status_code, logDevice);
 
-        Logger.addLog(String.format("""
+        // the dump covers the whole memory, only build it when it gets logged
+        log.log(Logger.Level.INFO, () -> String.format("""
                 ==============================================
                 %s
                 %s
                 ==============================================
                 %s
                 ==============================================
-                """, dumpRegisters(), dumpFlags(), memoryController.dumpMemory()), logDevice);
+                """, dumpRegisters(), dumpFlags(), memoryController.dumpMemory()));
 
 
         if (Launcher.appConfig.get("WriteDump").equals("true")) {
@@ -1175,7 +1115,7 @@ public class CPUModule16BIT extends CPU {
             code.append("Memory size: ").append(machine_code[machine_code.length - 4]).append("KB").append("\n");
 
             registers[PC] = 0;
-            delayAmountMilliseconds = 0;
+            pacer.setThrottled(false);
 
             Set<Integer> functionCollector = new TreeSet<>();
             Set<Integer> dataCollector = new TreeSet<>();
@@ -1438,6 +1378,8 @@ public class CPUModule16BIT extends CPU {
             }
             code.append("\n").append(dataSectionRebuild);
 
+            consoleOutput.flush();
+
             outputString.append("Program terminated with code : ").append(status_code);
             output = "Program terminated with code : " + status_code;
             Logger.addLog("Program terminated with code : " + status_code, logDevice);
@@ -1474,110 +1416,88 @@ public class CPUModule16BIT extends CPU {
     ///
 
 
-    public void set(int[] destination, int[] source) {
+    public void set(int destination, int source) {
 
         int operandValue = getOperandValue(source);
 
-        Logger.addLog("Fetching destination.", logDevice);
-        switch (destination[0]) {
+        log.trace("Fetching destination.");
+        switch (operandMode(destination)) {
 
-            case REGISTER_MODE, REGISTER_WORD_MODE -> setRegister(destination[1], operandValue);
-            case DIRECT_MODE -> memoryController.setMemory((destination[1] << 8) | destination[2], operandValue, DATA_BYTE_MODE);
-            case DIRECT_WORD_MODE -> memoryController.setMemory((destination[1] << 8) | destination[2], operandValue, DATA_WORD_MODE);
-            case INDIRECT_MODE -> memoryController.setMemory(getRegister(destination[1]), operandValue, DATA_BYTE_MODE);
-            case INDIRECT_WORD_MODE -> memoryController.setMemory(getRegister(destination[1]), operandValue, DATA_WORD_MODE);
+            case REGISTER_MODE, REGISTER_WORD_MODE -> setRegister(operandValue(destination), operandValue);
+            case DIRECT_MODE -> memoryController.setMemory(operandValue(destination), operandValue, DATA_BYTE_MODE);
+            case DIRECT_WORD_MODE -> memoryController.setMemory(operandValue(destination), operandValue, DATA_WORD_MODE);
+            case INDIRECT_MODE -> memoryController.setMemory(getRegister(operandValue(destination)), operandValue, DATA_BYTE_MODE);
+            case INDIRECT_WORD_MODE -> memoryController.setMemory(getRegister(operandValue(destination)), operandValue, DATA_WORD_MODE);
             default -> E = true;
 
         }
     }
 
 
-    public void out(int[] source) {
-
-        Logger.addLog("Fetching operands", logDevice);
-        output = String.valueOf(getOperandValue(source));
-        char[] x = output.toCharArray();
-        for(char c : x){
-            try {
-                Thread.sleep(delayAmountMilliseconds);
-                System.out.print(c);
-                outputString.append(c);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
+    public void out(int source) {
+        log.trace("Fetching operands");
+        emitNumber(getOperandValue(source));
     }
 
-    public void outc(int[] source) {
-        Logger.addLog("Fetching operands", logDevice);
-        output = String.valueOf((char) getOperandValue(source));
-
-        char[] x = output.toCharArray();
-        for(char c : x){
-            try {
-                Thread.sleep(delayAmountMilliseconds);
-                System.out.print(c);
-                outputString.append(c);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
+    public void outc(int source) {
+        log.trace("Fetching operands");
+        emit((char) getOperandValue(source));
     }
 
-    public void shift_left(int[] destination, int[] source) {
+    public void shift_left(int destination, int source) {
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]) {
+        switch (operandMode(destination)) {
             case REGISTER_MODE, REGISTER_WORD_MODE -> {
-                newVal = getRegister(destination[1]) << operandValue;
-                setRegister(destination[1], newVal);
+                newVal = getRegister(operandValue(destination)) << operandValue;
+                setRegister(operandValue(destination), newVal);
             }
             case DIRECT_MODE -> {
-                newVal = memoryController.readByte((destination[1] << 8) | destination[2]) << operandValue;
-                memoryController.setMemory((destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte(operandValue(destination)) << operandValue;
+                memoryController.setMemory(operandValue(destination), newVal, DATA_BYTE_MODE);
             }
             case DIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE(memoryController.readWord((destination[1] << 8) | destination[2])) << operandValue;
-                memoryController.setMemory((destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord(operandValue(destination)) << operandValue;
+                memoryController.setMemory(operandValue(destination), newVal, DATA_WORD_MODE);
             }
             case INDIRECT_MODE -> {
-                newVal = memoryController.readByte(getRegister(destination[1])) << operandValue;
-                memoryController.setMemory(getRegister(destination[1]), newVal);
+                newVal = memoryController.readByte(getRegister(operandValue(destination))) << operandValue;
+                memoryController.setMemory(getRegister(operandValue(destination)), newVal);
             }
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE(memoryController.readWord(getRegister(destination[1]))) << operandValue;
-                memoryController.setMemory(getRegister(destination[1]), newVal);
+                newVal = memoryController.readWord(getRegister(operandValue(destination))) << operandValue;
+                memoryController.setMemory(getRegister(operandValue(destination)), newVal);
             }
             default -> E = true;
         }
         updateFlags(newVal);
     }
 
-    public void shift_right(int[] destination, int[] source) {
+    public void shift_right(int destination, int source) {
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]) {
+        switch (operandMode(destination)) {
             case REGISTER_MODE, REGISTER_WORD_MODE -> {
-                newVal = getRegister(destination[1]) >> operandValue;
-                setRegister(destination[1], newVal);
+                newVal = getRegister(operandValue(destination)) >> operandValue;
+                setRegister(operandValue(destination), newVal);
             }
             case DIRECT_MODE -> {
-                newVal = memoryController.readByte((destination[1] << 8) | destination[2]) >> operandValue;
-                memoryController.setMemory((destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte(operandValue(destination)) >> operandValue;
+                memoryController.setMemory(operandValue(destination), newVal, DATA_BYTE_MODE);
             }
             case DIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE(memoryController.readWord((destination[1] << 8) | destination[2])) >> operandValue;
-                memoryController.setMemory((destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord(operandValue(destination)) >> operandValue;
+                memoryController.setMemory(operandValue(destination), newVal, DATA_WORD_MODE);
             }
             case INDIRECT_MODE -> {
-                newVal = memoryController.readByte(getRegister(destination[1])) >> operandValue;
-                memoryController.setMemory(getRegister(destination[1]), newVal);
+                newVal = memoryController.readByte(getRegister(operandValue(destination))) >> operandValue;
+                memoryController.setMemory(getRegister(operandValue(destination)), newVal);
             }
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE(memoryController.readWord(getRegister(destination[1]))) >> operandValue;
-                memoryController.setMemory(getRegister(destination[1]), newVal);
+                newVal = memoryController.readWord(getRegister(operandValue(destination))) >> operandValue;
+                memoryController.setMemory(getRegister(operandValue(destination)), newVal);
             }
             default -> E = true;
         }
@@ -1585,37 +1505,37 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void add(int[] destination, int[] source){
+    public void add(int destination, int source){
 
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        Logger.addLog("Setting destination", logDevice);
-        switch (destination[0]){
+        log.trace("Setting destination");
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) + operandValue;
+                newVal = getRegister(operandValue(destination)) + operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = memoryController.readByte( (destination[1] << 8) | destination[2] ) + operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte( operandValue(destination) ) + operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) + operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(destination) ) + operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = memoryController.readByte( getRegister( destination[1] ) ) + operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = memoryController.readByte( getRegister( operandValue(destination) ) ) + operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) + operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = memoryController.readWord( getRegister( operandValue(destination) ) ) + operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1624,35 +1544,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void sub(int[] destination, int[] source){
+    public void sub(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) - operandValue;
+                newVal = getRegister(operandValue(destination)) - operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = memoryController.readByte( (destination[1] << 8) | destination[2] ) - operandValue;
-                memoryController.setMemory((destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte( operandValue(destination) ) - operandValue;
+                memoryController.setMemory(operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) - operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(destination) ) - operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = memoryController.readByte( getRegister( destination[1] ) ) - operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = memoryController.readByte( getRegister( operandValue(destination) ) ) - operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) - operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = memoryController.readWord( getRegister( operandValue(destination) ) ) - operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1661,35 +1581,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void mul(int[] destination, int[] source){
+    public void mul(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) * operandValue;
+                newVal = getRegister(operandValue(destination)) * operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = memoryController.readByte( (destination[1] << 8) | destination[2] ) * operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte( operandValue(destination) ) * operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) * operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(destination) ) * operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = memoryController.readByte( getRegister( destination[1] ) ) * operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = memoryController.readByte( getRegister( operandValue(destination) ) ) * operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) * operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = memoryController.readWord( getRegister( operandValue(destination) ) ) * operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1698,35 +1618,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void div(int[] destination, int[] source){
+    public void div(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) / operandValue;
+                newVal = getRegister(operandValue(destination)) / operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = memoryController.readByte( (destination[1] << 8) | destination[2] ) / operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte( operandValue(destination) ) / operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) / operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(destination) ) / operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = memoryController.readByte( getRegister( destination[1] ) ) / operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = memoryController.readByte( getRegister( operandValue(destination) ) ) / operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) / operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = memoryController.readWord( getRegister( operandValue(destination) ) ) / operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1735,37 +1655,37 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void not(int[] source){
+    public void not(int source){
         int newVal = 0;
 
-        switch (source[0]) {
+        switch (operandMode(source)) {
 
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = ~getRegister(source[1]);
-                setRegister( source[1], newVal );
+                newVal = ~getRegister(operandValue(source));
+                setRegister( operandValue(source), newVal );
             }
 
             case DIRECT_MODE -> {
-                newVal = ~memoryController.readByte( (source[1] << 8) | source[2] );
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal, DATA_BYTE_MODE);
+                newVal = ~memoryController.readByte( operandValue(source) );
+                memoryController.setMemory( operandValue(source), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE -> {
-                newVal = ~memoryController.bytePairToWordLE( memoryController.readWord( (source[1] << 8) | source[2] ) );
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal, DATA_WORD_MODE );
+                newVal = ~memoryController.readWord( operandValue(source) );
+                memoryController.setMemory( operandValue(source), newVal, DATA_WORD_MODE );
             }
 
             case INDIRECT_MODE -> {
-                newVal = ~memoryController.readByte( getRegister(source[1]) );
-                memoryController.setMemory( getRegister(source[1]), newVal );
+                newVal = ~memoryController.readByte( getRegister(operandValue(source)) );
+                memoryController.setMemory( getRegister(operandValue(source)), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = ~memoryController.bytePairToWordLE( memoryController.readWord( getRegister( source[1] ) ) );
-                memoryController.setMemory( getRegister( source[1] ), newVal );
+                newVal = ~memoryController.readWord( getRegister( operandValue(source) ) );
+                memoryController.setMemory( getRegister( operandValue(source) ), newVal );
             }
 
-            case IMMEDIATE_MODE -> newVal = ~source[1];
+            case IMMEDIATE_MODE -> newVal = ~(operandValue(source) >> 8);
 
             default -> E = true;
         }
@@ -1773,35 +1693,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void and(int[] destination, int[] source){
+    public void and(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) & operandValue;
+                newVal = getRegister(operandValue(destination)) & operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = memoryController.readByte( (destination[1] << 8) | destination[2] ) & operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte( operandValue(destination) ) & operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) & operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(destination) ) & operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = memoryController.readByte( getRegister( destination[1] ) ) & operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = memoryController.readByte( getRegister( operandValue(destination) ) ) & operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) & operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = memoryController.readWord( getRegister( operandValue(destination) ) ) & operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1810,35 +1730,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void or(int[] destination, int[] source){
+    public void or(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) | operandValue;
+                newVal = getRegister(operandValue(destination)) | operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = memoryController.readByte( (destination[1] << 8) | destination[2] ) | operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal);
+                newVal = memoryController.readByte( operandValue(destination) ) | operandValue;
+                memoryController.setMemory( operandValue(destination), newVal);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) | operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(destination) ) | operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = memoryController.readByte( getRegister( destination[1] ) ) | operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = memoryController.readByte( getRegister( operandValue(destination) ) ) | operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) | operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = memoryController.readWord( getRegister( operandValue(destination) ) ) | operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1847,35 +1767,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void xor(int[] destination, int[] source){
+    public void xor(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) ^ operandValue;
+                newVal = getRegister(operandValue(destination)) ^ operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = memoryController.readByte( (destination[1] << 8) | destination[2] ) ^ operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = memoryController.readByte( operandValue(destination) ) ^ operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) ^ operandValue;
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(destination) ) ^ operandValue;
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = memoryController.readByte( getRegister( destination[1] ) ) ^ operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = memoryController.readByte( getRegister( operandValue(destination) ) ) ^ operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) ^ operandValue;
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = memoryController.readWord( getRegister( operandValue(destination) ) ) ^ operandValue;
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1884,35 +1804,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void nand(int[] destination, int[] source){
+    public void nand(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(destination[1]) & operandValue;
+                newVal = getRegister(operandValue(destination)) & operandValue;
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = ~(memoryController.readByte( (destination[1] << 8) | destination[2] ) & operandValue);
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = ~(memoryController.readByte( operandValue(destination) ) & operandValue);
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = ~(memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) & operandValue);
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = ~(memoryController.readWord( operandValue(destination) ) & operandValue);
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = ~(memoryController.readByte( getRegister( destination[1] ) ) & operandValue);
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = ~(memoryController.readByte( getRegister( operandValue(destination) ) ) & operandValue);
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = ~(memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) & operandValue);
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = ~(memoryController.readWord( getRegister( operandValue(destination) ) ) & operandValue);
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1921,35 +1841,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void nor(int[] destination, int[] source){
+    public void nor(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = ~(getRegister(destination[1]) | operandValue);
+                newVal = ~(getRegister(operandValue(destination)) | operandValue);
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = ~(memoryController.readByte( (destination[1] << 8) | destination[2] ) | operandValue);
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = ~(memoryController.readByte( operandValue(destination) ) | operandValue);
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = ~(memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ) | operandValue);
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = ~(memoryController.readWord( operandValue(destination) ) | operandValue);
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = ~(memoryController.readByte( getRegister( destination[1] ) ) | operandValue);
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = ~(memoryController.readByte( getRegister( operandValue(destination) ) ) | operandValue);
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = ~(memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ) | operandValue);
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = ~(memoryController.readWord( getRegister( operandValue(destination) ) ) | operandValue);
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1958,35 +1878,35 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void pow(int[] destination, int[] source){
+    public void pow(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = (int) Math.pow( getRegister(destination[1]), operandValue );
+                newVal = (int) Math.pow( getRegister(operandValue(destination)), operandValue );
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
-                newVal = (int) Math.pow( memoryController.readByte( (destination[1] << 8) | destination[2] ) , operandValue);
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                newVal = (int) Math.pow( memoryController.readByte( operandValue(destination) ) , operandValue);
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE ->{
-                newVal = (int) Math.pow( memoryController.bytePairToWordLE( memoryController.readWord( (destination[1] << 8) | destination[2] ) ), operandValue );
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE);
+                newVal = (int) Math.pow( memoryController.readWord( operandValue(destination) ), operandValue );
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE ->{
-                newVal = (int) Math.pow( memoryController.readByte( getRegister( destination[1] ) ), operandValue );
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = (int) Math.pow( memoryController.readByte( getRegister( operandValue(destination) ) ), operandValue );
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = (int) Math.pow( memoryController.bytePairToWordLE( memoryController.readWord( getRegister( destination[1] ) ) ), operandValue );
-                memoryController.setMemory( getRegister( destination[1] ), newVal);
+                newVal = (int) Math.pow( memoryController.readWord( getRegister( operandValue(destination) ) ), operandValue );
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal);
             }
 
             default -> E = true;
@@ -1995,37 +1915,37 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void sqrt(int[] source){
+    public void sqrt(int source){
         int newVal = 0;
 
-        switch (source[0]) {
+        switch (operandMode(source)) {
 
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = (int) Math.sqrt( getRegister( source[1] ) );
-                setRegister( source[1], newVal );
+                newVal = (int) Math.sqrt( getRegister( operandValue(source) ) );
+                setRegister( operandValue(source), newVal );
             }
 
             case DIRECT_MODE -> {
-                newVal = (int) Math.sqrt( memoryController.readByte( (source[1] << 8) | source[2] ) );
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal , DATA_BYTE_MODE);
+                newVal = (int) Math.sqrt( memoryController.readByte( operandValue(source) ) );
+                memoryController.setMemory( operandValue(source), newVal , DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE -> {
-                newVal = (int) Math.sqrt( memoryController.bytePairToWordLE( memoryController.readWord( (source[1] << 8) | source[2] ) ) );
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal , DATA_WORD_MODE);
+                newVal = (int) Math.sqrt( memoryController.readWord( operandValue(source) ) );
+                memoryController.setMemory( operandValue(source), newVal , DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE -> {
-                newVal = (int) Math.sqrt( memoryController.readByte( getRegister(source[1]) ) );
-                memoryController.setMemory( getRegister(source[1]), newVal );
+                newVal = (int) Math.sqrt( memoryController.readByte( getRegister(operandValue(source)) ) );
+                memoryController.setMemory( getRegister(operandValue(source)), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = (int) Math.sqrt( memoryController.bytePairToWordLE( memoryController.readWord( getRegister(source[1]) ) ) );
-                memoryController.setMemory( getRegister( source[1] ), newVal );
+                newVal = (int) Math.sqrt( memoryController.readWord( getRegister(operandValue(source)) ) );
+                memoryController.setMemory( getRegister( operandValue(source) ), newVal );
             }
 
-            case IMMEDIATE_MODE -> newVal = ~source[1];
+            case IMMEDIATE_MODE -> newVal = ~(operandValue(source) >> 8);
 
             default -> E = true;
         }
@@ -2033,29 +1953,29 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void rnd(int[] destination, int[] source){
+    public void rnd(int destination, int source){
         int operandValue = getOperandValue(source);
         int newVal = 0;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
                 newVal = (int) (Math.random() * operandValue);
 
-                setRegister( destination[1], newVal);
+                setRegister( operandValue(destination), newVal);
             }
 
             case DIRECT_MODE ->{
                 newVal = (int) (Math.random() * operandValue);
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_BYTE_MODE);
+                memoryController.setMemory( operandValue(destination), newVal, DATA_BYTE_MODE);
             }
             case DIRECT_WORD_MODE -> {
                 newVal = (int) (Math.random() * operandValue);
-                memoryController.setMemory( (destination[1] << 8) | destination[2], newVal, DATA_WORD_MODE );
+                memoryController.setMemory( operandValue(destination), newVal, DATA_WORD_MODE );
             }
 
             case INDIRECT_MODE, INDIRECT_WORD_MODE ->{
                 newVal = (int) (Math.random() * operandValue);
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                memoryController.setMemory( getRegister( operandValue(destination) ), newVal );
             }
 
             default -> E = true;
@@ -2064,37 +1984,37 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void inc(int[] source){
+    public void inc(int source){
         int newVal = 0;
 
-        switch (source[0]) {
+        switch (operandMode(source)) {
 
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(source[1]) + 1;
-                setRegister( source[1], newVal );
+                newVal = getRegister(operandValue(source)) + 1;
+                setRegister( operandValue(source), newVal );
             }
 
             case DIRECT_MODE -> {
-                newVal = memoryController.readByte( (source[1] << 8) | source[2] ) + 1;
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal , DATA_BYTE_MODE);
+                newVal = memoryController.readByte( operandValue(source) ) + 1;
+                memoryController.setMemory( operandValue(source), newVal , DATA_BYTE_MODE);
             }
 
             case DIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (source[1] << 8) | source[2] ) ) + 1;
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal, DATA_WORD_MODE );
+                newVal = memoryController.readWord( operandValue(source) ) + 1;
+                memoryController.setMemory( operandValue(source), newVal, DATA_WORD_MODE );
             }
 
             case INDIRECT_MODE -> {
-                newVal = memoryController.readByte( getRegister(source[1]) ) + 1;
-                memoryController.setMemory( getRegister(source[1]), newVal );
+                newVal = memoryController.readByte( getRegister(operandValue(source)) ) + 1;
+                memoryController.setMemory( getRegister(operandValue(source)), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( source[1] ) ) ) + 1;
-                memoryController.setMemory( getRegister( source[1] ), newVal );
+                newVal = memoryController.readWord( getRegister( operandValue(source) ) ) + 1;
+                memoryController.setMemory( getRegister( operandValue(source) ), newVal );
             }
 
-            case IMMEDIATE_MODE -> newVal = source[1] + 1;
+            case IMMEDIATE_MODE -> newVal = (operandValue(source) >> 8) + 1;
 
             default -> E = true;
         }
@@ -2102,100 +2022,126 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void dec(int[] source){
+    public void dec(int source){
         int newVal = 0;
 
-        switch (source[0]) {
+        switch (operandMode(source)) {
 
             case REGISTER_MODE, REGISTER_WORD_MODE ->{
-                newVal = getRegister(source[1]) - 1;
-                setRegister( source[1], newVal );
+                newVal = getRegister(operandValue(source)) - 1;
+                setRegister( operandValue(source), newVal );
             }
 
             case DIRECT_MODE -> {
-                newVal = memoryController.readByte( (source[1] << 8) | source[2] ) - 1;
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal, DATA_BYTE_MODE );
+                newVal = memoryController.readByte( operandValue(source) ) - 1;
+                memoryController.setMemory( operandValue(source), newVal, DATA_BYTE_MODE );
             }
 
             case DIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( (source[1] << 8) | source[2] ) ) - 1;
-                memoryController.setMemory( (source[1] << 8) | source[2], newVal , DATA_WORD_MODE);
+                newVal = memoryController.readWord( operandValue(source) ) - 1;
+                memoryController.setMemory( operandValue(source), newVal , DATA_WORD_MODE);
             }
 
             case INDIRECT_MODE -> {
-                newVal = memoryController.readByte( getRegister(source[1]) ) - 1;
-                memoryController.setMemory( getRegister(source[1]), newVal );
+                newVal = memoryController.readByte( getRegister(operandValue(source)) ) - 1;
+                memoryController.setMemory( getRegister(operandValue(source)), newVal );
             }
 
             case INDIRECT_WORD_MODE -> {
-                newVal = memoryController.bytePairToWordLE( memoryController.readWord( getRegister( source[1] ) ) ) - 1;
-                memoryController.setMemory( getRegister( source[1] ), newVal );
+                newVal = memoryController.readWord( getRegister( operandValue(source) ) ) - 1;
+                memoryController.setMemory( getRegister( operandValue(source) ), newVal );
             }
 
-            case IMMEDIATE_MODE -> newVal = source[1] - 1;
+            case IMMEDIATE_MODE -> newVal = (operandValue(source) >> 8) - 1;
 
             default -> E = true;
         }
         updateFlags(newVal);
     }
 
-    public void la(int[] source){
-        int address = (machineCode[ registers[PC] ] << 8) | machineCode[step()];
-        Logger.addLog(String.format("Loading address present in PC : 0x%X", address), logDevice);
-        switch (source[0]){
-            case REGISTER_MODE, REGISTER_WORD_MODE -> setRegister( source[1], address);
-            case DIRECT_MODE, DIRECT_WORD_MODE -> memoryController.setMemory( source[1], address );
-            case INDIRECT_MODE, INDIRECT_WORD_MODE -> memoryController.setMemory( getRegister(source[1]) , address );
+    public void llen(int destination, int start){
+        short len = 0;
+        while (memoryController.readByte(start) != ARRAY_TERMINATOR) {
+            start++;
+            len++;
         }
+        storeLength(destination, len);
     }
 
+    public void lenw(int destination, int start){
+        short len = 0;
+        while ((memoryController.readWord(start) & 0xff) != ARRAY_TERMINATOR){
+            start += 2;
+            len++;
+        }
+        storeLength(destination, len);
+    }
 
-    public void push(int[] source){
-        switch (source[0]){
+    private void storeLength(int destination, short len){
+        switch (operandMode(destination)) {
+            case REGISTER_MODE, REGISTER_WORD_MODE -> setRegister(operandValue(destination), len);
+            case DIRECT_MODE -> memoryController.setMemory(operandValue(destination), len, DATA_BYTE_MODE);
+            case DIRECT_WORD_MODE -> memoryController.setMemory(operandValue(destination), len, DATA_WORD_MODE);
+            case INDIRECT_MODE -> memoryController.setMemory(getRegister(operandValue(destination)), len, DATA_BYTE_MODE);
+            case INDIRECT_WORD_MODE -> memoryController.setMemory(getRegister(operandValue(destination)), len, DATA_WORD_MODE);
+            default -> E = true;
+        }
+    }
+
+    public void outs(){
+        int start = registers[SS];
+        int current;
+        while ((current = memoryController.readByte(start)) != ARRAY_TERMINATOR) {
+            emit((char) current);
+            start++;
+        }
+    }
+
+    public void outsw(){
+        int start = registers[SS];
+        int current;
+        while (((current = memoryController.readWord(start)) & 0xff) != ARRAY_TERMINATOR){
+            emit((char) current);
+            start += 2;
+        }
+    }
+
+    public void la(int source, int address){
+        log.trace("Loading address present in PC : 0x%X", address);
+        switch (operandMode(source)){
+            case REGISTER_MODE, REGISTER_WORD_MODE -> setRegister( operandValue(source), address);
+            case DIRECT_MODE, DIRECT_WORD_MODE -> memoryController.setMemory( operandValue(source) >> 8, address );
+            case INDIRECT_MODE, INDIRECT_WORD_MODE -> memoryController.setMemory( getRegister(operandValue(source)) , address );
+        }
+    }
+
+
+    public void push(int source){
+        switch (operandMode(source)){
 
             case REGISTER_MODE ->{
-                memoryController.setMemoryAbsolute( registers[SP], getRegisterByte( source[1] ), CPU.DATA_BYTE_MODE );
+                memoryController.setMemoryAbsolute( registers[SP], getRegisterByte( operandValue(source) ), CPU.DATA_BYTE_MODE );
                 registers[SP]--;
             }
 
-            case REGISTER_WORD_MODE -> {
-                int[] val = getRegisterWord( source[1] );
-                for (int j : val) {
-                    memoryController.setMemoryAbsolute(registers[SP], j, CPU.DATA_BYTE_MODE );
-                    registers[SP]--;
-                }
-
-            }
+            case REGISTER_WORD_MODE -> pushWord( getRegister( operandValue(source) ) );
 
             case DIRECT_MODE -> {
-                memoryController.setMemoryAbsolute( registers[SP], memoryController.readByte( source[1] << 8 | source[2] ), CPU.DATA_BYTE_MODE );
+                memoryController.setMemoryAbsolute( registers[SP], memoryController.readByte( operandValue(source) ), CPU.DATA_BYTE_MODE );
                 registers[SP]--;
             }
 
-            case DIRECT_WORD_MODE -> {
-                int[] val = memoryController.readWord( (source[1] << 8) | source[2] );
-                for (int j : val) {
-                    memoryController.setMemoryAbsolute(registers[SP], j, CPU.DATA_BYTE_MODE);
-                    registers[SP]--;
-                }
-            }
+            case DIRECT_WORD_MODE -> pushWord( memoryController.readWord( operandValue(source) ) );
 
             case INDIRECT_MODE -> {
-                memoryController.setMemoryAbsolute( registers[SP], memoryController.readByte( getRegister(source[1]) ), DATA_BYTE_MODE);
+                memoryController.setMemoryAbsolute( registers[SP], memoryController.readByte( getRegister(operandValue(source)) ), DATA_BYTE_MODE);
                 registers[SP]--;
             }
 
-            case INDIRECT_WORD_MODE -> {
-                int[] val = memoryController.readWord( getRegister(source[1]) );
-
-                for(int j : val){
-                    memoryController.setMemoryAbsolute( registers[SP], j, DATA_BYTE_MODE );
-                    registers[SP]--;
-                }
-            }
+            case INDIRECT_WORD_MODE -> pushWord( memoryController.readWord( getRegister(operandValue(source)) ) );
 
             case IMMEDIATE_MODE -> {
-                int val = source[1];
+                int val = operandValue(source) >> 8;
                 if (val <= max_byte_value) {
                     memoryController.setMemoryAbsolute( registers[SP], val, DATA_BYTE_MODE );
                     registers[SP]--;
@@ -2214,44 +2160,52 @@ public class CPUModule16BIT extends CPU {
     }
 
 
-    public void pop(int[] source){
+    // low byte first, then high byte
+    private void pushWord(int value){
+        memoryController.setMemoryAbsolute(registers[SP], value & 0xff, DATA_BYTE_MODE);
+        registers[SP]--;
+        memoryController.setMemoryAbsolute(registers[SP], (value >> 8) & 0xff, DATA_BYTE_MODE);
+        registers[SP]--;
+    }
+
 
-        switch (source[0]){
+    public void pop(int source){
+
+        switch (operandMode(source)){
             case REGISTER_MODE -> {
                 registers[SP]++;
-                setRegister( source[1], memoryController.readByteAbsolute(registers[SP]) );
+                setRegister( operandValue(source), memoryController.readByteAbsolute(registers[SP]) );
             }
 
             case REGISTER_WORD_MODE -> {
                 registers[SP]++;
-                int val = memoryController.bytePairToWordBE(memoryController.readWordAbsolute(registers[SP]));
+                int val = memoryController.readWordAbsoluteBE(registers[SP]);
                 registers[SP]++;
 
-                setRegister( source[1], val );
+                setRegister( operandValue(source), val );
             }
 
             case DIRECT_MODE -> {
                 registers[SP]++;
-                memoryController.setMemory( (source[1] << 8) | source[2], memoryController.readByteAbsolute(registers[SP]), DATA_BYTE_MODE );
+                memoryController.setMemory( operandValue(source), memoryController.readByteAbsolute(registers[SP]), DATA_BYTE_MODE );
             }
 
             case DIRECT_WORD_MODE -> {
                 registers[SP]++;
-                int[] val = memoryController.readWordAbsolute( registers[SP] );
-                memoryController.setMemory( (source[1] << 8) | source[2] , val[0], DATA_BYTE_MODE);
-                memoryController.setMemory(((source[1] << 8) | source[2]) + 1, val[1], DATA_BYTE_MODE);
+                int val = memoryController.readWordAbsolute( registers[SP] );
+                memoryController.setMemory( operandValue(source) , val & 0xff, DATA_BYTE_MODE);
+                memoryController.setMemory((operandValue(source)) + 1, (val >> 8) & 0xff, DATA_BYTE_MODE);
                 registers[SP]++;
             }
 
             case INDIRECT_MODE -> {
                 registers[SP]++;
-                memoryController.setMemory( getRegisterByte( source[1] ), memoryController.readByteAbsolute(registers[SP]) );
+                memoryController.setMemory( getRegisterByte( operandValue(source) ), memoryController.readByteAbsolute(registers[SP]) );
             }
 
             case INDIRECT_WORD_MODE -> {
                 registers[SP]++;
-                memoryController.setMemory( getRegister( source[1] ),
-                        memoryController.bytePairToWordBE( memoryController.readWordAbsolute(registers[SP]) ) );
+                memoryController.setMemory( getRegister( operandValue(source) ), memoryController.readWordAbsoluteBE(registers[SP]) );
                 registers[SP]++;
             }
         }
@@ -2259,26 +2213,103 @@ public class CPUModule16BIT extends CPU {
 
 
     public void call(int address, int return_address){
-        Logger.addLog(String.format("Pushing return address %X into function call stack.", return_address), logDevice);
+        log.trace("Pushing return address %X into function call stack.", return_address);
         functionCallStack.push(return_address); // save the return address
-        Logger.addLog(String.format("Updating PC to point to caller's address : %X", address), logDevice);
+        log.trace("Updating PC to point to caller's address : %X", address);
         registers[PC] = address - 1; // sub 1 to nullify the step() and the address byte
     }
 
 
-    public void jmp(){
-        Logger.addLog("Updating PC to point to caller's address : 0x" +
-                Integer.toHexString( (machineCode[registers[PC]] << 8) | machineCode[registers[PC] + 1] ), logDevice);
-        registers[PC] = ( ( machineCode[registers[PC]] << 8 ) | machineCode[step()] ) - 1;
+    public void ext(){
+        log.debug("Terminating program.");
+        programEnd = true;
     }
 
+    // conditional calls. the return address is the last byte of the instruction
+    public void ce(int address, int return_address){
+        materializeFlags();
+        if (Z) call(address, return_address);
+    }
+    public void cne(int address, int return_address){
+        materializeFlags();
+        if (!Z) call(address, return_address);
+    }
+    public void cl(int address, int return_address){
+        materializeFlags();
+        if (N) call(address, return_address);
+    }
+    public void cle(int address, int return_address){
+        materializeFlags();
+        if (N || Z) call(address, return_address);
+    }
+    public void cg(int address, int return_address){
+        materializeFlags();
+        if (!N) call(address, return_address);
+    }
+    public void cge(int address, int return_address){
+        materializeFlags();
+        if (!N || Z) call(address, return_address);
+    }
 
-    public void cmp(int[] destination, int[] source){
+    public void je(int address){
+        materializeFlags();
+        if (Z) jmp(address);
+    }
+    public void jne(int address){
+        materializeFlags();
+        if (!Z) jmp(address);
+    }
+    public void jl(int address){
+        materializeFlags();
+        if (N) jmp(address);
+    }
+    public void jle(int address){
+        materializeFlags();
+        if (N || Z) jmp(address);
+    }
+    public void jg(int address){
+        materializeFlags();
+        if (!N) jmp(address);
+    }
+    public void jge(int address){
+        materializeFlags();
+        if (!N || Z) jmp(address);
+    }
+
+    public void ret(){
+        int return_address = functionCallStack.pop();
+        log.trace("Popping return address 0x%X from function call stack", return_address);
+        registers[PC] = return_address;
+    }
+
+    // if CX > 0: decrement CX and jump to the label address specified.
+    public void loop(int address){
+        registers[CX]--;
+        updateRegisterBytes(CX);
+        if (registers[CX] > 0) jmp(address);
+    }
+
+    public void interrupt(){
+        materializeFlags();
+        if (I) {
+            boolean x = InterruptHandler.triggerSoftwareInterrupt(this, registers, memoryController);
+            if (!x) E = true;
+        } else Logger.addLog("Interrupt flag not set. skipping.", logDevice, true);
+    }
+
+    public void jmp(int address){
+        log.trace("Updating PC to point to caller's address : 0x%X", address);
+        registers[PC] = address - 1; // sub 1 to nullify the step()
+    }
+
+
+    public void cmp(int destination, int source){
         int val1 = getOperandValue(source);
         int val2 = getOperandValue(destination);
 
-        Z = val2 == val1;
-        N = val2 < val1;
+        flagKind = FLAGS_COMPARE;
+        flagA = val2;
+        flagB = val1;
     }
     /// //////////////////////////////////////////////////////////////////////////////////////////////////
     /// ////
@@ -2293,6 +2324,7 @@ public class CPUModule16BIT extends CPU {
         super();
 
         logDevice = debugSource;
+        log = Logger.device(logDevice);
         System.out.println("Starting 16-bit CPU module");
         bit_length = 16;
 
@@ -2314,8 +2346,7 @@ public class CPUModule16BIT extends CPU {
 
         Logger.addLog(memInitMsg, logDevice, true);
 
-        Logger.addLog(String.format("CPU speed set to %s Cycles per second. With a step delay of %sMS\n",
-                Launcher.appConfig.get("Cycles"), delayAmountMilliseconds), logDevice, true);
+        Logger.addLog(String.format("CPU speed set to %s\n", pacer.describe()), logDevice, true);
 
         reset();
     }
@@ -2388,12 +2419,9 @@ public class CPUModule16BIT extends CPU {
 
 
         System.out.println("Setting the CPU state.");
-        N = false;
-        C = false;
-        O = false;
+        resetFlags();
         I = false;
         E = false;
-        Z = false;
         T = false;
 
         programEnd = false;
@@ -2402,12 +2430,13 @@ public class CPUModule16BIT extends CPU {
         currentLine = 1;
         status_code = 0;
 
-        functionCallStack = new Stack<>();
+        functionCallStack = new CallStack();
         dataMap = new HashMap<>();
         functions = new HashMap<>();
         definitionMap = new HashMap<>();
 
         outputString = new StringBuilder();
+        consoleOutput.clear();
 
         machineCode = new int[] {0};
 
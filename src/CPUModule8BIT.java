@@ -23,6 +23,9 @@ public class CPUModule8BIT extends CPU {
 
     String debugSource = "CPU_MODULE_8_BIT";
 
+    // opcode -> handler. see createDispatchTable
+    DispatchTable<CPUModule8BIT> dispatch = createDispatchTable();
+
     StringBuilder code;
     int[] functionPointers;
     int[] dataPointers;
@@ -38,12 +41,13 @@ public class CPUModule8BIT extends CPU {
     public CPUModule8BIT() {
         super();
         logDevice = debugSource;
+        log = Logger.device(logDevice);
 
         bit_length = 8;
 
         System.out.println("Starting 8 bit cpu module.");
 
-        memoryController = new MemoryModule(memoryController.memorySizeKB, this);
+        memoryController = new MemoryModule(memorySizeKB, this);
 
         if (memoryController.stack_start < 0){
             String errMsg = "Invalid memoryController.memory layout (stack). " + memoryController.stack_start;
@@ -59,8 +63,7 @@ public class CPUModule8BIT extends CPU {
 
         Logger.addLog(memInitMsg, logDevice, true);
 
-        Logger.addLog(String.format("CPU speed set to %s Cycles per second. With a step delay of %sMS\n",
-                Launcher.appConfig.get("Cycles"), delayAmountMilliseconds), logDevice, true);
+        Logger.addLog(String.format("CPU speed set to %s\n", pacer.describe()), logDevice, true);
 
         reset();
     }
@@ -102,7 +105,7 @@ public class CPUModule8BIT extends CPU {
     code.append("Target architecture: ").append(machineCode[machineCode.length - 3]).append("-bit").append("\n");
     code.append("Memory size: ").append(machineCode[machineCode.length - 4]).append("KB").append("\n");
     registers[PC] = 0;
-    delayAmountMilliseconds = 0;
+    pacer.setThrottled(false);
 
     Set<Integer> functionCollector = new TreeSet<>();
     Set<Integer> dataCollector = new TreeSet<>();
@@ -204,9 +207,9 @@ public class CPUModule8BIT extends CPU {
                     for (int i = 0; i < numBytes; i++) byteStr.append(String.format("%02X ", machineCode[registers[PC] + i]));
                     code.append(String.format("%-20s", byteStr.toString()));
                     code.append(instructionSet.get(machineCode[registers[PC]])).append(" ");
-                    short[] destination = getNextOperand();
+                    short[] destination = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(destination)).append(" ");
-                    short[] source = getNextOperand();
+                    short[] source = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(source));
                 }
                 case INS_OUT,
@@ -217,7 +220,7 @@ public class CPUModule8BIT extends CPU {
                     for (int i = 0; i < numBytes; i++) byteStr.append(String.format("%02X ", machineCode[registers[PC] + i]));
                     code.append(String.format("%-20s", byteStr.toString()));
                     code.append(instructionSet.get(machineCode[registers[PC]])).append(" ");
-                    short[] destination = getNextOperand();
+                    short[] destination = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(destination));
                 }
 
@@ -228,9 +231,9 @@ public class CPUModule8BIT extends CPU {
                     for (int i = 0; i < numBytes; i++) byteStr.append(String.format("%02X ", machineCode[registers[PC] + i]));
                     code.append(String.format("%-20s", byteStr.toString()));
                     code.append(instructionSet.get(machineCode[registers[PC]])).append(" ");
-                    short[] destination = getNextOperand();
+                    short[] destination = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(destination)).append(" ");
-                    short[] source = getNextOperand();
+                    short[] source = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(source));
                 }
 
@@ -241,7 +244,7 @@ public class CPUModule8BIT extends CPU {
                     for (int i = 0; i < numBytes; i++) byteStr.append(String.format("%02X ", machineCode[registers[PC] + i]));
                     code.append(String.format("%-20s", byteStr.toString()));
                     code.append(instructionSet.get(machineCode[registers[PC]])).append(" ");
-                    short[] destination = getNextOperand();
+                    short[] destination = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(destination)).append(" ");
                     short[] source = new short[]{(short) machineCode[step()], (short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(source));
@@ -252,7 +255,7 @@ public class CPUModule8BIT extends CPU {
                     for (int i = 0; i < numBytes; i++) byteStr.append(String.format("%02X ", machineCode[registers[PC] + i]));
                     code.append(String.format("%-20s", byteStr.toString()));
                     code.append(instructionSet.get(machineCode[registers[PC]])).append(" ");
-                    short[] destination = getNextOperand();
+                    short[] destination = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(destination)).append(" ");
                     short[] source = new short[]{(short) machineCode[step()], (short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(source));
@@ -284,9 +287,9 @@ public class CPUModule8BIT extends CPU {
                     for (int i = 0; i < numBytes; i++) byteStr.append(String.format("%02X ", machineCode[registers[PC] + i]));
                     code.append(String.format("%-20s", byteStr.toString()));
                     code.append(instructionSet.get(machineCode[registers[PC]])).append(" ");
-                    short[] destination = getNextOperand();
+                    short[] destination = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(destination)).append(" ");
-                    short[] source = getNextOperand();
+                    short[] source = new short[]{(short) machineCode[step()], (short) machineCode[step()]};
                     code.append(getDisassembledOperand(source));
                 }
 
@@ -344,6 +347,8 @@ public class CPUModule8BIT extends CPU {
 
     code.append("\n").append(dataSectionRebuild);
 
+    consoleOutput.flush();
+
     outputString.append("Program terminated with code : ").append(status_code);
     output = "Program terminated with code : " + status_code;
     Logger.addLog("Program terminated with code : " + status_code, logDevice);
@@ -408,12 +413,12 @@ public class CPUModule8BIT extends CPU {
                      System.out.printf("""
                                     reserved '%d' bytes for byte buffer '%s', start address: 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d), end address: 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d) 
                                     """, bufferSize, x[0],
-                                    MemoryModule.data_start, MemoryModule.data_start,
+                                    memoryController.data_start, memoryController.data_start,
                                     dataStart + offset, dataStart + offset,
-                                    MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
-                                    MemoryModule.data_start, MemoryModule.data_start,
+                                    memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
+                                    memoryController.data_start, memoryController.data_start,
                                     dataStart + offset + bufferSize, dataStart + offset + bufferSize,
-                                    MemoryModule.data_start + dataStart + offset + bufferSize, MemoryModule.data_start + dataStart + offset + bufferSize);
+                                    memoryController.data_start + dataStart + offset + bufferSize, memoryController.data_start + dataStart + offset + bufferSize);
                      offset += bufferSize + 1;
                  }
 
@@ -437,9 +442,9 @@ public class CPUModule8BIT extends CPU {
 
                          for (int j = 0; j < fullString.length(); j++) {
                              System.out.printf("Setting memory location 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d) to char %c\n",
-                                     MemoryModule.data_start, MemoryModule.data_start,
+                                     memoryController.data_start, memoryController.data_start,
                                      dataStart + offset, dataStart + offset,
-                                     MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
+                                     memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
                                      fullString.charAt(j));
                              memoryController.setMemory(dataStart + offset, (short) fullString.charAt(j));
                              offset++;
@@ -449,9 +454,9 @@ public class CPUModule8BIT extends CPU {
                      } else {
                          for (int j = 1; j < x.length; j++) {
                              System.out.printf("Setting memory location 0x%04X(%d):0x%04X(%d) -> 0x%04X(%d) to value 0x%X(%d)\n",
-                                     MemoryModule.data_start, MemoryModule.data_start,
+                                     memoryController.data_start, memoryController.data_start,
                                      dataStart + offset, dataStart + offset,
-                                     MemoryModule.data_start + dataStart + offset, MemoryModule.data_start + dataStart + offset,
+                                     memoryController.data_start + dataStart + offset, memoryController.data_start + dataStart + offset,
                                      Integer.parseInt(x[j].substring(1)), Integer.parseInt(x[j].substring(1)));
 
                              memoryController.setMemory(dataStart + offset, (short) Integer.parseInt(x[j].substring(1)));
@@ -510,12 +515,12 @@ public class CPUModule8BIT extends CPU {
 
         for (int i = 0; i < eachNum.length; i++) { // The TEXT section (ROM/CODE)
 
-            if (i >= MemoryModule.rom_end) {
+            if (i >= memoryController.rom_end) {
                 String err = String.format("""
                         The compiled machine code is too big to fit in the ROM section of memory.
                         Please optimize your code to occupy less space or increase ROM size.
                         current ROM size : 0x%X, compiled machine code size: 0x%X
-                        """, MemoryModule.rom_end, eachNum.length);
+                        """, memoryController.rom_end, eachNum.length);
                 triggerProgramError(err, ErrorHandler.ERR_CODE_INSUFFICIENT_MEMORY);
                 }
             if (isNumber(eachNum[i])) {
@@ -524,12 +529,12 @@ public class CPUModule8BIT extends CPU {
             }
         }
 
-        memImageList.set(MemoryModule.rom_end ,(int) TEXT_SECTION_END & 0xff);
+        memImageList.set(memoryController.rom_end ,(int) TEXT_SECTION_END & 0xff);
 
-        for (int i = MemoryModule.data_start; i <= memoryController.mem_size_B - metadataLength; i++) { // The DATA and STACK sections
+        for (int i = memoryController.data_start; i <= memoryController.mem_size_B - metadataLength; i++) { // The DATA and STACK sections
             memImageList.set(i, memoryController.readByteAbsolute(i) & 0xff);
         }
-        memImageList.set(MemoryModule.stack_end, (int) MEMORY_SECTION_END & 0xff);
+        memImageList.set(memoryController.stack_end, (int) MEMORY_SECTION_END & 0xff);
 
         // My signature, last release date and compiler version
         for (int i = 0; i < signature.length(); i++)
@@ -576,12 +581,13 @@ public class CPUModule8BIT extends CPU {
         currentByte = 0;
         status_code = 0;
 
-        functionCallStack = new Stack<>();
+        functionCallStack = new CallStack();
         dataMap = new HashMap<>();
         functions = new HashMap<>();
 
 
         outputString = new StringBuilder();
+        consoleOutput.clear();
         machineCode = new int[] {0};
 
 
@@ -633,307 +639,15 @@ public class CPUModule8BIT extends CPU {
             triggerProgramError(err, ErrorHandler.ERR_CODE_INVALID_MEMORY_LAYOUT);
         }
 
+        // handlers read their operands from machineCode
+        machineCode = machine_code;
+
+        instructionsRetired = 0;
+        pacer.reset();
         while (!programEnd && registers[PC] < machine_code.length){
 
             if (canExecute) {
-                switch (machine_code[registers[PC]]) {
-                    case INS_EXT -> {
-                        programEnd = true;
-                    }
-
-                    // step function increments PC and returns its value
-                    // we step two times for each operand. one step for mode. another step for value
-                    case INS_SET -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        set(destination, source);
-                    }
-                    case INS_OUT -> {
-                        short[] destination = getNextOperand();
-                        out(destination);
-                    }
-
-                    case INS_OUTC -> {
-                        short[] source = getNextOperand();
-                        outc(source);
-                    }
-
-                    case INS_SHL -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        shift_left(destination, source);
-                    }
-                    case INS_SHR -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        shift_right(destination, source);
-                    }
-
-                    case INS_ADD -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        add(destination, source);
-                    }
-                    case INS_SUB -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        sub(destination, source);
-                    }
-                    case INS_MUL -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        mul(destination, source);
-                    }
-                    case INS_DIV -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        div(destination, source);
-                    }
-
-                    case INS_POW -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        pow(destination, source);
-                    }
-
-                    case INS_SQRT -> {
-                        short[] destination = getNextOperand();
-                        sqrt(destination);
-                    }
-
-                    case INS_RND -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        rnd(destination, source);
-                    }
-
-                    case INS_INC -> {
-                        short[] destination = getNextOperand();
-                        inc(destination);
-                    }
-                    case INS_DEC -> {
-                        short[] destination = getNextOperand();
-                        dec(destination);
-                    }
-
-                    case INS_NOT -> {
-                        short[] source = getNextOperand();
-                        not(source);
-                    }
-
-                    case INS_AND -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        and(destination, source);
-                    }
-
-                    case INS_OR -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        or(destination, source);
-                    }
-
-                    case INS_XOR -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        xor(destination, source);
-                    }
-
-                    case INS_NAND -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        nand(destination, source);
-                    }
-
-                    case INS_NOR -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        nor(destination, source);
-                    }
-
-                    case INS_LA -> {
-                        // Get the source (must be 16-bit compatible). step to the address. load into source
-                        short[] source = getNextOperand();
-                        step();
-                        step();
-                        la(source);
-                    }
-
-                    case INS_LLEN -> {
-                        short[] destination = getNextOperand();
-                        step();
-                        step();
-                        int low = machineCode[registers[PC]];
-                        int high = machineCode[step()];
-                        int start = (low << 8) | high;
-                        short len = 0;
-                        while (memoryController.getMemory((short) start) != ARRAY_TERMINATOR) {
-                            start++;
-                            len++;
-                        }
-
-                        switch (destination[0]) {
-                            case REGISTER_MODE -> setRegister(destination[1], len);
-                            case DIRECT_MODE -> memoryController.setMemory(destination[1], len);
-                            case INDIRECT_MODE -> memoryController.setMemory(getRegister(destination[1]), len);
-                            default -> E = true;
-                        }
-                    }
-
-                    case INS_OUTS -> {
-                        int start = registers[SS];
-                        while (memoryController.getMemory((short) start) != ARRAY_TERMINATOR) {
-                            outputString.append((char) memoryController.getMemory((short) start));
-                            output += (char) memoryController.getMemory((short) start);
-                            try {
-                                Thread.sleep(delayAmountMilliseconds);
-                                System.out.print((char)memoryController.getMemory((short) start));
-                            } catch (InterruptedException e) {
-                                throw new RuntimeException(e);
-                            }
-                            start++;
-                        }
-                    }
-
-                    case INS_PUSH -> {
-                        short[] source = getNextOperand();
-                        push(source);
-                    }
-
-                    case INS_POP -> {
-                        short[] source = getNextOperand();
-                        pop(source);
-                    }
-
-                    case INS_CALL -> {
-                        step();
-                        int address = ( ( machine_code[step()] << 8 ) | machine_code[step()] );
-                        int return_address = step() - 1;
-                        call(address, return_address);
-                    }
-                    case INS_RET -> {
-                        int return_address = functionCallStack.pop();
-                        registers[PC] = (short) return_address;
-                    }
-
-                    case INS_CE -> {
-                        step();
-                        int address = ( ( machine_code[step()] << 8 ) | machine_code[step()] );
-                        int return_address = step() - 1;
-                        if (Z) call(address, return_address);
-                        else registers[PC] = (short) return_address;
-                    }
-                    case INS_CNE -> {
-                        step();
-                        int address = ( ( machine_code[step()] << 8 ) | machine_code[step()] );
-                        int return_address = step() - 1;
-                        if (!Z) call(address, return_address);
-                        else registers[PC] = (short) return_address;
-                    }
-                    case INS_CL -> {
-                        step();
-                        int address = ( ( machine_code[step()] << 8 ) | machine_code[step()] );
-                        int return_address = step() - 1;
-                        if (N) call(address, return_address);
-                        else registers[PC] = (short) return_address;
-                    }
-                    case INS_CLE -> {
-                        step();
-                        int address = ( ( machine_code[step()] << 8 ) | machine_code[step()] );
-                        int return_address = step() - 1;
-                        if (N || Z) call(address, return_address);
-                        else registers[PC] = (short) return_address;
-                    }
-                    case INS_CG -> {
-                        step();
-                        int address = ( ( machine_code[step()] << 8 ) | machine_code[step()] );
-                        int return_address = step() - 1;
-                        if (!N) call(address, return_address);
-                        else registers[PC] = (short) return_address;
-                    }
-                    case INS_CGE -> {
-                        step();
-                        int address = ( ( machine_code[step()] << 8 ) | machine_code[step()] );
-                        int return_address = step() - 1;
-                        if (!N || Z) call(address, return_address);
-                        else registers[PC] = (short) return_address;
-                    }
-
-                    case INS_JMP -> {
-                        step();
-                        step();
-                        jmp();
-                    }
-                    case INS_JE -> {
-                        step();
-                        step();
-                        if (Z) jmp();
-                        else step();
-                    }
-                    case INS_JNE -> {
-                        step();
-                        step();
-                        if (!Z) jmp();
-                        else step();
-                    }
-                    case INS_JL -> {
-                        step();
-                        step();
-                        if (N) jmp();
-                        else step();
-                    }
-                    case INS_JLE -> {
-                        step();
-                        step();
-                        if (N || Z) jmp();
-                        else step();
-                    }
-                    case INS_JG -> {
-                        step();
-                        step();
-                        if (!N) jmp();
-                        else step();
-                    }
-                    case INS_JGE -> {
-                        step();
-                        step();
-                        if (!N || Z) jmp();
-                        else step();
-                    }
-
-                    case INS_CMP -> {
-                        short[] destination = getNextOperand();
-                        short[] source = getNextOperand();
-                        cmp(destination, source);
-                    }
-
-                    case INS_LOOP -> {
-                        // if RC > 0: decrement RC and jump to the label address specified.
-                        step();
-                        step();
-                        //short address = (short) machine_code[ registers[PC] ];
-
-                        registers[2]--;
-                        if (registers[2] > 0) {
-                            jmp();
-                        }else step();
-                    }
-
-                    case INS_INT -> {
-                        if (I) {
-                            boolean x = InterruptHandler.triggerSoftwareInterrupt(this, registers, memoryController);
-                            if (!x) E = true;
-                        } else System.out.println("Interrupt flag not set. skipping.");
-                    }
-
-                    default -> {
-                        String err = "Undefined instruction. please check the instruction codes : " + machine_code[registers[PC]];
-                        status_code = ErrorHandler.ERR_CODE_INVALID_INSTRUCTION_FORMAT;
-                        triggerProgramError(
-                                err, status_code);
-                    }
-                }
-
+                dispatch.execute(this, machine_code[registers[PC]], registers[PC]);
 
                 if (E) {
                     status_code = ErrorHandler.ERR_CODE_PROGRAM_ERROR;
@@ -945,31 +659,181 @@ public class CPUModule8BIT extends CPU {
                 canExecute = !T;
                 //timeout.cancel();
                 step();
+                instructionsRetired++;
             }
 
         }
 
+        consoleOutput.flush();
+
         outputString.append("Program terminated with code : ").append(status_code);
         output = "Program terminated with code : " + status_code;
     }
 
+    /// /////////////////////////// INSTRUCTION DISPATCH ///////////////////////////////////////////////////
+    /// PC points at the opcode when a handler runs. handlers step over their own operands
+    /// (getNextOperand steps two times for each operand. one step for mode. another step for value)
+
+    private static DispatchTable<CPUModule8BIT> createDispatchTable(){
+        DispatchTable<CPUModule8BIT> table = new DispatchTable<>(CPUModule8BIT::undefinedInstruction);
+
+        table.register(INS_EXT, (cpu, address) -> cpu.programEnd = true);
+
+        table.register(INS_SET, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.set(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_SHL, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.shift_left(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_SHR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.shift_right(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_ADD, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.add(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_SUB, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.sub(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_MUL, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.mul(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_DIV, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.div(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_POW, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.pow(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_RND, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.rnd(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_AND, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.and(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_OR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.or(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_XOR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.xor(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_NAND, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.nand(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_NOR, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.nor(cpu.getNextOperand(), cpu.getNextOperand()));
+        table.register(INS_CMP, DispatchTable.LAYOUT_TWO_OPERANDS, (cpu, address) -> cpu.cmp(cpu.getNextOperand(), cpu.getNextOperand()));
+
+        table.register(INS_OUT, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.out(cpu.getNextOperand()));
+        table.register(INS_OUTC, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.outc(cpu.getNextOperand()));
+        table.register(INS_SQRT, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.sqrt(cpu.getNextOperand()));
+        table.register(INS_INC, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.inc(cpu.getNextOperand()));
+        table.register(INS_DEC, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.dec(cpu.getNextOperand()));
+        table.register(INS_NOT, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.not(cpu.getNextOperand()));
+        table.register(INS_PUSH, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.push(cpu.getNextOperand()));
+        table.register(INS_POP, DispatchTable.LAYOUT_ONE_OPERAND, (cpu, address) -> cpu.pop(cpu.getNextOperand()));
+
+        // Get the source (must be 16-bit compatible). step to the address. load into source
+        table.register(INS_LA, DispatchTable.LAYOUT_OPERAND_ADDRESS, (cpu, address) -> {
+            int source = cpu.getNextOperand();
+            cpu.step();
+            cpu.step();
+            cpu.la(source);
+        });
+        table.register(INS_LLEN, DispatchTable.LAYOUT_OPERAND_ADDRESS, (cpu, address) -> cpu.llen(cpu.getNextOperand()));
+        table.register(INS_OUTS, (cpu, address) -> cpu.outs());
+
+        table.register(INS_CALL, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.callIf(true));
+        table.register(INS_RET, (cpu, address) -> cpu.ret());
+        table.register(INS_CE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.callIf(cpu.Z));
+        table.register(INS_CNE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.callIf(!cpu.Z));
+        table.register(INS_CL, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.callIf(cpu.N));
+        table.register(INS_CLE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.callIf(cpu.N || cpu.Z));
+        table.register(INS_CG, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.callIf(!cpu.N));
+        table.register(INS_CGE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.callIf(!cpu.N || cpu.Z));
+
+        table.register(INS_JMP, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jumpIf(true));
+        table.register(INS_JE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jumpIf(cpu.Z));
+        table.register(INS_JNE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jumpIf(!cpu.Z));
+        table.register(INS_JL, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jumpIf(cpu.N));
+        table.register(INS_JLE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jumpIf(cpu.N || cpu.Z));
+        table.register(INS_JG, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jumpIf(!cpu.N));
+        table.register(INS_JGE, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> cpu.jumpIf(!cpu.N || cpu.Z));
+
+        // if RC > 0: decrement RC and jump to the label address specified.
+        table.register(INS_LOOP, DispatchTable.LAYOUT_ADDRESS, (cpu, address) -> {
+            cpu.registers[2]--;
+            cpu.jumpIf(cpu.registers[2] > 0);
+        });
+
+        table.register(INS_INT, (cpu, address) -> cpu.interrupt());
+
+        return table;
+    }
+
+    // makes a new instruction available to the assembler, disassembler and the executor
+    public void registerInstruction(int opcode, String mnemonic, int layout, InstructionHandler<CPUModule8BIT> handler){
+        dispatch.register(opcode, layout, handler);
+        instructionSet.put(opcode, mnemonic);
+        translationMap.put(mnemonic, opcode);
+    }
+
+    private void undefinedInstruction(int address){
+        String err = "Undefined instruction. please check the instruction codes : " + machineCode[address];
+        status_code = ErrorHandler.ERR_CODE_INVALID_INSTRUCTION_FORMAT;
+        triggerProgramError(
+                err, status_code);
+    }
+
+    // steps over the address (mode, high, low) of a jump. PC ends on the last byte either way
+    private void jumpIf(boolean condition){
+        step();
+        step();
+        if (condition) jmp();
+        else step();
+    }
+
+    // steps over the function address (mode, high, low). the return address is the last byte of the instruction
+    private void callIf(boolean condition){
+        step();
+        int address = ( ( machineCode[step()] << 8 ) | machineCode[step()] );
+        int return_address = step() - 1;
+        if (condition) call(address, return_address);
+        else registers[PC] = (short) return_address;
+    }
+
+    public void ret(){
+        int return_address = functionCallStack.pop();
+        registers[PC] = (short) return_address;
+    }
+
+    public void llen(int destination){
+        step();
+        step();
+        int low = machineCode[registers[PC]];
+        int high = machineCode[step()];
+        int start = (low << 8) | high;
+        short len = 0;
+        while (memoryController.getMemory((short) start) != ARRAY_TERMINATOR) {
+            start++;
+            len++;
+        }
+
+        switch (operandMode(destination)) {
+            case REGISTER_MODE -> setRegister(operandByte(destination), len);
+            case DIRECT_MODE -> memoryController.setMemory(operandByte(destination), len);
+            case INDIRECT_MODE -> memoryController.setMemory(getRegister(operandByte(destination)), len);
+            default -> E = true;
+        }
+    }
+
+    public void outs(){
+        int start = registers[SS];
+        short current;
+        while ((current = memoryController.getMemory((short) start)) != ARRAY_TERMINATOR) {
+            emit((char) current);
+            start++;
+        }
+    }
+
+    public void interrupt(){
+        if (I) {
+            boolean x = InterruptHandler.triggerSoftwareInterrupt(this, registers, memoryController);
+            if (!x) E = true;
+        } else System.out.println("Interrupt flag not set. skipping.");
+    }
+
     public int step() {
         long currentTime = System.currentTimeMillis();
         registers[PC]++;
+        consoleOutput.poll(currentTime);
         if (stepListener != null && (currentTime - lastTimeSinceUpdate) > UI_UPDATE_MAX_INTERVAL ){
             stepListener.updateUI();
             lastTimeSinceUpdate = currentTime;
         }
-        try {
-            Thread.sleep(delayAmountMilliseconds);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        pacer.tick(1);
         return registers[PC];
     }
 
-    public short[] getNextOperand(){
-        return new short[] {(short) machineCode[step()], (short) machineCode[step()]};
+    // mode byte then value byte, packed into one int (see CPU.packOperand)
+    public int getNextOperand(){
+        int mode = machineCode[step()];
+        return packOperand(mode, machineCode[step()]);
+    }
+
+    private static short operandByte(int operand){
+        return (short) operandValue(operand);
     }
 
     public void updateFlags(short value){
@@ -986,23 +850,23 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void set(short[] destination, short[] value){
+    public void set(int destination, int value){
         short operandValue;
-        operandValue = switch (value[0]){
-            case REGISTER_MODE -> getRegister( value[1] );
-            case DIRECT_MODE -> memoryController.getMemory( value[1] );
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister( value[1] ) );
-            case IMMEDIATE_MODE -> value[1];
+        operandValue = switch (operandMode(value)){
+            case REGISTER_MODE -> getRegister( operandByte(value) );
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(value) );
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister( operandByte(value) ) );
+            case IMMEDIATE_MODE -> operandByte(value);
 
             default -> 256;
         };
         if (operandValue == 256) triggerProgramError(
                 "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
 
-        switch (destination[0]){
-            case REGISTER_MODE -> setRegister( destination[1], operandValue );
-            case DIRECT_MODE -> memoryController.setMemory( destination[1], operandValue );
-            case INDIRECT_MODE -> memoryController.setMemory( getRegister( destination[1] ), operandValue );
+        switch (operandMode(destination)){
+            case REGISTER_MODE -> setRegister( operandByte(destination), operandValue );
+            case DIRECT_MODE -> memoryController.setMemory( operandByte(destination), operandValue );
+            case INDIRECT_MODE -> memoryController.setMemory( getRegister( operandByte(destination) ), operandValue );
 
             default -> triggerProgramError(
                     "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
@@ -1011,117 +875,85 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void out(short[] destination){
+    public void out(int destination){
 
-        switch (destination[0]){
-            case REGISTER_MODE ->{
-                output = String.valueOf(registers[destination[1]]);
-            }
-            case DIRECT_MODE ->{
-                output = String.valueOf(memoryController.readByte(destination[1]));
-            }
-            case INDIRECT_MODE ->{
-                output = String.valueOf(memoryController.readByte( registers[ destination[1] ] ));
-            }
-            case IMMEDIATE_MODE ->{
-                output = String.valueOf(destination[1]);
-            }
+        switch (operandMode(destination)){
+            case REGISTER_MODE -> emitNumber(registers[operandByte(destination)]);
+            case DIRECT_MODE -> emitNumber(memoryController.readByte(operandByte(destination)));
+            case INDIRECT_MODE -> emitNumber(memoryController.readByte( registers[ operandByte(destination) ] ));
+            case IMMEDIATE_MODE -> emitNumber(operandByte(destination));
             default -> E = true;
         }
-        if (!E){
-            char[] x = output.toCharArray();
-
-            for (char c : x) {
-                try {
-                    Thread.sleep(delayAmountMilliseconds);
-                    outputString.append(c);
-                    System.out.print(c);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        }
     }
 
-    public void outc(short[] source){
-        switch(source[0]) {
-            case REGISTER_MODE -> output = String.valueOf((char) registers[source[1]]);
-            case DIRECT_MODE -> output = String.valueOf((char) memoryController.readByte(source[1]));
-            case INDIRECT_MODE -> output = String.valueOf((char) memoryController.readByte(registers[source[1]]));
-            case IMMEDIATE_MODE -> output = String.valueOf((char) source[1]);
-        }
-
-        char[] x = output.toCharArray();
-        for(char c : x){
-            try {
-                Thread.sleep(delayAmountMilliseconds);
-                System.out.print(c);
-                outputString.append(c);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+    public void outc(int source){
+        switch(operandMode(source)) {
+            case REGISTER_MODE -> emit((char) registers[operandByte(source)]);
+            case DIRECT_MODE -> emit((char) memoryController.readByte(operandByte(source)));
+            case INDIRECT_MODE -> emit((char) memoryController.readByte(registers[operandByte(source)]));
+            case IMMEDIATE_MODE -> emit((char) operandByte(source));
         }
     }
 
 
-    public void shift_left(short[] destination, short[] source){
+    public void shift_left(int destination, int source){
         short value = 0;
-        short operandValue = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory(getRegister(source[1]));
-            case IMMEDIATE_MODE -> source[1];
+        short operandValue = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory(getRegister(operandByte(source)));
+            case IMMEDIATE_MODE -> operandByte(source);
 
             default -> 256;
         };
         if (operandValue == 256) E = true;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                value = (short) (getRegister(destination[1]) << operandValue);
-                setRegister(destination[1], value);
+                value = (short) (getRegister(operandByte(destination)) << operandValue);
+                setRegister(operandByte(destination), value);
             }
 
             case DIRECT_MODE -> {
-                value = (short) (memoryController.getMemory( destination[1] ) << operandValue);
-                memoryController.setMemory( destination[1], value );
+                value = (short) (memoryController.getMemory( operandByte(destination) ) << operandValue);
+                memoryController.setMemory( operandByte(destination), value );
             }
 
             case INDIRECT_MODE -> {
-                value = (short) (memoryController.getMemory( getRegister( destination[1]) ) << operandValue);
-                memoryController.setMemory( getRegister( destination[1] ), value );
+                value = (short) (memoryController.getMemory( getRegister( operandByte(destination)) ) << operandValue);
+                memoryController.setMemory( getRegister( operandByte(destination) ), value );
             }
             default -> E = true;
         }
         updateFlags(value);
     }
 
-    public void shift_right(short[] destination, short[] source){
+    public void shift_right(int destination, int source){
         short value = 0;
-        short operandValue = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory(getRegister(source[1]));
-            case IMMEDIATE_MODE -> source[1];
+        short operandValue = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory(getRegister(operandByte(source)));
+            case IMMEDIATE_MODE -> operandByte(source);
 
             default -> 256;
         };
         if (operandValue == 256) E = true;
 
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                value = (short) (getRegister(destination[1]) >> operandValue);
-                setRegister(destination[1], value);
+                value = (short) (getRegister(operandByte(destination)) >> operandValue);
+                setRegister(operandByte(destination), value);
             }
 
             case DIRECT_MODE -> {
-                value = (short) (memoryController.getMemory( destination[1] ) >> operandValue);
-                memoryController.setMemory( destination[1], value );
+                value = (short) (memoryController.getMemory( operandByte(destination) ) >> operandValue);
+                memoryController.setMemory( operandByte(destination), value );
             }
 
             case INDIRECT_MODE -> {
-                value = (short) (memoryController.getMemory( getRegister( destination[1]) ) >> operandValue);
-                memoryController.setMemory( getRegister( destination[1] ), value );
+                value = (short) (memoryController.getMemory( getRegister( operandByte(destination)) ) >> operandValue);
+                memoryController.setMemory( getRegister( operandByte(destination) ), value );
             }
 
             default -> E = true;
@@ -1130,14 +962,14 @@ public class CPUModule8BIT extends CPU {
         updateFlags(value);
     }
 
-    public void add(short[] destination, short[] source){
+    public void add(int destination, int source){
 
-        short operandValue = switch ( source[0] ){
+        short operandValue = switch ( operandMode(source) ){
 
-            case REGISTER_MODE -> getRegister( source[1] );
-            case DIRECT_MODE -> memoryController.getMemory( source[1] );
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister( source[1] ) );
-            case IMMEDIATE_MODE -> source[1];
+            case REGISTER_MODE -> getRegister( operandByte(source) );
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(source) );
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister( operandByte(source) ) );
+            case IMMEDIATE_MODE -> operandByte(source);
 
             default -> 256;
         };
@@ -1145,18 +977,18 @@ public class CPUModule8BIT extends CPU {
                 "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) (operandValue + getRegister( destination[1] ));
-                setRegister( destination[1] , newVal);
+                newVal = (short) (operandValue + getRegister( operandByte(destination) ));
+                setRegister( operandByte(destination) , newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) ( operandValue + memoryController.getMemory( destination[1] ) );
-                memoryController.setMemory( destination[1], newVal );
+                newVal = (short) ( operandValue + memoryController.getMemory( operandByte(destination) ) );
+                memoryController.setMemory( operandByte(destination), newVal );
             }
             case INDIRECT_MODE -> {
-                newVal = (short) ( operandValue + memoryController.getMemory( getRegister( destination[1] ) ) );
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = (short) ( operandValue + memoryController.getMemory( getRegister( operandByte(destination) ) ) );
+                memoryController.setMemory( getRegister( operandByte(destination) ), newVal );
             }
         }
         updateFlags(newVal);
@@ -1164,14 +996,14 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void sub(short[] destination, short[] source){
+    public void sub(int destination, int source){
 
-        short operandValue = switch ( source[0] ){
+        short operandValue = switch ( operandMode(source) ){
 
-            case REGISTER_MODE -> getRegister( source[1] );
-            case DIRECT_MODE -> memoryController.getMemory( source[1] );
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister( source[1] ) );
-            case IMMEDIATE_MODE -> source[1];
+            case REGISTER_MODE -> getRegister( operandByte(source) );
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(source) );
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister( operandByte(source) ) );
+            case IMMEDIATE_MODE -> operandByte(source);
 
             default -> 256;
         };
@@ -1179,18 +1011,18 @@ public class CPUModule8BIT extends CPU {
                 "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) ( getRegister( destination[1] ) - operandValue );
-                setRegister( destination[1] , newVal);
+                newVal = (short) ( getRegister( operandByte(destination) ) - operandValue );
+                setRegister( operandByte(destination) , newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) ( memoryController.getMemory( destination[1] ) - operandValue);
-                memoryController.setMemory( destination[1], newVal );
+                newVal = (short) ( memoryController.getMemory( operandByte(destination) ) - operandValue);
+                memoryController.setMemory( operandByte(destination), newVal );
             }
             case INDIRECT_MODE -> {
-                newVal = (short) ( memoryController.getMemory( getRegister( destination[1] ) ) - operandValue );
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = (short) ( memoryController.getMemory( getRegister( operandByte(destination) ) ) - operandValue );
+                memoryController.setMemory( getRegister( operandByte(destination) ), newVal );
             }
         }
         byte flagSetter = (byte) newVal;
@@ -1200,14 +1032,14 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void mul(short[] destination, short[] source){
+    public void mul(int destination, int source){
 
-        short operandValue = switch ( source[0] ){
+        short operandValue = switch ( operandMode(source) ){
 
-            case REGISTER_MODE -> getRegister( source[1] );
-            case DIRECT_MODE -> memoryController.getMemory( source[1] );
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister( source[1] ) );
-            case IMMEDIATE_MODE -> source[1];
+            case REGISTER_MODE -> getRegister( operandByte(source) );
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(source) );
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister( operandByte(source) ) );
+            case IMMEDIATE_MODE -> operandByte(source);
 
             default -> 256;
         };
@@ -1215,18 +1047,18 @@ public class CPUModule8BIT extends CPU {
                 "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) (operandValue * getRegister( destination[1] ));
-                setRegister( destination[1] , newVal);
+                newVal = (short) (operandValue * getRegister( operandByte(destination) ));
+                setRegister( operandByte(destination) , newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) ( operandValue * memoryController.getMemory( destination[1] ) );
-                memoryController.setMemory( destination[1], newVal );
+                newVal = (short) ( operandValue * memoryController.getMemory( operandByte(destination) ) );
+                memoryController.setMemory( operandByte(destination), newVal );
             }
             case INDIRECT_MODE -> {
-                newVal = (short) ( operandValue * memoryController.getMemory( getRegister( destination[1] ) ) );
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = (short) ( operandValue * memoryController.getMemory( getRegister( operandByte(destination) ) ) );
+                memoryController.setMemory( getRegister( operandByte(destination) ), newVal );
             }
         }
         byte flagSetter = (byte) newVal;
@@ -1236,14 +1068,14 @@ public class CPUModule8BIT extends CPU {
     }
     
 
-    public void div(short[] destination, short[] source){
+    public void div(int destination, int source){
 
-        short operandValue = switch ( source[0] ){
+        short operandValue = switch ( operandMode(source) ){
 
-            case REGISTER_MODE -> getRegister( source[1] );
-            case DIRECT_MODE -> memoryController.getMemory( source[1] );
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister( source[1] ) );
-            case IMMEDIATE_MODE -> source[1];
+            case REGISTER_MODE -> getRegister( operandByte(source) );
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(source) );
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister( operandByte(source) ) );
+            case IMMEDIATE_MODE -> operandByte(source);
 
             default -> 256;
         };
@@ -1251,18 +1083,18 @@ public class CPUModule8BIT extends CPU {
                 "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) (operandValue / getRegister( destination[1] ));
-                setRegister( destination[1] , newVal);
+                newVal = (short) (operandValue / getRegister( operandByte(destination) ));
+                setRegister( operandByte(destination) , newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) ( operandValue / memoryController.getMemory( destination[1] ) );
-                memoryController.setMemory( destination[1], newVal );
+                newVal = (short) ( operandValue / memoryController.getMemory( operandByte(destination) ) );
+                memoryController.setMemory( operandByte(destination), newVal );
             }
             case INDIRECT_MODE -> {
-                newVal = (short) ( operandValue / memoryController.getMemory( getRegister( destination[1] ) ) );
-                memoryController.setMemory( getRegister( destination[1] ), newVal );
+                newVal = (short) ( operandValue / memoryController.getMemory( getRegister( operandByte(destination) ) ) );
+                memoryController.setMemory( getRegister( operandByte(destination) ), newVal );
             }
         }
         byte flagSetter = (byte) newVal;
@@ -1272,18 +1104,18 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void not(short[] source){
+    public void not(int source){
         short newVal = 0;
-        switch (source[0]){
+        switch (operandMode(source)){
             case REGISTER_MODE ->{
-                setRegister(source[1], (short) ~getRegister(source[1])); newVal = getRegister(source[1]);
+                setRegister(operandByte(source), (short) ~getRegister(operandByte(source))); newVal = getRegister(operandByte(source));
             }
             case DIRECT_MODE -> {
-                memoryController.setMemory(source[1], (short) ~memoryController.getMemory(source[1])); newVal = memoryController.getMemory(source[1]);
+                memoryController.setMemory(operandByte(source), (short) ~memoryController.getMemory(operandByte(source))); newVal = memoryController.getMemory(operandByte(source));
             }
             case INDIRECT_MODE ->{
-                memoryController.setMemory( memoryController.getMemory(getRegister( source[1] )), (short) ~memoryController.getMemory( getRegister( source[1] )));
-                newVal = memoryController.getMemory( getRegister(source[1]) );
+                memoryController.setMemory( memoryController.getMemory(getRegister( operandByte(source) )), (short) ~memoryController.getMemory( getRegister( operandByte(source) )));
+                newVal = memoryController.getMemory( getRegister(operandByte(source)) );
             }
             default -> E = true;
         }
@@ -1294,30 +1126,30 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void and(short[] destination, short[] source){
+    public void and(int destination, int source){
 
-        short operandValue = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory(getRegister(source[1]));
-            case IMMEDIATE_MODE -> source[1];
+        short operandValue = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory(getRegister(operandByte(source)));
+            case IMMEDIATE_MODE -> operandByte(source);
             default -> 256;
         };
         if (operandValue == 256) E = true;
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) (operandValue & getRegister(destination[1]));
-                setRegister(destination[1], newVal);
+                newVal = (short) (operandValue & getRegister(operandByte(destination)));
+                setRegister(operandByte(destination), newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) (operandValue & memoryController.getMemory(destination[1]));
-                memoryController.setMemory(destination[1], newVal);
+                newVal = (short) (operandValue & memoryController.getMemory(operandByte(destination)));
+                memoryController.setMemory(operandByte(destination), newVal);
             }
             case INDIRECT_MODE -> {
-                newVal = (short) (operandValue & memoryController.getMemory( getRegister(destination[1]) ));
-                memoryController.setMemory( getRegister(destination[1]), newVal );
+                newVal = (short) (operandValue & memoryController.getMemory( getRegister(operandByte(destination)) ));
+                memoryController.setMemory( getRegister(operandByte(destination)), newVal );
             }
             default -> E = true;
         }
@@ -1327,30 +1159,30 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void or(short[] destination, short[] source){
+    public void or(int destination, int source){
 
-        short operandValue = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory(getRegister(source[1]));
-            case IMMEDIATE_MODE -> source[1];
+        short operandValue = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory(getRegister(operandByte(source)));
+            case IMMEDIATE_MODE -> operandByte(source);
             default -> 256;
         };
         if (operandValue == 256) E = true;
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) (operandValue | getRegister(destination[1]));
-                setRegister(destination[1], newVal);
+                newVal = (short) (operandValue | getRegister(operandByte(destination)));
+                setRegister(operandByte(destination), newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) (operandValue | memoryController.getMemory(destination[1]));
-                memoryController.setMemory(destination[1], newVal);
+                newVal = (short) (operandValue | memoryController.getMemory(operandByte(destination)));
+                memoryController.setMemory(operandByte(destination), newVal);
             }
             case INDIRECT_MODE -> {
-                newVal = (short) (operandValue | memoryController.getMemory( getRegister(destination[1]) ));
-                memoryController.setMemory( getRegister(destination[1]), newVal );
+                newVal = (short) (operandValue | memoryController.getMemory( getRegister(operandByte(destination)) ));
+                memoryController.setMemory( getRegister(operandByte(destination)), newVal );
             }
             default -> E = true;
         }
@@ -1360,30 +1192,30 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void xor(short[] destination, short[] source){
+    public void xor(int destination, int source){
 
-        short operandValue = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory(getRegister(source[1]));
-            case IMMEDIATE_MODE -> source[1];
+        short operandValue = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory(getRegister(operandByte(source)));
+            case IMMEDIATE_MODE -> operandByte(source);
             default -> 256;
         };
         if (operandValue == 256) E = true;
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) (operandValue ^ getRegister(destination[1]));
-                setRegister(destination[1], newVal);
+                newVal = (short) (operandValue ^ getRegister(operandByte(destination)));
+                setRegister(operandByte(destination), newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) (operandValue ^ memoryController.getMemory(destination[1]));
-                memoryController.setMemory(destination[1], newVal);
+                newVal = (short) (operandValue ^ memoryController.getMemory(operandByte(destination)));
+                memoryController.setMemory(operandByte(destination), newVal);
             }
             case INDIRECT_MODE -> {
-                newVal = (short) (operandValue ^ memoryController.getMemory( getRegister(destination[1]) ));
-                memoryController.setMemory( getRegister(destination[1]), newVal );
+                newVal = (short) (operandValue ^ memoryController.getMemory( getRegister(operandByte(destination)) ));
+                memoryController.setMemory( getRegister(operandByte(destination)), newVal );
             }
             default -> E = true;
         }
@@ -1393,30 +1225,30 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void nand(short[] destination, short[] source){
+    public void nand(int destination, int source){
 
-        short operandValue = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory(getRegister(source[1]));
-            case IMMEDIATE_MODE -> source[1];
+        short operandValue = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory(getRegister(operandByte(source)));
+            case IMMEDIATE_MODE -> operandByte(source);
             default -> 256;
         };
         if (operandValue == 256) E = true;
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) ~(operandValue & getRegister(destination[1]));
-                setRegister(destination[1], newVal);
+                newVal = (short) ~(operandValue & getRegister(operandByte(destination)));
+                setRegister(operandByte(destination), newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) ~(operandValue & memoryController.getMemory(destination[1]));
-                memoryController.setMemory(destination[1], newVal);
+                newVal = (short) ~(operandValue & memoryController.getMemory(operandByte(destination)));
+                memoryController.setMemory(operandByte(destination), newVal);
             }
             case INDIRECT_MODE -> {
-                newVal = (short) ~(operandValue & memoryController.getMemory( getRegister(destination[1]) ));
-                memoryController.setMemory( getRegister(destination[1]), newVal );
+                newVal = (short) ~(operandValue & memoryController.getMemory( getRegister(operandByte(destination)) ));
+                memoryController.setMemory( getRegister(operandByte(destination)), newVal );
             }
             default -> E = true;
         }
@@ -1426,30 +1258,30 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void nor(short[] destination, short[] source){
+    public void nor(int destination, int source){
 
-        short operandValue = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory(getRegister(source[1]));
-            case IMMEDIATE_MODE -> source[1];
+        short operandValue = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory(getRegister(operandByte(source)));
+            case IMMEDIATE_MODE -> operandByte(source);
             default -> 256;
         };
         if (operandValue == 256) E = true;
 
         short newVal = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE -> {
-                newVal = (short) ~(operandValue | getRegister(destination[1]));
-                setRegister(destination[1], newVal);
+                newVal = (short) ~(operandValue | getRegister(operandByte(destination)));
+                setRegister(operandByte(destination), newVal);
             }
             case DIRECT_MODE -> {
-                newVal = (short) ~(operandValue | memoryController.getMemory(destination[1]));
-                memoryController.setMemory(destination[1], newVal);
+                newVal = (short) ~(operandValue | memoryController.getMemory(operandByte(destination)));
+                memoryController.setMemory(operandByte(destination), newVal);
             }
             case INDIRECT_MODE -> {
-                newVal = (short) ~(operandValue | memoryController.getMemory( getRegister(destination[1]) ));
-                memoryController.setMemory( getRegister(destination[1]), newVal );
+                newVal = (short) ~(operandValue | memoryController.getMemory( getRegister(operandByte(destination)) ));
+                memoryController.setMemory( getRegister(operandByte(destination)), newVal );
             }
             default -> E = true;
         }
@@ -1459,12 +1291,12 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void pow(short[] destination, short[] source){
-        short power = switch(source[0]){
-            case REGISTER_MODE -> getRegister( source[1] );
-            case DIRECT_MODE -> memoryController.getMemory( source[1] );
-            case INDIRECT_MODE ->  memoryController.getMemory( getRegister( source[1] ) );
-            case IMMEDIATE_MODE -> source[1];
+    public void pow(int destination, int source){
+        short power = switch(operandMode(source)){
+            case REGISTER_MODE -> getRegister( operandByte(source) );
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(source) );
+            case INDIRECT_MODE ->  memoryController.getMemory( getRegister( operandByte(source) ) );
+            case IMMEDIATE_MODE -> operandByte(source);
 
             default -> 256;
         };
@@ -1472,18 +1304,18 @@ public class CPUModule8BIT extends CPU {
                 "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
 
         short newValue = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE ->{
-                newValue = (short) Math.pow( getRegister(destination[1]), power );
-                setRegister( destination[1], newValue );
+                newValue = (short) Math.pow( getRegister(operandByte(destination)), power );
+                setRegister( operandByte(destination), newValue );
             }
             case DIRECT_MODE ->{
-                newValue = (short) Math.pow( memoryController.getMemory( destination[1] ), power );
-                memoryController.setMemory( destination[1], newValue );
+                newValue = (short) Math.pow( memoryController.getMemory( operandByte(destination) ), power );
+                memoryController.setMemory( operandByte(destination), newValue );
             }
             case INDIRECT_MODE ->{
-                newValue = (short) Math.pow( memoryController.getMemory( getRegister(destination[1]) ), power );
-                memoryController.setMemory( getRegister( destination[1] ), newValue );
+                newValue = (short) Math.pow( memoryController.getMemory( getRegister(operandByte(destination)) ), power );
+                memoryController.setMemory( getRegister( operandByte(destination) ), newValue );
             }
         }
         byte flagSetter = (byte) newValue;
@@ -1492,21 +1324,21 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void sqrt(short[] destination){
+    public void sqrt(int destination){
 
         short newValue = 0;
-        switch (destination[0]){
+        switch (operandMode(destination)){
             case REGISTER_MODE ->{
-                newValue = (short) Math.sqrt( getRegister(destination[1]) );
-                setRegister( destination[1], newValue );
+                newValue = (short) Math.sqrt( getRegister(operandByte(destination)) );
+                setRegister( operandByte(destination), newValue );
             }
             case DIRECT_MODE ->{
-                newValue = (short) Math.sqrt( memoryController.getMemory(destination[1]) );
-                memoryController.setMemory( destination[1], newValue );
+                newValue = (short) Math.sqrt( memoryController.getMemory(operandByte(destination)) );
+                memoryController.setMemory( operandByte(destination), newValue );
             }
             case INDIRECT_MODE ->{
-                newValue = (short) Math.sqrt( memoryController.getMemory( getRegister( destination[1] ) ) );
-                memoryController.setMemory( getRegister( destination[1] ), newValue );
+                newValue = (short) Math.sqrt( memoryController.getMemory( getRegister( operandByte(destination) ) ) );
+                memoryController.setMemory( getRegister( operandByte(destination) ), newValue );
             }
             default ->{
                 String err = "Invalid instruction error.";
@@ -1521,12 +1353,12 @@ public class CPUModule8BIT extends CPU {
 
 
 
-    public void rnd(short[] destination, short[] source){
-        short bound = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory(source[1]);
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister(source[1]) );
-            case IMMEDIATE_MODE -> source[1];
+    public void rnd(int destination, int source){
+        short bound = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory(operandByte(source));
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister(operandByte(source)) );
+            case IMMEDIATE_MODE -> operandByte(source);
             default -> 256;
         };
 
@@ -1534,10 +1366,10 @@ public class CPUModule8BIT extends CPU {
                 "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
 
         short newVal = (short) ( Math.random() * bound );
-        switch (destination[0]){
-            case REGISTER_MODE -> setRegister( destination[1],  newVal);
-            case DIRECT_MODE -> memoryController.setMemory(destination[1], newVal);
-            case INDIRECT_MODE -> memoryController.setMemory( getRegister(destination[1]), newVal );
+        switch (operandMode(destination)){
+            case REGISTER_MODE -> setRegister( operandByte(destination),  newVal);
+            case DIRECT_MODE -> memoryController.setMemory(operandByte(destination), newVal);
+            case INDIRECT_MODE -> memoryController.setMemory( getRegister(operandByte(destination)), newVal );
 
             default -> triggerProgramError(
                     "Invalid instruction prefix", ErrorHandler.ERR_CODE_INVALID_PREFIX);
@@ -1545,62 +1377,62 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void inc(short[] destination){
+    public void inc(int destination){
 
-        switch (destination[0]){
-            case REGISTER_MODE -> setRegister(destination[1], (short) (getRegister(destination[1]) + 1));
-            case DIRECT_MODE -> memoryController.setMemory(destination[1], (short) (memoryController.getMemory(destination[1]) + 1));
-            case INDIRECT_MODE -> memoryController.setMemory(memoryController.getMemory( getRegister(destination[1]) ),
-                    (short) ( memoryController.getMemory( getRegister(destination[1]) ) + 1));
+        switch (operandMode(destination)){
+            case REGISTER_MODE -> setRegister(operandByte(destination), (short) (getRegister(operandByte(destination)) + 1));
+            case DIRECT_MODE -> memoryController.setMemory(operandByte(destination), (short) (memoryController.getMemory(operandByte(destination)) + 1));
+            case INDIRECT_MODE -> memoryController.setMemory(memoryController.getMemory( getRegister(operandByte(destination)) ),
+                    (short) ( memoryController.getMemory( getRegister(operandByte(destination)) ) + 1));
         }
-        byte flagSetter = (byte) destination[1];
+        byte flagSetter = (byte) operandByte(destination);
         if (flagSetter == 0) Z = true;
         if (flagSetter < 0) N = true;
     }
 
 
-    public void dec(short[] destination){
-        switch (destination[0]){
-            case REGISTER_MODE -> setRegister(destination[1], (short) (getRegister(destination[1]) - 1));
-            case DIRECT_MODE -> memoryController.setMemory(destination[1], (short) (memoryController.getMemory(destination[1]) - 1));
-            case INDIRECT_MODE -> memoryController.setMemory(memoryController.getMemory( getRegister(destination[1]) ),
-                    (short) ( memoryController.getMemory( getRegister(destination[1]) ) - 1));
+    public void dec(int destination){
+        switch (operandMode(destination)){
+            case REGISTER_MODE -> setRegister(operandByte(destination), (short) (getRegister(operandByte(destination)) - 1));
+            case DIRECT_MODE -> memoryController.setMemory(operandByte(destination), (short) (memoryController.getMemory(operandByte(destination)) - 1));
+            case INDIRECT_MODE -> memoryController.setMemory(memoryController.getMemory( getRegister(operandByte(destination)) ),
+                    (short) ( memoryController.getMemory( getRegister(operandByte(destination)) ) - 1));
         }
-        byte flagSetter = (byte) destination[1];
+        byte flagSetter = (byte) operandByte(destination);
         if (flagSetter == 0) Z = true;
         if (flagSetter < 0) N = true;
     }
 
 
-    public void la(short[] source){
+    public void la(int source){
         int low = machineCode[registers[PC]];
         int high = machineCode[step()];
         short address = (short) ((low << 8) | high);
-        switch (source[0]){
-            case REGISTER_MODE -> setRegister( source[1], address);
-            case DIRECT_MODE -> memoryController.setMemory( source[1], address );
-            case INDIRECT_MODE -> memoryController.setMemory( getRegister(source[1]) , address );
+        switch (operandMode(source)){
+            case REGISTER_MODE -> setRegister( operandByte(source), address);
+            case DIRECT_MODE -> memoryController.setMemory( operandByte(source), address );
+            case INDIRECT_MODE -> memoryController.setMemory( getRegister(operandByte(source)) , address );
         }
     }
 
 
-    public void push(short[] source){
-        switch (source[0]){
-            case REGISTER_MODE -> memoryController.setMemoryAbsolute(registers[SP], getRegister(source[1]), DATA_BYTE_MODE);
-            case DIRECT_MODE -> memoryController.setMemoryAbsolute(registers[SP], memoryController.readByte(source[1]), DATA_BYTE_MODE);
-            case INDIRECT_MODE -> memoryController.setMemoryAbsolute(registers[SP], memoryController.readByte( getRegister(source[1]) ), DATA_BYTE_MODE);
-            case IMMEDIATE_MODE -> memoryController.setMemoryAbsolute(registers[SP], source[1], DATA_BYTE_MODE);
+    public void push(int source){
+        switch (operandMode(source)){
+            case REGISTER_MODE -> memoryController.setMemoryAbsolute(registers[SP], getRegister(operandByte(source)), DATA_BYTE_MODE);
+            case DIRECT_MODE -> memoryController.setMemoryAbsolute(registers[SP], memoryController.readByte(operandByte(source)), DATA_BYTE_MODE);
+            case INDIRECT_MODE -> memoryController.setMemoryAbsolute(registers[SP], memoryController.readByte( getRegister(operandByte(source)) ), DATA_BYTE_MODE);
+            case IMMEDIATE_MODE -> memoryController.setMemoryAbsolute(registers[SP], operandByte(source), DATA_BYTE_MODE);
         }
         registers[SP]--;
     }
 
 
-    public void pop(short[] source){
+    public void pop(int source){
         registers[SP]++;
-        switch (source[0]){
-            case REGISTER_MODE -> setRegister( source[1], (short) memoryController.readByteAbsolute(registers[SP]) );
-            case DIRECT_MODE -> memoryController.setMemory( source[1], memoryController.readByteAbsolute(registers[SP]) );
-            case INDIRECT_MODE -> memoryController.setMemory( getRegister(source[1]), memoryController.readByteAbsolute(registers[SP]) );
+        switch (operandMode(source)){
+            case REGISTER_MODE -> setRegister( operandByte(source), (short) memoryController.readByteAbsolute(registers[SP]) );
+            case DIRECT_MODE -> memoryController.setMemory( operandByte(source), memoryController.readByteAbsolute(registers[SP]) );
+            case INDIRECT_MODE -> memoryController.setMemory( getRegister(operandByte(source)), memoryController.readByteAbsolute(registers[SP]) );
             default -> E = true;
         }
     }
@@ -1623,19 +1455,19 @@ public class CPUModule8BIT extends CPU {
     }
 
 
-    public void cmp(short[] destination, short[] source){
-        short val1 = switch (destination[0]){
-            case REGISTER_MODE -> getRegister(destination[1]);
-            case DIRECT_MODE -> memoryController.getMemory( destination[1] );
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister(destination[1]) );
-            case IMMEDIATE_MODE -> destination[1];
+    public void cmp(int destination, int source){
+        short val1 = switch (operandMode(destination)){
+            case REGISTER_MODE -> getRegister(operandByte(destination));
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(destination) );
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister(operandByte(destination)) );
+            case IMMEDIATE_MODE -> operandByte(destination);
             default -> 256;
         };
-        short val2 = switch (source[0]){
-            case REGISTER_MODE -> getRegister(source[1]);
-            case DIRECT_MODE -> memoryController.getMemory( source[1] );
-            case INDIRECT_MODE -> memoryController.getMemory( getRegister(source[1]) );
-            case IMMEDIATE_MODE -> source[1];
+        short val2 = switch (operandMode(source)){
+            case REGISTER_MODE -> getRegister(operandByte(source));
+            case DIRECT_MODE -> memoryController.getMemory( operandByte(source) );
+            case INDIRECT_MODE -> memoryController.getMemory( getRegister(operandByte(source)) );
+            case IMMEDIATE_MODE -> operandByte(source);
             default -> 256;
         };
 
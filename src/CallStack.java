@@ -0,0 +1,43 @@
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+public class CallStack {
+
+    // Return address stack for CALL / RET.
+    // Addresses are kept in a growable int array so calls don't box them like Stack<Integer> did.
+
+    private int[] entries = new int[64];
+    private int size = 0;
+
+    public void push(int address){
+        if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+        entries[size++] = address;
+    }
+
+    public int pop(){
+        if (size == 0) throw new EmptyStackException();
+        return entries[--size];
+    }
+
+    public int peek(){
+        if (size == 0) throw new EmptyStackException();
+        return entries[size - 1];
+    }
+
+    public int get(int index){
+        if (index < 0 || index >= size) throw new ArrayIndexOutOfBoundsException(index);
+        return entries[index];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public void clear(){
+        size = 0;
+    }
+}
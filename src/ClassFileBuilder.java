@@ -0,0 +1,251 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public final class ClassFileBuilder {
+
+    // Just enough of the JVM class file format to emit small generated classes (see BlockCompiler).
+    // Supports a constant pool, interfaces and methods with a Code attribute, nothing else.
+    // Method bodies must be straight-line code: there is no StackMapTable, so any branch would fail verification.
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    static final int CLASS_VERSION = 61; // Java 17
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(constantBytes);
+    private final HashMap<String, Integer> constantIndex = new HashMap<>();
+    private int constantCount = 1; // entry 0 is unused
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final ArrayList<byte[]> methods = new ArrayList<>();
+
+
+    public ClassFileBuilder(String className, String superName, String... interfaceNames){
+        thisClass = classRef(className);
+        superClass = classRef(superName);
+        interfaces = new int[interfaceNames.length];
+        for(int i = 0; i < interfaceNames.length; i++) interfaces[i] = classRef(interfaceNames[i]);
+    }
+
+    /// ///////////////////////////// CONSTANT POOL //////////////////////////////////////////////////
+
+    public int utf8(String value){
+        return constant("U" + value, () -> {
+            constants.writeByte(CONSTANT_UTF8);
+            constants.writeUTF(value);
+        });
+    }
+
+    public int integer(int value){
+        return constant("I" + value, () -> {
+            constants.writeByte(CONSTANT_INTEGER);
+            constants.writeInt(value);
+        });
+    }
+
+    public int classRef(String internalName){
+        int name = utf8(internalName);
+        return constant("C" + internalName, () -> {
+            constants.writeByte(CONSTANT_CLASS);
+            constants.writeShort(name);
+        });
+    }
+
+    public int nameAndType(String name, String descriptor){
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        return constant("N" + name + ":" + descriptor, () -> {
+            constants.writeByte(CONSTANT_NAME_AND_TYPE);
+            constants.writeShort(nameIndex);
+            constants.writeShort(descriptorIndex);
+        });
+    }
+
+    public int methodRef(String owner, String name, String descriptor){
+        int ownerIndex = classRef(owner);
+        int nameAndTypeIndex = nameAndType(name, descriptor);
+        return constant("M" + owner + "." + name + ":" + descriptor, () -> {
+            constants.writeByte(CONSTANT_METHODREF);
+            constants.writeShort(ownerIndex);
+            constants.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    public int fieldRef(String owner, String name, String descriptor){
+        int ownerIndex = classRef(owner);
+        int nameAndTypeIndex = nameAndType(name, descriptor);
+        return constant("F" + owner + "." + name + ":" + descriptor, () -> {
+            constants.writeByte(CONSTANT_FIELDREF);
+            constants.writeShort(ownerIndex);
+            constants.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    private interface ConstantWriter {
+        void write() throws IOException;
+    }
+
+    private int constant(String key, ConstantWriter writer){
+        Integer index = constantIndex.get(key);
+        if (index != null) return index;
+
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        if (constantCount > 0xffff) throw new IllegalStateException("Constant pool overflow");
+        constantIndex.put(key, constantCount);
+        return constantCount++;
+    }
+
+    /// ///////////////////////////// METHODS //////////////////////////////////////////////////
+
+    public Code code(){
+        return new Code();
+    }
+
+    public void addMethod(int access, String name, String descriptor, Code code){
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            byte[] body = code.bytes.toByteArray();
+            if (body.length > 0xffff) throw new IllegalStateException("Method " + name + " is too large");
+
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1); // attributes: Code
+
+            out.writeShort(utf8("Code"));
+            out.writeInt(2 + 2 + 4 + body.length + 2 + 2);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(body.length);
+            out.write(body);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+
+            methods.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public byte[] toByteArray(){
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+
+            out.writeShort(constantCount);
+            constants.flush();
+            constantBytes.writeTo(out);
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int index : interfaces) out.writeShort(index);
+
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) out.write(method);
+            out.writeShort(0); // attributes
+
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    // straight-line bytecode. the caller sets maxStack and maxLocals
+    public class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int maxStack = 0;
+        int maxLocals = 0;
+
+        public Code aload(int local){
+            if (local <= 3) bytes.write(0x2a + local);
+            else {
+                bytes.write(0x19);
+                bytes.write(local);
+            }
+            return this;
+        }
+
+        public Code pushInt(int value){
+            if (value >= -1 && value <= 5) bytes.write(0x03 + value); // iconst_m1 .. iconst_5
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                bytes.write(0x10); // bipush
+                bytes.write(value);
+            }
+            else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                bytes.write(0x11); // sipush
+                writeShort(value);
+            }
+            else {
+                bytes.write(0x13); // ldc_w
+                writeShort(integer(value));
+            }
+            return this;
+        }
+
+        public Code invokeVirtual(String owner, String name, String descriptor){
+            bytes.write(0xb6);
+            writeShort(methodRef(owner, name, descriptor));
+            return this;
+        }
+
+        public Code invokeSpecial(String owner, String name, String descriptor){
+            bytes.write(0xb7);
+            writeShort(methodRef(owner, name, descriptor));
+            return this;
+        }
+
+        public Code getField(String owner, String name, String descriptor){
+            bytes.write(0xb4);
+            writeShort(fieldRef(owner, name, descriptor));
+            return this;
+        }
+
+        public Code intArrayStore(){
+            bytes.write(0x4f);
+            return this;
+        }
+
+        public Code pop(){
+            bytes.write(0x57);
+            return this;
+        }
+
+        public Code returnVoid(){
+            bytes.write(0xb1);
+            return this;
+        }
+
+        private void writeShort(int value){
+            bytes.write((value >> 8) & 0xff);
+            bytes.write(value & 0xff);
+        }
+    }
+}
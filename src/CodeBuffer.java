@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CodeBuffer {
+
+    // Machine code written by the assembler in a single pass over the source.
+    // Operands naming a function, a data variable or a DEFINE symbol are emitted as a placeholder (a mode byte
+    // and a word) and recorded as a fixup. names are only final once the whole source has been read (a name
+    // defined twice resolves to its last definition), so the assembler patches the placeholders afterwards.
+    // The elements are ints, like the memory image they end up in: the encoder can produce values outside
+    // 0..255 (an unknown register is -1) and the image keeps them as they are.
+    // A buffer can hold a single function, the assembler appends it to the program's code (see append).
+
+    record Fixup(int position, String symbol, boolean data, int line) {}
+
+    private int[] code;
+    private int length = 0;
+    private final List<Fixup> fixups = new ArrayList<>();
+
+
+    public CodeBuffer(){
+        this(256);
+    }
+
+    public CodeBuffer(int capacity){
+        code = new int[Math.max(capacity, 1)];
+    }
+
+    public void emit(int value){
+        if (length == code.length) code = Arrays.copyOf(code, length * 2);
+        code[length++] = value;
+    }
+
+    // high byte first, the order operands are stored in
+    public void emitWord(int value){
+        emit((value >> 8) & 0xff);
+        emit(value & 0xff);
+    }
+
+    // data operands are variables, other operands are functions or DEFINE symbols
+    public void emitFixup(String symbol, boolean data, int line){
+        fixups.add(new Fixup(length, symbol, data, line));
+        emit(0);
+        emitWord(0);
+    }
+
+    // appends the code of another buffer. its fixups come along, their source lines moved by lineShift
+    public void append(CodeBuffer other, int lineShift){
+        for (Fixup fixup : other.fixups)
+            fixups.add(new Fixup(length + fixup.position(), fixup.symbol(), fixup.data(), fixup.line() + lineShift));
+
+        if (length + other.length > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, length + other.length));
+        System.arraycopy(other.code, 0, code, length, other.length);
+        length += other.length;
+    }
+
+    public void patch(Fixup fixup, int mode, int value){
+        code[fixup.position()] = mode;
+        code[fixup.position() + 1] = (value >> 8) & 0xff;
+        code[fixup.position() + 2] = value & 0xff;
+    }
+
+    public int get(int position){
+        return code[position];
+    }
+
+    public void set(int position, int value){
+        code[position] = value;
+    }
+
+    public int length(){
+        return length;
+    }
+
+    public List<Fixup> fixups(){
+        return fixups;
+    }
+
+    public void copyTo(int[] destination){
+        System.arraycopy(code, 0, destination, 0, length);
+    }
+
+    public void clear(){
+        length = 0;
+        fixups.clear();
+    }
+}
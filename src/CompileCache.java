@@ -0,0 +1,249 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class CompileCache {
+
+    // Assembled images kept on disk, so compiling a source that was compiled before (CLICompiler, the UI's
+    // compile buttons, anything that goes through VirtualMachine.sendCode) skips the assembler.
+    //   CompileCache=true        the cache is on unless this is false (or -nc on the command line)
+    //   CompileCacheSize=16      size limit of CACHE_PATH in MB
+    // An entry is named after a 64-bit hash of everything the image depends on: the preprocessed source, the
+    // architecture, the memory layout (size and section percentages) and the compiler version. It holds all of
+    // that text too, a lookup only hits when it matches exactly, so a hash collision is a miss and never the wrong
+    // image. (a cryptographic hash would spare the comparison, but loading its provider costs more than assembling.)
+    // Besides the image an entry holds the tables the assembler fills (functions, data variables, DEFINE symbols,
+    // line map).
+    // A hit touches the entry's modification time. when a new entry takes the cache over its size limit the
+    // entries used longest ago are deleted first.
+    // Entries are written to a temporary file and moved into place, so machines and processes sharing the
+    // directory never read half an entry. unreadable entries count as misses and are deleted.
+
+    static final String CONFIG_KEY = "CompileCache";
+    static final String SIZE_KEY = "CompileCacheSize";
+    static final String CACHE_PATH = "./compile_cache";
+    static final String ENTRY_EXTENSION = ".img";
+
+    private static final int MAGIC = 0x544B5943; // "TKYC"
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    Logger.Device log = Logger.device("COMPILE_CACHE");
+
+
+    public CompileCache(Path directory, long maxBytes){
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    // null when the cache is off
+    public static CompileCache fromConfig(){
+        if (!Boolean.parseBoolean(Launcher.appConfig.getOrDefault(CONFIG_KEY, "true"))) return null;
+        long megabytes = Long.parseLong(Launcher.appConfig.getOrDefault(SIZE_KEY, "16").trim());
+        return new CompileCache(Path.of(CACHE_PATH), megabytes * 1024 * 1024);
+    }
+
+    // everything the image of the source depends on
+    static byte[] identity(CPU cpu, String source){
+        // built by hand: the first string concatenation or float formatting of a run costs milliseconds
+        MemoryModule memory = cpu.memoryController;
+        StringBuilder text = new StringBuilder(source.length() + 128)
+                .append(cpu.bit_length).append(' ')
+                .append(Float.floatToIntBits(memory.memorySizeKB)).append(' ')
+                .append(Float.floatToIntBits(memory.ROMpercentage)).append(' ')
+                .append(Float.floatToIntBits(memory.DATApercentage)).append(' ')
+                .append(Float.floatToIntBits(memory.STACKpercentage)).append(' ')
+                .append(CPU.signature).append(CPU.lastUpdateDate).append(CPU.compilerVersion).append('\n')
+                .append(source);
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // FNV-1a
+    static String key(byte[] identity){
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : identity) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    /// ///////////////////////////// LOOKUP //////////////////////////////////////////////////
+
+    // the cached image of the source, with the CPU's tables filled in as the assembler would have. null on a miss
+    public int[] load(CPU cpu, String source){
+        byte[] identity = identity(cpu, source);
+        String key = key(identity);
+        Path entry = directory.resolve(key + ENTRY_EXTENSION);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) throw new IOException("not a cache entry");
+
+            byte[] stored = new byte[in.readInt()];
+            in.readFully(stored);
+            if (!Arrays.equals(stored, identity)) {
+                log.debug("Collision %s", key);
+                return null;
+            }
+
+            int[] image = new int[in.readInt()];
+            if (in.readBoolean()) {
+                byte[] bytes = new byte[image.length];
+                in.readFully(bytes);
+                for (int i = 0; i < image.length; i++) image[i] = bytes[i] & 0xff;
+            }
+            else for (int i = 0; i < image.length; i++) image[i] = in.readInt();
+
+            HashMap<String, Integer> functions = readNames(in);
+            HashMap<String, Integer> dataMap = readNames(in);
+            HashMap<String, Integer> definitionMap = readNames(in);
+            HashMap<Integer, Integer> lineMap = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) lineMap.put(in.readInt(), in.readInt());
+
+            cpu.functions.putAll(functions);
+            cpu.dataMap.putAll(dataMap);
+            cpu.definitionMap.putAll(definitionMap);
+            cpu.lineMap.putAll(lineMap);
+
+            touch(entry);
+            log.debug("Hit %s", key);
+            return image;
+        } catch (NoSuchFileException e) {
+            log.debug("Miss %s", key);
+            return null;
+        } catch (IOException e) {
+            log.log(Logger.Level.WARN, "Dropping unreadable entry %s : %s", key, e.toString());
+            delete(entry);
+            return null;
+        }
+    }
+
+    /// ///////////////////////////// STORE //////////////////////////////////////////////////
+
+    // a cache that can't be written is only slower, failures are logged and otherwise ignored
+    public void store(CPU cpu, String source, int[] image){
+        byte[] identity = identity(cpu, source);
+        String key = key(identity);
+        Path entry = directory.resolve(key + ENTRY_EXTENSION);
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+
+                out.writeInt(identity.length);
+                out.write(identity);
+
+                // one byte per value unless the image holds values outside 0..255 (the metadata can be negative)
+                boolean bytes = true;
+                for (int value : image) bytes &= value >= 0 && value <= 0xff;
+                out.writeInt(image.length);
+                out.writeBoolean(bytes);
+                for (int value : image) {
+                    if (bytes) out.writeByte(value);
+                    else out.writeInt(value);
+                }
+
+                writeNames(out, cpu.functions);
+                writeNames(out, cpu.dataMap);
+                writeNames(out, cpu.definitionMap);
+                out.writeInt(cpu.lineMap.size());
+                for (Map.Entry<Integer, Integer> line : cpu.lineMap.entrySet()) {
+                    out.writeInt(line.getKey());
+                    out.writeInt(line.getValue());
+                }
+            }
+
+            try {
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.debug("Stored %s", key);
+
+            evict();
+        } catch (IOException e) {
+            log.log(Logger.Level.WARN, "Could not store %s : %s", key, e.toString());
+            if (temporary != null) delete(temporary);
+        }
+    }
+
+    // deletes the least recently used entries until the cache fits in maxBytes
+    void evict() throws IOException {
+        record Entry(Path path, long size, FileTime lastUsed) {}
+
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(path -> path.toString().endsWith(ENTRY_EXTENSION)).toList()) {
+                try {
+                    Entry entry = new Entry(path, Files.size(path), Files.getLastModifiedTime(path));
+                    entries.add(entry);
+                    total += entry.size();
+                } catch (NoSuchFileException e) {
+                    // evicted by another machine in the meantime
+                }
+            }
+        }
+        if (total <= maxBytes) return;
+
+        entries.sort((a, b) -> a.lastUsed().compareTo(b.lastUsed()));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) break;
+            delete(entry.path());
+            total -= entry.size();
+            log.debug("Evicted %s", entry.path().getFileName());
+        }
+    }
+
+    /// ///////////////////////////// HELPERS //////////////////////////////////////////////////
+
+    private static HashMap<String, Integer> readNames(DataInputStream in) throws IOException {
+        HashMap<String, Integer> names = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) names.put(in.readUTF(), in.readInt());
+        return names;
+    }
+
+    private static void writeNames(DataOutputStream out, Map<String, Integer> names) throws IOException {
+        out.writeInt(names.size());
+        for (Map.Entry<String, Integer> name : names.entrySet()) {
+            out.writeUTF(name.getKey());
+            out.writeInt(name.getValue());
+        }
+    }
+
+    private void touch(Path entry){
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // evicted right after being read, the image is still good
+        }
+    }
+
+    private void delete(Path path){
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.log(Logger.Level.WARN, "Could not delete %s : %s", path, e.toString());
+        }
+    }
+}
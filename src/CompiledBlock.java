@@ -0,0 +1,6 @@
+public interface CompiledBlock {
+
+    // Runs a translated basic block of the 16-bit ROM from its first instruction to its last one.
+    // PC, flags and pacing end up exactly where the interpreter would have left them.
+    void run(CPUModule16BIT cpu);
+}
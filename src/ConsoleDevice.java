@@ -0,0 +1,95 @@
+import java.util.concurrent.locks.LockSupport;
+
+public class ConsoleDevice {
+
+    // The program's console output (out, outc, outs ...), one per CPU.
+    // Characters go into a ring buffer of ConsoleBuffer characters and reach the console in batches, so a
+    // program printing a lot pays for the console once per batch instead of once per character.
+    // A batch is written when
+    //   the buffer is full          the program waits for the write, a slow console slows the program down
+    //                               instead of the output piling up in memory
+    //   ConsoleFlushInterval ms     passed since the last batch, checked on every instruction (see poll)
+    //   the machine needs it        before reading input, before an error or the exit status, on a console change
+    // With ConsoleRate (characters per second, 0 is off) the batches are paced like a serial terminal of that speed.
+
+    static final String BUFFER_KEY = "ConsoleBuffer";
+    static final String INTERVAL_KEY = "ConsoleFlushInterval";
+    static final String RATE_KEY = "ConsoleRate";
+    static final String HISTORY_KEY = "ConsoleHistory"; // see CPU.outputString
+
+    // receives every batch
+    interface Sink {
+        void write(char[] chars, int offset, int length);
+    }
+
+    private final Sink sink;
+    private final char[] ring;
+    private int head = 0; // next character to write out
+    private int size = 0;
+
+    private final long intervalMillis;
+    private long lastFlush = System.currentTimeMillis();
+
+    private final long charactersPerSecond;
+    private long rateDeadline = System.nanoTime();
+
+
+    public ConsoleDevice(Sink sink, int capacity, long intervalMillis, long charactersPerSecond){
+        this.sink = sink;
+        this.ring = new char[Math.max(1, capacity)];
+        this.intervalMillis = intervalMillis;
+        this.charactersPerSecond = charactersPerSecond;
+    }
+
+    public static ConsoleDevice fromConfig(Sink sink){
+        int capacity = Integer.parseInt(Launcher.appConfig.getOrDefault(BUFFER_KEY, "4096").trim());
+        long interval = Long.parseLong(Launcher.appConfig.getOrDefault(INTERVAL_KEY, "50").trim());
+        long rate = Long.parseLong(Launcher.appConfig.getOrDefault(RATE_KEY, "0").trim());
+        return new ConsoleDevice(sink, capacity, interval, rate);
+    }
+
+    public void write(char c){
+        if (size == ring.length) flush();
+        ring[(head + size) % ring.length] = c;
+        size++;
+    }
+
+    // the time-triggered flush. now is System.currentTimeMillis(), which the callers already have
+    public void poll(long now){
+        if (size > 0 && now - lastFlush >= intervalMillis) flush();
+    }
+
+    // writes out everything buffered, at most two sink calls when the characters wrap around the ring
+    public void flush(){
+        lastFlush = System.currentTimeMillis();
+        if (size == 0) return;
+
+        int first = Math.min(size, ring.length - head);
+        sink.write(ring, head, first);
+        if (first < size) sink.write(ring, 0, size - first);
+
+        int written = size;
+        head = (head + size) % ring.length;
+        size = 0;
+        pace(written);
+    }
+
+    // drops the buffered characters (the machine was reset)
+    public void clear(){
+        head = 0;
+        size = 0;
+        rateDeadline = System.nanoTime();
+    }
+
+    private void pace(int characters){
+        if (charactersPerSecond <= 0) return;
+
+        // a console that sat idle doesn't let the next batch through faster
+        rateDeadline = Math.max(rateDeadline, System.nanoTime()) + characters * 1_000_000_000L / charactersPerSecond;
+        long remaining;
+        while ((remaining = rateDeadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) throw new RuntimeException(new InterruptedException());
+        }
+    }
+}
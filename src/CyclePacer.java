@@ -0,0 +1,97 @@
+import java.util.concurrent.locks.LockSupport;
+
+public class CyclePacer {
+
+    // Meters the emulated clock against the wall clock.
+    // Cycles are counted as they execute and the thread sleeps once per batch for the time
+    // the emulated clock is ahead of the real one (the deficit), measured with System.nanoTime.
+    // This keeps the configured rate exact above 1000 Hz, where a per-byte Thread.sleep(ms) truncates to 0.
+    // When throttling is off every call returns after a single branch.
+
+    // sleep at most once per this much emulated time
+    static final long BATCH_NANOS = 1_000_000L;
+    // if we fall this far behind (UI dialogs, debugger, blocking input) start counting again instead of bursting
+    static final long MAX_LAG_NANOS = 50_000_000L;
+
+    private boolean throttled;
+    private final long cyclesPerSecond;
+    private final long batchCycles;
+
+    private long pendingCycles = 0;
+    private long cyclesSinceEpoch = 0;
+    private long epoch = System.nanoTime();
+
+    String logDevice = "CYCLE_PACER";
+
+
+    public CyclePacer(long cyclesPerSecond, boolean throttled){
+        this.cyclesPerSecond = Math.max(1, cyclesPerSecond);
+        this.throttled = throttled;
+        this.batchCycles = Math.max(1, (this.cyclesPerSecond * BATCH_NANOS) / 1_000_000_000L);
+    }
+
+    public static CyclePacer fromConfig(){
+        long cycles = Long.parseLong(Launcher.appConfig.get("Cycles"));
+        boolean throttled = Launcher.appConfig.getOrDefault("Throttle", "true").equalsIgnoreCase("true");
+        return new CyclePacer(cycles, throttled);
+    }
+
+    public void tick(int cycles){
+        if (!throttled) return;
+
+        pendingCycles += cycles;
+        if (pendingCycles >= batchCycles) pace();
+    }
+
+    private void pace(){
+        cyclesSinceEpoch += pendingCycles;
+        pendingCycles = 0;
+
+        long now = System.nanoTime();
+        long target = epoch + (cyclesSinceEpoch * 1_000_000_000L) / cyclesPerSecond;
+        long deficit = target - now;
+
+        if (deficit > 0) {
+            // parkNanos may return early. keep parking until the deficit is paid
+            while (deficit > 0) {
+                LockSupport.parkNanos(deficit);
+                if (Thread.interrupted()) throw new RuntimeException(new InterruptedException());
+                deficit = target - System.nanoTime();
+            }
+        }
+        else if (-deficit > MAX_LAG_NANOS) {
+            reset();
+            return;
+        }
+
+        // move the epoch forward every emulated second so the multiplication above can't overflow
+        if (cyclesSinceEpoch >= cyclesPerSecond) {
+            epoch = target;
+            cyclesSinceEpoch = 0;
+        }
+    }
+
+    public void reset(){
+        epoch = System.nanoTime();
+        cyclesSinceEpoch = 0;
+        pendingCycles = 0;
+    }
+
+    public boolean isThrottled(){
+        return throttled;
+    }
+
+    public void setThrottled(boolean throttled){
+        this.throttled = throttled;
+        reset();
+    }
+
+    public long getCyclesPerSecond(){
+        return cyclesPerSecond;
+    }
+
+    public String describe(){
+        if (!throttled) return "Unthrottled (no pacing)";
+        return String.format("%d Cycles per second. sleeping once every %d cycles", cyclesPerSecond, batchCycles);
+    }
+}
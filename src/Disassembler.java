@@ -2,7 +2,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Arrays;
 
@@ -16,10 +16,9 @@ public class Disassembler {
 
         try {
 
-            byte[] x = Files.readAllBytes(Path.of(binaryFilePath));
-            int[] machine_code = new int[x.length];
-
-            for(int i = 0; i < machine_code.length; i++) machine_code[i] = x[i] & 0xff;
+            ByteBuffer x = CLI.readBinary(Path.of(binaryFilePath));
+            int[] machine_code = new int[x.limit()];
+            for(int i = 0; i < machine_code.length; i++) machine_code[i] = x.get(i) & 0xff;
 
             architecture = Integer.toString(machine_code[machine_code.length - 3]);
             System.out.println("This has been compiled for " + architecture + "-bit module.");
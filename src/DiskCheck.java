@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class DiskCheck {
+
+    // Checks the disk backends (HardDiskDriver.Backend) against each other.
+    // Every backend runs the same OPERATIONS random saves, appends, reads and deletes on a new disk image, with a
+    // copy of every file kept in memory. A read must return the copy, and after the drive is closed and mounted
+    // again every file (and no other) and the block bitmap must still be there. The check passes when every
+    // backend reads everything back and they all leave the same bytes in their disk image.
+    // Files stay below the size of their block pointers, the driver doesn't support more yet.
+
+    static final int OPERATIONS = 2000;
+    static final int NAMES = 60;
+    static final int MAX_FILE_SIZE = 12000;
+
+    private static final PrintStream console = System.out;
+
+
+    public static void main(String[] args) throws Exception {
+
+        Launcher.appConfig = Settings.loadSettings();
+        Logger.setLevel(Logger.Level.OFF);
+
+        HardDiskDriver.Backend[] backends = args.length > 0
+                ? Arrays.stream(args).map(HardDiskDriver.Backend::parse).toArray(HardDiskDriver.Backend[]::new)
+                : HardDiskDriver.Backend.values();
+
+        int failures = 0;
+        byte[] firstImage = null;
+        Path directory = Files.createTempDirectory("diskcheck");
+        try {
+            for (HardDiskDriver.Backend backend : backends) {
+                Path image = directory.resolve(backend.name().toLowerCase() + ".img");
+                long start = System.nanoTime();
+                int mismatches = run(backend, image);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+
+                byte[] bytes = Files.readAllBytes(image);
+                boolean sameImage = firstImage == null || Arrays.equals(firstImage, bytes);
+                if (firstImage == null) firstImage = bytes;
+                if (mismatches > 0 || !sameImage) failures++;
+
+                System.out.printf("%s : %d mismatches, %s image, %d ms\n",
+                        backend, mismatches, sameImage ? "same" : "DIFFERENT", millis);
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+
+        System.out.printf("%d backends, %d operations each -> %s\n",
+                backends.length, OPERATIONS, failures == 0 ? "OK" : "FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // the number of reads that didn't match, plus one for a wrong bitmap or file count after mounting again
+    private static int run(HardDiskDriver.Backend backend, Path image) throws IOException {
+        Launcher.appConfig.put(HardDiskDriver.BACKEND_KEY, backend.name());
+
+        Map<String, byte[]> files = new TreeMap<>();
+        Random random = new Random(7);
+        int mismatches = 0;
+
+        // the driver prints its progress
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            HardDiskDriver disk = new HardDiskDriver(image.toString());
+            for (int i = 0; i < OPERATIONS; i++) {
+                String name = "file" + random.nextInt(NAMES);
+
+                byte[] data = new byte[1 + random.nextInt(3000)];
+                random.nextBytes(data);
+                byte[] old = files.get(name);
+
+                switch (random.nextInt(10)) {
+                    case 0, 1, 2 -> {
+                        disk.saveFile(name, data);
+                        files.put(name, data);
+                    }
+                    case 3, 4, 5 -> {
+                        if (old != null && old.length + data.length > MAX_FILE_SIZE) continue;
+                        disk.appendFile(name, data);
+                        if (old == null) files.put(name, data);
+                        else {
+                            byte[] appended = Arrays.copyOf(old, old.length + data.length);
+                            System.arraycopy(data, 0, appended, old.length, data.length);
+                            files.put(name, appended);
+                        }
+                    }
+                    case 6, 7, 8 -> {
+                        if (old != null && !Arrays.equals(disk.readFile(name), old)) mismatches++;
+                    }
+                    default -> {
+                        if (old == null) continue;
+                        disk.deleteFile(name);
+                        files.remove(name);
+                    }
+                }
+            }
+
+            boolean[] used = bitmap(disk);
+            disk.closeDrive();
+
+            disk = new HardDiskDriver(image.toString());
+            if (!Arrays.equals(used, bitmap(disk))) mismatches++;
+            if (disk.getFileCount() != files.size()) mismatches++;
+            for (Map.Entry<String, byte[]> file : files.entrySet())
+                if (!Arrays.equals(disk.readFile(file.getKey()), file.getValue())) mismatches++;
+            disk.closeDrive();
+        } finally {
+            System.setOut(console);
+        }
+        return mismatches;
+    }
+
+    private static boolean[] bitmap(HardDiskDriver disk){
+        boolean[] used = new boolean[disk.getBlockCount()];
+        for (int i = 0; i < used.length; i++) used[i] = disk.isBlockUsed(i);
+        return used;
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public abstract class DiskStorage {
+
+    // The disk image the way HardDiskDriver works on it: a file pointer and big-endian values, like the
+    // RandomAccessFile it used to hold. A backend only stores the bytes (see HardDiskDriver.BACKEND_KEY)
+    //   CACHED : BlockCache, the file read and written through a cache of its blocks
+    //   MAPPED : MappedDiskStorage, the whole file mapped into memory
+
+    protected long pointer = 0;
+
+    // the byte at position (0..255), EOFException past the end of the disk
+    abstract int get(long position) throws IOException;
+
+    abstract void put(long position, int value) throws IOException;
+
+    public abstract long length();
+
+    // for a new disk image
+    public abstract void setLength(long newLength) throws IOException;
+
+    // hands every write to the operating system
+    public abstract void flush() throws IOException;
+
+    // hands the writes to length bytes at position to the operating system now, ahead of the others
+    public abstract void flush(long position, int length) throws IOException;
+
+    // flush, then make the operating system write the file to the storage device
+    public abstract void sync() throws IOException;
+
+    public abstract void close() throws IOException;
+
+    // a line for the log when the drive closes
+    public abstract String describe();
+
+    /// ///////////////////////////// BULK TRANSFERS //////////////////////////////////////////////////
+
+    // Fill the remaining bytes of the buffer from the disk at position (or write them there) in as few operations
+    // as the backend can, like FileChannel's positional read and write. the file pointer doesn't move.
+    // a transfer past the end of the disk is an error and transfers nothing.
+    public abstract void read(ByteBuffer destination, long position) throws IOException;
+
+    public abstract void write(ByteBuffer source, long position) throws IOException;
+
+    /// ///////////////////////////// RANDOM ACCESS FILE //////////////////////////////////////////////////
+
+    public void seek(long position) throws IOException {
+        if (position < 0) throw new IOException("Negative seek offset");
+        pointer = position;
+    }
+
+    public long getFilePointer(){
+        return pointer;
+    }
+
+    public int skipBytes(int n){
+        if (n <= 0) return 0;
+        long skipped = Math.min(n, Math.max(0, length() - pointer));
+        pointer += skipped;
+        return (int) skipped;
+    }
+
+    public byte readByte() throws IOException {
+        return (byte) get(pointer++);
+    }
+
+    public short readShort() throws IOException {
+        int high = readByte() & 0xff;
+        int low = readByte() & 0xff;
+        return (short) ((high << 8) | low);
+    }
+
+    public int readInt() throws IOException {
+        return ((readByte() & 0xff) << 24) | ((readByte() & 0xff) << 16) | ((readByte() & 0xff) << 8) | (readByte() & 0xff);
+    }
+
+    // up to len bytes, -1 at the end of the disk
+    public int read(byte[] bytes, int offset, int len) throws IOException {
+        if (len == 0) return 0;
+        if (pointer >= length()) return -1;
+
+        int count = (int) Math.min(len, length() - pointer);
+        for (int i = 0; i < count; i++) bytes[offset + i] = (byte) get(pointer++);
+        return count;
+    }
+
+    public void writeByte(int value) throws IOException {
+        put(pointer++, value);
+    }
+
+    public void writeShort(int value) throws IOException {
+        writeByte(value >> 8);
+        writeByte(value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        writeByte(value >> 24);
+        writeByte(value >> 16);
+        writeByte(value >> 8);
+        writeByte(value);
+    }
+
+    public void writeFloat(float value) throws IOException {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    // the low byte of every character, like RandomAccessFile.writeBytes
+    public void writeBytes(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) writeByte(text.charAt(i));
+    }
+
+    public void write(byte[] bytes) throws IOException {
+        for (byte b : bytes) writeByte(b);
+    }
+}
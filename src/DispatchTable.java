@@ -0,0 +1,61 @@
+public class DispatchTable<C extends CPU> {
+
+    // Opcode-indexed instruction handlers.
+    // The interpreter loop does handlers[opcode].execute(cpu, address) instead of walking a switch.
+    // Every opcode gets its own handler class (one lambda per opcode, no shared switch inside a handler),
+    // so each handler body is compiled on its own with the CPU methods it calls inlined into it,
+    // and the only polymorphic call left is the table lookup itself.
+    // Opcodes without a handler run the undefined handler given to the constructor.
+
+    // operand layout of an opcode, used by the 16-bit instruction cache to find the instruction length
+    static final int LAYOUT_NONE = 0;               // opcode only
+    static final int LAYOUT_ONE_OPERAND = 1;        // opcode operand
+    static final int LAYOUT_TWO_OPERANDS = 2;       // opcode operand operand
+    static final int LAYOUT_OPERAND_ADDRESS = 3;    // opcode operand (mode, high, low)
+    static final int LAYOUT_ADDRESS = 4;            // opcode (mode, high, low)
+
+    static final int OPCODE_COUNT = 256;
+
+    private final InstructionHandler<C>[] handlers;
+    private final int[] layouts = new int[OPCODE_COUNT];
+    private final boolean[] defined = new boolean[OPCODE_COUNT];
+
+    public DispatchTable(InstructionHandler<C> undefined){
+        @SuppressWarnings("unchecked")
+        InstructionHandler<C>[] table = (InstructionHandler<C>[]) new InstructionHandler<?>[OPCODE_COUNT];
+        handlers = table;
+        for(int i = 0; i < OPCODE_COUNT; i++) handlers[i] = undefined;
+    }
+
+    // adds a new instruction or replaces the handler of an existing one
+    public void register(int opcode, int layout, InstructionHandler<C> handler){
+        if (opcode < 0 || opcode >= OPCODE_COUNT)
+            throw new IllegalArgumentException(String.format("Opcode 0x%X is out of range", opcode));
+        if (layout < LAYOUT_NONE || layout > LAYOUT_ADDRESS)
+            throw new IllegalArgumentException("Unknown operand layout: " + layout);
+
+        handlers[opcode] = handler;
+        layouts[opcode] = layout;
+        defined[opcode] = true;
+    }
+
+    public void register(int opcode, InstructionHandler<C> handler){
+        register(opcode, LAYOUT_NONE, handler);
+    }
+
+    public void execute(C cpu, int opcode, int address){
+        handlers[opcode & 0xff].execute(cpu, address);
+    }
+
+    public InstructionHandler<C> handler(int opcode){
+        return handlers[opcode & 0xff];
+    }
+
+    public int layout(int opcode){
+        return layouts[opcode & 0xff];
+    }
+
+    public boolean isDefined(int opcode){
+        return defined[opcode & 0xff];
+    }
+}
@@ -0,0 +1,21 @@
+public enum ExecutionEngine {
+
+    // How the 16-bit CPU runs a program. all three produce the same results, they only differ in speed.
+    //   INTERPRETER : fetch from the instruction cache and dispatch through the handler table every instruction
+    //   THREADED    : the ROM is turned into linked closure nodes once, execution follows the links
+    //   JIT         : the interpreter, with hot basic blocks compiled to JVM bytecode (see BlockCompiler)
+    // The 8-bit CPU always interprets.
+
+    INTERPRETER, THREADED, JIT;
+
+    static final String CONFIG_KEY = "Engine";
+
+    public static ExecutionEngine fromConfig(){
+        return parse(Launcher.appConfig.getOrDefault(CONFIG_KEY, JIT.name()));
+    }
+
+    // throws IllegalArgumentException for unknown names
+    public static ExecutionEngine parse(String name){
+        return valueOf(name.trim().toUpperCase());
+    }
+}
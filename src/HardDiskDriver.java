@@ -1,12 +1,26 @@
 import javax.swing.*;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
 public class HardDiskDriver { // A custom hard disk driver for my CPU emulator. UNFINISHED. WORK IN PROGRESS
 
-    private RandomAccessFile diskFile;
+    // the disk image, through the backend picked by DiskBackend (see DiskStorage)
+    private DiskStorage diskFile;
+
+    static final String BACKEND_KEY = "DiskBackend";
+    static final String CACHE_KEY = "DiskCacheBlocks"; // cached blocks of the CACHED backend, blockSizeB each
+
+    enum Backend {
+        CACHED, MAPPED;
+
+        // throws IllegalArgumentException for unknown names
+        static Backend parse(String name){
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
 
     public static final int INODE_ENTRY_END = 0xFD;
     public static final int DIRECT_INODE_POINTER_MAX_COUNT = 15;
@@ -23,7 +37,15 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
     private int[] blockLocations;
     private int blockCount;
 
+    // The file operations (saveFile, appendFile, readFile, deleteFile) and closing the drive are synchronized,
+    // machines running at the same time can share one driver (see BatchRunner). one operation at a time goes
+    // through the file pointer, the bitmap and the file index.
+
+    // errors go to a dialog instead of the console when the machine runs in the UI
+    private final boolean ui;
+
     String logDevice = "HARD_DISK_DRIVER";
+    Logger.Device log = Logger.device(logDevice);
 
     public final int blockSizeB = 1024; // the block size in bytes
 
@@ -49,23 +71,60 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
             InodeTableBlockLengthB, InodeIndirectBlockLengthB, InodeDoubleIndirectBlockLengthB,
             fileNameBlockLengthB;
 
+    // The block bitmap lives in memory. a change marks the 64-block word it's in as dirty and flushBitmap writes
+    // the bytes of the dirty words, once per file operation instead of the whole bitmap for every block.
     private BitSet blockBitMap;
+    private final BitSet dirtyBitMapWords = new BitSet();
+
+    // The file names, read from the name blocks on mount (see buildFileIndex). a lookup is a map access instead of
+    // a walk over the name blocks, and the free inode and name entries are kept in sorted sets, the first free
+    // entry is the lowest one like the scan used to find. every file operation updates them with the disk.
+    record FileEntry(int nameAddress, int inodeAddress) {}
+    private final HashMap<String, FileEntry> fileIndex = new HashMap<>();
+    private final TreeSet<Integer> freeInodeEntries = new TreeSet<>();
+    private final TreeSet<Integer> freeNameEntries = new TreeSet<>();
+
+    // entries are followed by their end marker
+    private static final int INODE_ENTRY_STRIDE_B = MAX_INODE_SIZE_B + 1;
+    private static final int NAME_ENTRY_STRIDE_B = MAX_FILE_ENTRY_LENGTH_B + 1;
 
 
     private boolean checkHardDriveFile(String filePath){
         return Files.exists(Path.of(filePath));
     }
 
-    public void closeDrive() {
+    // writes back what the backend holds
+    public synchronized void closeDrive() {
         try {
+            flushBitmap();
             diskFile.close();
+            Logger.addLog(diskFile.describe(), logDevice);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // writes back what the backend holds and waits until the disk image is on the storage device
+    public synchronized void sync() {
+        try {
+            flushBitmap();
+            diskFile.sync();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    static void triggerHardDriveError(String err){
-        if (VirtualMachine.ui) JOptionPane.showMessageDialog(null, err, "Hard Drive error", JOptionPane.ERROR_MESSAGE);
+    private DiskStorage openDiskImage(String diskImagePath) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(diskImagePath, "rw");
+        return switch (Backend.parse(Launcher.appConfig.getOrDefault(BACKEND_KEY, Backend.CACHED.name()))) {
+            case CACHED -> new BlockCache(file, blockSizeB,
+                    Integer.parseInt(Launcher.appConfig.getOrDefault(CACHE_KEY, "256").trim()));
+            case MAPPED -> new MappedDiskStorage(file);
+        };
+    }
+
+    void triggerHardDriveError(String err){
+        if (ui) JOptionPane.showMessageDialog(null, err, "Hard Drive error", JOptionPane.ERROR_MESSAGE);
         else System.out.println(err);
     }
 
@@ -132,7 +191,12 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
     }
 
     public HardDiskDriver(String diskImagePath){
+        this(diskImagePath, false);
+    }
+
+    public HardDiskDriver(String diskImagePath, boolean ui){
 
+        this.ui = ui;
         boolean isFirstCreation = false;
 
         Logger.addLog("Initializing hard drive.", logDevice, true);
@@ -144,14 +208,14 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
                 Logger.addLog("No hard drive file found... creating new one.", logDevice, true);
 
-                diskFile = new RandomAccessFile(diskImagePath, "rw");
+                diskFile = openDiskImage(diskImagePath);
                 diskFile.setLength((long) (diskSizeMB * 1024 * 1024));
                 diskFile.seek(superBlockStartAddress);
 
                 diskFile.writeFloat(diskSizeMB); // disk size
                 diskFile.writeInt(blockSizeB); // the block size
                 diskFile.writeBytes("T.K.Y 13/9/2025"); // my signature
-            }else diskFile = new RandomAccessFile(diskImagePath, "rw");
+            }else diskFile = openDiskImage(diskImagePath);
 
             calculateDiskSegments();
             if (isFirstCreation) {
@@ -170,11 +234,14 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
             if (isFirstCreation) {
                 int bitMapEndBlock = addressToBlock(bitMapBlockEndAddress);
-                for (int i = 0; i < bitMapEndBlock; i++) blockBitMap.set(i);
+                for (int i = 0; i < bitMapEndBlock; i++) setBlockUsed(i);
                 setBlockUsed(0);
                 setBlockUsed(1);
+                flushBitmap();
             }
 
+            buildFileIndex();
+
             String spaceInfo = String.format("Free space : %sB (%s MB)\nSpace occupied : %sB (%s MB)\n",
                     getFreeSpaceBytes(), getFreeSpaceBytes() / 1e+6,
                      diskSize - getFreeSpaceBytes(), (diskSize - getFreeSpaceBytes()) / 1e+6);
@@ -192,51 +259,124 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
     // BLOCK BITMAP OPERATIONS
     public void setBlockUsed(int blockIndex) throws IOException {
-        long pos = diskFile.getFilePointer();
-        blockBitMap.set(blockIndex);
-        diskFile.seek(bitMapBlockStartAddress);
-        diskFile.write(blockBitMap.toByteArray());
-        diskFile.seek(pos);
+        setBlock(blockIndex, true);
     }
     public void setBlockAvailable(int blockIndex) throws IOException{
-        long pos = diskFile.getFilePointer();
-        blockBitMap.clear(blockIndex);
-        diskFile.seek(bitMapBlockStartAddress);
-        diskFile.write(blockBitMap.toByteArray());
-        diskFile.seek(pos);
+        setBlock(blockIndex, false);
     }
     public void toggleBlock(int blockIndex) throws IOException{
-        long pos = diskFile.getFilePointer();
-        blockBitMap.flip(blockIndex);
-        diskFile.seek(bitMapBlockStartAddress);
-        diskFile.write(blockBitMap.toByteArray());
-        diskFile.seek(pos);
+        setBlock(blockIndex, !blockBitMap.get(blockIndex));
     }
+    // only changes the bitmap in memory, see flushBitmap
     public void setBlock(int blockIndex, boolean value) throws IOException{
-        long pos = diskFile.getFilePointer();
+        if (blockBitMap.get(blockIndex) == value) return;
         blockBitMap.set(blockIndex, value);
-        diskFile.seek(bitMapBlockStartAddress);
-        diskFile.write(blockBitMap.toByteArray());
+        dirtyBitMapWords.set(blockIndex / Long.SIZE);
+    }
+
+    // Writes the bytes of the changed bitmap words, through to the file (DiskStorage.flush(position, length)).
+    // The file operations put the blocks they allocate in the bitmap on the file before writing the inode entry that
+    // points to them, and free blocks only after the name and inode entries are cleared on the file. a run of the
+    // driver that stops in between leaves a disk that lost free blocks, but never one that hands out a block a file
+    // still uses. (the operating system can still reorder the writes on their way to the device, only sync waits
+    // for them.)
+    public void flushBitmap() throws IOException {
+        if (dirtyBitMapWords.isEmpty()) return;
+
+        long pos = diskFile.getFilePointer();
+        long[] words = blockBitMap.toLongArray();
+
+        int first = dirtyBitMapWords.nextSetBit(0) * Long.BYTES, last = first;
+        int word = dirtyBitMapWords.nextSetBit(0);
+        while (word >= 0) {
+            int end = dirtyBitMapWords.nextClearBit(word);
+            int from = word * Long.BYTES, to = Math.min(end * Long.BYTES, bitMapBlockLengthB);
+
+            diskFile.seek(bitMapBlockStartAddress + from);
+            for (int b = from; b < to; b++) {
+                long bits = b / Long.BYTES < words.length ? words[b / Long.BYTES] : 0;
+                diskFile.writeByte((int) (bits >>> ((b % Long.BYTES) * 8)));
+            }
+            last = to;
+            word = dirtyBitMapWords.nextSetBit(end);
+        }
+
+        diskFile.flush(bitMapBlockStartAddress + first, last - first);
+        dirtyBitMapWords.clear();
         diskFile.seek(pos);
     }
 
     public int getBlockStatus(int blockIndex) throws IOException{
         return blockBitMap.get(blockIndex) ? 1 : 0;
     }
+    public int getBlockCount(){
+        return blockCount;
+    }
     public boolean isBlockUsed(int blockIndex){
         return blockBitMap.get(blockIndex);
     }
 
+    // FILE INDEX //
+
+    // reads the name entries. an inode entry is in use when a name points to it
+    private void buildFileIndex() throws IOException {
+        fileIndex.clear();
+        freeInodeEntries.clear();
+        freeNameEntries.clear();
+
+        byte[] names = new byte[fileNameBlockEndAddress - fileNameBlockStartAddress];
+        diskFile.seek(fileNameBlockStartAddress);
+        diskFile.read(names, 0, names.length);
+
+        Set<Integer> usedInodes = new HashSet<>();
+        for (int entry = 1; entry + NAME_ENTRY_STRIDE_B <= names.length; entry += NAME_ENTRY_STRIDE_B) {
+            int nameAddress = fileNameBlockStartAddress + entry;
+            if (names[entry] == 0 && names[entry + 1] == 0) {
+                freeNameEntries.add(nameAddress);
+                continue;
+            }
+
+            int length = 0;
+            while (length < MAX_FILE_NAME_LENGTH_B && names[entry + length] != 0) length++;
+            StringBuilder name = new StringBuilder(length);
+            for (int i = 0; i < length; i++) name.append((char) (names[entry + i] & 0xff));
+
+            int pointer = entry + MAX_FILE_NAME_LENGTH_B + 1;
+            int inodeAddress = ((names[pointer] & 0xff) << 24) | ((names[pointer + 1] & 0xff) << 16) |
+                    ((names[pointer + 2] & 0xff) << 8) | (names[pointer + 3] & 0xff);
+
+            // a name written twice resolves to its first entry, like the scan did
+            fileIndex.putIfAbsent(name.toString(), new FileEntry(nameAddress, inodeAddress));
+            usedInodes.add(inodeAddress);
+        }
+
+        for (int entry = InodeTableBlockStartAddress + 1; entry + INODE_ENTRY_STRIDE_B <= InodeTableBlockEndAddress;
+             entry += INODE_ENTRY_STRIDE_B)
+            if (!usedInodes.contains(entry)) freeInodeEntries.add(entry);
+
+        log.debug("%d files, %d free inode entries, %d free name entries",
+                fileIndex.size(), freeInodeEntries.size(), freeNameEntries.size());
+    }
+
+    public synchronized int getFileCount(){
+        return fileIndex.size();
+    }
+
     // INODE TABLE FUNCTIONS //
 
 
     public void createInodeTableEntry(String fileName, int size, int block_count, int[] block_pointers) throws IOException {
+        // the blocks are marked used on the file before the inode points to them
+        for(int i = 0; i < block_count; i++) setBlockUsed(block_pointers[i]);
+        flushBitmap();
         int currentPos = Math.toIntExact(diskFile.getFilePointer());
         int writePos = getFirstAvailableInodePosition();
+        int namePos = getFirstAvailableFileNameEntry();
+        if (writePos == -1 || namePos == -1) throw new IOException("No free file entry left for '" + fileName + "'");
         int bytePadding = 0;
 
         //System.out.printf("Found space for inode entry at 0x%06X\n", writePos);
-        Logger.addLog(String.format("Found space for inode entry at 0x%06X", writePos), logDevice);
+        log.debug("Found space for inode entry at 0x%06X", writePos);
 
         diskFile.seek(writePos);
 
@@ -255,11 +395,11 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
         for(int i = 0; i < block_count; i++){
             diskFile.writeInt(blockLocations[ block_pointers[i] ]);
-            setBlockUsed(block_pointers[i]);
             bytePadding += 4;
         }
         diskFile.skipBytes(MAX_INODE_SIZE_B - bytePadding);
         diskFile.writeByte(INODE_ENTRY_END);
+        diskFile.flush(writePos, INODE_ENTRY_STRIDE_B); // the inode is on the file before a name points to it
 
         // file name entry structure
         //
@@ -268,9 +408,8 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
         // 3- inode end marker (1 byte)
         // total : 37 bytes
 
-        int namePos = getFirstAvailableFileNameEntry();
         //System.out.printf("Found space for file name entry at 0x%06X\n", namePos);
-        Logger.addLog( String.format("Found space for file name entry at 0x%06X", namePos), logDevice );
+        log.debug("Found space for file name entry at 0x%06X", namePos);
 
         diskFile.seek(namePos);
 
@@ -281,11 +420,18 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
         diskFile.writeInt(writePos);
         diskFile.writeByte(INODE_ENTRY_END);
 
+        freeInodeEntries.remove(writePos);
+        freeNameEntries.remove(namePos);
+        fileIndex.put(fileName, new FileEntry(namePos, writePos));
+
         diskFile.seek(currentPos);
     }
 
     public void overwriteInodeEntry(int inodeAddress, int size, int block_count, int[] block_pointers){
         try {
+            // the blocks are marked used on the file before the inode points to them
+            for (int block : block_pointers) setBlockUsed(block);
+            flushBitmap();
             int currentPos = Math.toIntExact(diskFile.getFilePointer());
             diskFile.seek(inodeAddress);
 
@@ -299,7 +445,6 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
             for(int i = 0; i < block_pointers.length; i++) {
                 diskFile.writeInt( blockLocations[ block_pointers[i] ] );
-                if (!isBlockUsed( block_pointers[i] )) setBlockUsed( block_pointers[i] );
                 bytePadding += 4;
             }
 
@@ -313,56 +458,19 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
     }
 
     public int getFileInodeAddress(String fileName) throws IOException {
-        int currentPos = Math.toIntExact(diskFile.getFilePointer());
-
-        int pos = getNameEntryAddress(fileName, true);
-        if (pos == -1) return -1;
-        else{
-            diskFile.seek(pos);
-            int targetPos = diskFile.readInt();
-            diskFile.seek(currentPos);
-            return targetPos;
-        }
+        FileEntry entry = fileIndex.get(fileName);
+        return entry == null ? -1 : entry.inodeAddress();
     }
 
+    // the name entry, or the inode pointer after the name
     public int getNameEntryAddress(String fileName, boolean returnNameEndPosition) throws IOException {
-        int currentPos = Math.toIntExact(diskFile.getFilePointer());
-        diskFile.seek(fileNameBlockStartAddress + 1); // skip the first node end marker
-
-        StringBuilder name = new StringBuilder();
-        while (diskFile.getFilePointer() <= fileNameBlockEndAddress) {
-
-            int c = diskFile.readByte() & 0xff;
-            if (c != 0x0) name.append((char) c);
-
-            else {
-                if (fileName.contentEquals(name)) {
-                    int targetPos;
-                    // sub 1 to compensate for the null terminator byte
-                    if(!returnNameEndPosition) targetPos = Math.toIntExact(diskFile.getFilePointer() - name.length() - 1);
-                    else targetPos = Math.toIntExact( diskFile.getFilePointer() + (MAX_FILE_NAME_LENGTH_B - name.length()) );
-                    diskFile.seek(currentPos);
-                    return targetPos;
-                }
-                // null terminator byte + inode entry pointer length = 5 bytes
-                diskFile.skipBytes(MAX_FILE_NAME_LENGTH_B - name.length() + 5);
-                name = new StringBuilder();
-            }
-        }
-        diskFile.seek(currentPos);
-        return -1;
+        FileEntry entry = fileIndex.get(fileName);
+        if (entry == null) return -1;
+        return returnNameEndPosition ? entry.nameAddress() + MAX_FILE_NAME_LENGTH_B + 1 : entry.nameAddress();
     }
 
     public int getFirstAvailableFileNameEntry() throws IOException {
-        diskFile.seek(fileNameBlockStartAddress + 1);
-        while (diskFile.getFilePointer() <= fileNameBlockEndAddress){
-
-            if (diskFile.readShort() == 0) return Math.toIntExact(diskFile.getFilePointer() - 2);
-            else{
-                diskFile.skipBytes(MAX_FILE_ENTRY_LENGTH_B - 1);
-            }
-        }
-        return -1;
+        return freeNameEntries.isEmpty() ? -1 : freeNameEntries.first();
     }
     public int getLastAvailableFileNameEntry() throws IOException{
         diskFile.seek(fileNameBlockEndAddress);
@@ -390,17 +498,7 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
     }
 
     public int getFirstAvailableInodePosition() throws IOException{
-        diskFile.seek(InodeTableBlockStartAddress + 1);
-
-        while (diskFile.getFilePointer() <= InodeTableBlockEndAddress){
-
-            if (diskFile.readShort() == 0) return Math.toIntExact( diskFile.getFilePointer() - 2 );
-            else {
-                //System.out.printf("Inode entry at 0x%06X is busy. skipping.\n", diskFile.getFilePointer() - 2);
-                diskFile.skipBytes(MAX_INODE_SIZE_B - 1);
-            }
-        }
-        return -1;
+        return freeInodeEntries.isEmpty() ? -1 : freeInodeEntries.first();
     }
 
     public int getFirstAvailableBlockIndex(){
@@ -425,8 +523,7 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
                 int index = getFirstAvailableContentBlock();
                 blocksAllocated[i] = index;
                 setBlockUsed(index);
-                Logger.addLog( String.format("Block #%d -> (located at address : 0x%06X) allocated.", index, blockToAddress(index)),
-                        logDevice);
+                log.debug("Block #%d -> (located at address : 0x%06X) allocated.", index, blockToAddress(index));
             }
         }
 
@@ -434,7 +531,8 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
     }
 
     public int[] allocateBlocksToFile(int lengthB, int[] prev_blocks) throws IOException {
-        int[] blocksAllocated = new int[ (int) Math.ceil( (double) lengthB / blockSizeB ) + prev_blocks.length ];
+        // the file keeps its blocks, only the ones it's missing are allocated
+        int[] blocksAllocated = new int[ Math.max( (int) Math.ceil( (double) lengthB / blockSizeB ), prev_blocks.length ) ];
         int index = 0;
         for(; index < prev_blocks.length; index++) blocksAllocated[index] = prev_blocks[index];
 
@@ -459,7 +557,38 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
      // FILE OPERATIONS //
 
-    public void saveFile(String fileName, byte[] fileMemory) {
+    // Moves the remaining bytes of data between the buffer and a file's blocks (addresses), starting fileOffset
+    // bytes into the file. blocks that follow each other on the disk go in a single transfer.
+    private void transferFileData(int[] blockAddresses, int fileOffset, ByteBuffer data, boolean write) throws IOException {
+        int block = fileOffset / blockSizeB;
+        int offset = fileOffset % blockSizeB;
+
+        while (data.hasRemaining()) {
+            if (block >= blockAddresses.length)
+                throw new IOException("The file data doesn't fit in its " + blockAddresses.length + " blocks");
+
+            int run = 1;
+            while (block + run < blockAddresses.length &&
+                    blockAddresses[block + run] == blockAddresses[block] + run * blockSizeB) run++;
+
+            int length = Math.min(run * blockSizeB - offset, data.remaining());
+            ByteBuffer part = data.slice(data.position(), length);
+            if (write) diskFile.write(part, blockAddresses[block] + offset);
+            else diskFile.read(part, blockAddresses[block] + offset);
+
+            data.position(data.position() + length);
+            block += run;
+            offset = 0;
+        }
+    }
+
+    private int[] blocksToAddresses(int[] blockIndexes){
+        int[] addresses = new int[blockIndexes.length];
+        for (int i = 0; i < blockIndexes.length; i++) addresses[i] = blockToAddress(blockIndexes[i]);
+        return addresses;
+    }
+
+    public synchronized void saveFile(String fileName, byte[] fileMemory) {
         try {
             // if the file already exists we just rewrite the inode entry contents and write the file to the already allocated blocks
             int fileInodeEntry = getFileInodeAddress(fileName);
@@ -476,43 +605,21 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
                 int[] newBlocks = allocateBlocksToFile(fileMemory.length, blocksUsed);
 
                 overwriteInodeEntry(fileInodeEntry, size, newBlocks.length, newBlocks );
-
-                diskFile.seek( blockToAddress(newBlocks[0]) );
-                int blockIndex = 0, currentByte = 0;
-                for(byte b : fileMemory){
-                    if (currentByte >= blockSizeB){
-                        blockIndex++;
-                        diskFile.seek( blockToAddress( newBlocks[blockIndex] ) );
-                        currentByte = 0;
-                    }
-                    diskFile.writeByte(b);
-                    currentByte++;
-                }
+                transferFileData(blocksToAddresses(newBlocks), 0, ByteBuffer.wrap(fileMemory), true);
             }
             else {// otherwise allocate new blocks and create a new inode entry
                 int[] blocks = allocateBlocksToFile(fileMemory.length);
                 createInodeTableEntry(fileName, fileMemory.length, blocks.length, blocks);
-                int blockIndex = 0;
-                int currentByte = 0;
-                diskFile.seek(blockToAddress(blocks[0]));
-
-                for (byte b : fileMemory) {
-                    if (currentByte >= blockSizeB) {
-                        blockIndex++;
-                        diskFile.seek(blockToAddress(blocks[blockIndex]));
-                        currentByte = 0;
-                    }
-                    diskFile.writeByte(b);
-                    currentByte++;
-                }
+                transferFileData(blocksToAddresses(blocks), 0, ByteBuffer.wrap(fileMemory), true);
             }
            // System.out.println("File saved successfully.");
+            flushBitmap();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public void appendFile(String fileName, byte[] fileMemory){
+    public synchronized void appendFile(String fileName, byte[] fileMemory){
         try{
             int inodePos = getFileInodeAddress(fileName);
             if (inodePos == -1) saveFile(fileName, fileMemory);
@@ -523,38 +630,19 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
                 int[] oldBlocks = new int[oldBlockCount];
                 for(int i = 0; i < oldBlocks.length; i++) oldBlocks[i] = addressToBlock(diskFile.readInt());
 
-                byte[] fileContent = readFile(fileName);
-
-                // There's probably a way to track the file offset and append only new data. but I'm too lazy ATM.
-                int newSize = fileContent.length + fileMemory.length;
+                // the old blocks stay first, only the new data is written, after the old size
+                int newSize = oldSize + fileMemory.length;
                 int[] newBlocks = allocateBlocksToFile(newSize, oldBlocks);
 
-                byte[] newData = new byte[newSize];
-
                 overwriteInodeEntry(inodePos, newSize, newBlocks.length, newBlocks);
-
-                System.arraycopy(fileContent, 0, newData, 0, fileContent.length);
-                System.arraycopy(fileMemory, 0, newData, fileContent.length, fileMemory.length);
-
-
-                int currentByte = 0, blockIndex = 0;
-                diskFile.seek( blockToAddress( newBlocks[0] ) );
-
-                for(byte b : newData) {
-                    if (currentByte >= blockSizeB) {
-                        blockIndex++;
-                        diskFile.seek( blockToAddress( newBlocks[blockIndex] ) );
-                        currentByte = 0;
-                    }
-                    diskFile.writeByte(b);
-                    currentByte++;
-                }
+                transferFileData(blocksToAddresses(newBlocks), oldSize, ByteBuffer.wrap(fileMemory), true);
+                flushBitmap();
             }
         }
         catch (Exception e) {throw new RuntimeException(e);}
     }
 
-    public byte[] readFile(String fileName) {
+    public synchronized byte[] readFile(String fileName) {
 
         try {
             int inodeAddress = getFileInodeAddress(fileName);
@@ -565,7 +653,7 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
             else {
                 diskFile.seek(inodeAddress);
                 //System.out.println("Reading the file inode address at : 0x" + Integer.toHexString(inodeAddress));
-                Logger.addLog("Reading the file inode address at : 0x" + Integer.toHexString(inodeAddress), logDevice);
+                log.debug("Reading the file inode address at : 0x%X", inodeAddress);
 
                 int fileLength = diskFile.readShort();
                 int blockCount = diskFile.readByte();
@@ -584,25 +672,10 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
                 Logger.addLog(info, logDevice);
                 for (int i = 0; i < blocksAddresses.length; i++)
-                    Logger.addLog(String.format("Block #%d address : 0x%06X\n", i, blocksAddresses[i]), logDevice);
+                    log.debug("Block #%d address : 0x%06X\n", i, blocksAddresses[i]);
 
                 byte[] fileBytes = new byte[fileLength];
-                diskFile.seek(blocksAddresses[0]);
-
-                int bytesRead = 0;
-                int blockIndex = 0;
-
-                for (int i = 0; i < fileBytes.length; i++) {
-
-                    if (bytesRead >= blockSizeB) {
-                        blockIndex++;
-                        diskFile.seek(blocksAddresses[blockIndex]);
-                        bytesRead = 0;
-                    }
-
-                    fileBytes[i] = diskFile.readByte();
-                    bytesRead++;
-                }
+                transferFileData(blocksAddresses, 0, ByteBuffer.wrap(fileBytes), false);
                 return fileBytes;
             }
         } catch (IOException e) {
@@ -610,13 +683,14 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
         }
     }
 
-    public void deleteFile(String fileName) {
+    public synchronized void deleteFile(String fileName) {
 
         try {
-            int inodeAddress = getFileInodeAddress(fileName);
-            if (inodeAddress == -1) Logger.addLog(String.format("file '%s' not found\n", fileName), logDevice, true);
+            FileEntry entry = fileIndex.get(fileName);
+            if (entry == null) Logger.addLog(String.format("file '%s' not found\n", fileName), logDevice, true);
 
             else{
+                int inodeAddress = entry.inodeAddress();
                 // get the file info...
                 diskFile.seek(inodeAddress);
                 int size = diskFile.readShort();
@@ -625,16 +699,22 @@ public class HardDiskDriver { // A custom hard disk driver for my CPU emulator.
 
                 for(int i = 0; i < blockAddresses.length; i++) blockAddresses[i] = diskFile.readInt();
 
-                // delete the inode entry
+                // delete the name entry, then the inode entry it pointed to, each on the file before the next step
+                diskFile.seek(entry.nameAddress());
+                for (int i = 0; i < MAX_FILE_ENTRY_LENGTH_B; i++) diskFile.writeByte(0x0);
+                diskFile.flush(entry.nameAddress(), NAME_ENTRY_STRIDE_B);
                 diskFile.seek(inodeAddress);
-                while ( (diskFile.readByte() & 0xff) != INODE_ENTRY_END){
-                    diskFile.seek( diskFile.getFilePointer() - 1 );
-                    diskFile.writeByte(0x0);
-                }
+                for (int i = 0; i < MAX_INODE_SIZE_B; i++) diskFile.writeByte(0x0);
+                diskFile.flush(inodeAddress, INODE_ENTRY_STRIDE_B);
+
+                fileIndex.remove(fileName);
+                freeNameEntries.add(entry.nameAddress());
+                freeInodeEntries.add(inodeAddress);
 
 
-                // free the blocks allocated to the deleted file
+                // free the blocks allocated to the deleted file, now that nothing on the file points to them
                 for (int blockAddress : blockAddresses) setBlockAvailable(addressToBlock(blockAddress));
+                flushBitmap();
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
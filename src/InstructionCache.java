@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+public class InstructionCache {
+
+    // Decode-once cache of the 16-bit ROM.
+    // Every instruction start address gets one record spread over three parallel int arrays,
+    // so executing an instruction a second time costs a couple of array loads instead of
+    // re-reading the opcode bytes and rebuilding the operands.
+    //
+    // info[address]     : opcode (bits 0-7) | instruction length in bytes (bits 8-15) | DECODED bit
+    // operandA[address] : packed operand, see CPU.packOperand
+    // operandB[address] : same layout as operandA
+    // The cache is dropped only when the bytes of the ROM section change.
+
+    static final int DECODED = 1 << 31;
+
+    private int[] info = new int[0];
+    private int[] operandA = new int[0];
+    private int[] operandB = new int[0];
+
+    private int[] code;
+    private int[] romSnapshot = new int[0];
+
+    // operand layout of every opcode
+    private final DispatchTable<?> dispatch;
+
+    String logDevice = "INSTRUCTION_CACHE";
+    Logger.Device log = Logger.device(logDevice);
+
+
+    public InstructionCache(DispatchTable<?> dispatch){
+        this.dispatch = dispatch;
+    }
+
+    // returns true when the ROM changed and the cache was dropped
+    public boolean bind(int[] machineCode, int romLength){
+
+        romLength = Math.min(romLength, machineCode.length);
+
+        boolean sameRom = romSnapshot.length == romLength &&
+                info.length == machineCode.length &&
+                Arrays.equals(machineCode, 0, romLength, romSnapshot, 0, romLength);
+
+        code = machineCode;
+        if (sameRom) return false;
+
+        log.debug("ROM contents changed. rebuilding the instruction cache for %d bytes", romLength);
+        info = new int[machineCode.length];
+        operandA = new int[machineCode.length];
+        operandB = new int[machineCode.length];
+        romSnapshot = Arrays.copyOf(machineCode, romLength);
+        return true;
+    }
+
+    public void invalidate(){
+        romSnapshot = new int[0];
+        info = new int[0];
+    }
+
+    public int fetch(int address){
+        int record = info[address];
+        if (record == 0) record = decode(address);
+        return record;
+    }
+
+    public int operandA(int address){
+        return operandA[address];
+    }
+
+    public int operandB(int address){
+        return operandB[address];
+    }
+
+    public static int opcode(int record){
+        return record & 0xff;
+    }
+
+    public static int length(int record){
+        return (record >> 8) & 0xff;
+    }
+
+    // direct and immediate operands carry two value bytes, everything else carries one
+    static boolean hasWideOperand(int mode){
+        return mode == CPU.DIRECT_MODE || mode == CPU.DIRECT_WORD_MODE || mode == CPU.IMMEDIATE_MODE;
+    }
+
+
+    private int decode(int address){
+        int opcode = code[address];
+        int length;
+
+        switch (dispatch.layout(opcode)){
+            case DispatchTable.LAYOUT_TWO_OPERANDS -> {
+                int first = decodeOperand(address + 1);
+                int firstLength = operandLength(first);
+                int second = decodeOperand(address + 1 + firstLength);
+                operandA[address] = first;
+                operandB[address] = second;
+                length = 1 + firstLength + operandLength(second);
+            }
+
+            case DispatchTable.LAYOUT_ONE_OPERAND -> {
+                int first = decodeOperand(address + 1);
+                operandA[address] = first;
+                length = 1 + operandLength(first);
+            }
+
+            // destination operand followed by a data address (mode, high, low)
+            case DispatchTable.LAYOUT_OPERAND_ADDRESS -> {
+                int first = decodeOperand(address + 1);
+                int firstLength = operandLength(first);
+                operandA[address] = first;
+                operandB[address] = decodeAddress(address + 1 + firstLength);
+                length = 1 + firstLength + 3;
+            }
+
+            // function address (mode, high, low)
+            case DispatchTable.LAYOUT_ADDRESS -> {
+                operandA[address] = decodeAddress(address + 1);
+                length = 4;
+            }
+
+            // no operands, or an opcode the CPU will reject on its own
+            default -> length = 1;
+        }
+
+        int record = DECODED | (length << 8) | (opcode & 0xff);
+        info[address] = record;
+        return record;
+    }
+
+    private int decodeOperand(int address){
+        int mode = code[address];
+        if (hasWideOperand(mode)) return CPU.packOperand(mode, (code[address + 1] << 8) | code[address + 2]);
+        return CPU.packOperand(mode, code[address + 1]);
+    }
+
+    private int decodeAddress(int address){
+        return CPU.packOperand(code[address], (code[address + 1] << 8) | code[address + 2]);
+    }
+
+    private static int operandLength(int operand){
+        return hasWideOperand(CPU.operandMode(operand)) ? 3 : 2;
+    }
+}
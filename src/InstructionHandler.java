@@ -0,0 +1,8 @@
+@FunctionalInterface
+public interface InstructionHandler<C extends CPU> {
+
+    // Executes one instruction. the CPU module decides what the address means:
+    // the 16-bit module passes the address of the opcode so the handler can read the predecoded operands,
+    // the 8-bit module reads its operands by stepping PC and ignores it.
+    void execute(C cpu, int address);
+}
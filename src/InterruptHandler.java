@@ -10,8 +10,9 @@ import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
 
 public class InterruptHandler implements NativeKeyListener {
     static String logDevice = "INT_HANDLER";
+    static Logger.Device log = Logger.device(logDevice);
 
-    private static char chrIN;
+    // the keyboard hook and the terminal are shared by every machine in the process
     private static boolean keybrdListenerInit = false, usesLinux = false;
 
     // 8-BIT INTERRUPT HANDLER
@@ -21,26 +22,22 @@ public class InterruptHandler implements NativeKeyListener {
 
             case CPU.INT_INPUT_STR -> {
 
-                Logger.addLog("Calling interrupt for input string", logDevice);
+                log.debug("Calling interrupt for input string");
                 String input_message = getInputMessage(cpuModule ,registers, memory);
                 //System.out.println("Message is : " + input_message);
                 String input = "";
-                if (VirtualMachine.ui){
-                    Logger.addLog("Showing message for ui input", logDevice);
+                if (cpuModule.UIMode){
+                    log.debug("Showing message for ui input");
                     input = JOptionPane.showInputDialog(null, input_message,
                             "Input", JOptionPane.INFORMATION_MESSAGE);
 
                 }else{
                     //System.out.print(input_message);
                     for(int i = 0; i < input_message.length(); i++) {
-                        try {
-                            System.out.print(input_message.charAt(i));
-                            Thread.sleep(cpuModule.delayAmountMilliseconds);
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        }
+                        cpuModule.console().print(input_message.charAt(i));
+                        cpuModule.pacer.tick(1);
                     }
-                    input = new Scanner(System.in).nextLine();
+                    input = cpuModule.consoleInput().nextLine();
                 }
 
 
@@ -61,25 +58,21 @@ public class InterruptHandler implements NativeKeyListener {
             }
 
             case CPU.INT_INPUT_NUM -> {
-                Logger.addLog("Calling interrupt for numeric input", logDevice);
+                log.debug("Calling interrupt for numeric input");
                 String input_message = getInputMessage(cpuModule, registers, memory);
 
                 short input;
 
-                if (VirtualMachine.ui){
-                    Logger.addLog("Showing ui input prompt", logDevice);
+                if (cpuModule.UIMode){
+                    log.debug("Showing ui input prompt");
                     input = Short.parseShort(JOptionPane.showInputDialog(null, input_message, "Numeric input : ",
                             JOptionPane.INFORMATION_MESSAGE));
                 }else{
                     for(int i = 0; i < input_message.length(); i++) {
-                        try {
-                            Thread.sleep(cpuModule.delayAmountMilliseconds);
-                            System.out.print(input_message.charAt(i));
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        }
+                        cpuModule.pacer.tick(1);
+                        cpuModule.console().print(input_message.charAt(i));
                     }
-                    input = new Scanner(System.in).nextShort();
+                    input = cpuModule.consoleInput().nextShort();
                 }
 
                 if (input <= 255) registers[3] = input; // if input fits 8-bits place in RD
@@ -87,18 +80,18 @@ public class InterruptHandler implements NativeKeyListener {
             }
 
             case CPU.INT_DEBUG -> {
-                Logger.addLog("Calling debug interrupt.", logDevice);
-                System.out.println(cpuModule.dumpRegisters());
-                Scanner s = new Scanner(System.in);
+                log.debug("Calling debug interrupt.");
+                cpuModule.console().println(cpuModule.dumpRegisters());
+                Scanner s = cpuModule.consoleInput();
 
-                if (VirtualMachine.ui){
+                if (cpuModule.UIMode){
                     JOptionPane.showMessageDialog(null, "Debug interrupts are not supported in UI mode.");
                 }
                 else {
                     boolean debugPause = true;
 
                     while (debugPause) {
-                        System.out.print(">> ");
+                        cpuModule.console().print(">> ");
                         String[] x = s.nextLine().trim().split(" ");
                         if (x[0].equals("d")) {
                             int address = 0;
@@ -106,21 +99,21 @@ public class InterruptHandler implements NativeKeyListener {
                                     x[1].substring(0, x[1].length() - 1), 16
                             );
                             else address = Integer.parseInt(x[1]);
-                            System.out.println(cpuModule.memoryController.dumpMemoryDebug(address));
+                            cpuModule.console().println(cpuModule.memoryController.dumpMemoryDebug(address));
                         }
                         else if (x[0].equals("ds")){
 
                             if (cpuModule.functionCallStack.isEmpty()){
-                                System.out.println("The function call stack is currently empty.");
+                                cpuModule.console().println("The function call stack is currently empty.");
                                 continue;
                             }
                             for(int i = cpuModule.functionCallStack.size() - 1; i >= 0; i--){
-                                System.out.printf("[%d] => 0x%04X\n", i, cpuModule.functionCallStack.get(i));
+                                cpuModule.console().printf("[%d] => 0x%04X\n", i, cpuModule.functionCallStack.get(i));
                             }
 
                         }
                         else if (x[0].equals("g")) debugPause = false;
-                        else System.out.println("Unknown command '" + x[0] + "'");
+                        else cpuModule.console().println("Unknown command '" + x[0] + "'");
                     }
                 }
             }
@@ -208,7 +201,7 @@ public class InterruptHandler implements NativeKeyListener {
                 }
 
                 if (operation == CPU.FILE_READ) {
-                    byte[] file_data = VirtualMachine.diskDriver.readFile(fileName);
+                    byte[] file_data = cpuModule.diskDriver.readFile(fileName);
                     for(int i = 0; i < file_data.length; i++)
                         memory.setMemory(read_write_addr + i, file_data[i], CPU.DATA_BYTE_MODE);
 
@@ -222,7 +215,7 @@ public class InterruptHandler implements NativeKeyListener {
                     for(int i = 0; i < file_data.length; i++) {
                         file_data[i] = (byte) memory.readByte( read_write_addr + i );
                     }
-                    VirtualMachine.diskDriver.saveFile(fileName, file_data);
+                    cpuModule.diskDriver.saveFile(fileName, file_data);
                 }
 
                 else if (operation == CPU.FILE_APPEND){
@@ -231,12 +224,12 @@ public class InterruptHandler implements NativeKeyListener {
                     for(int i = 0; i < file_data.length; i++){
                         file_data[i] = (byte) memory.readByte( read_write_addr + i );
                     }
-                    VirtualMachine.diskDriver.appendFile(fileName, file_data);
+                    cpuModule.diskDriver.appendFile(fileName, file_data);
                 }
 
                 else if (operation == CPU.FILE_DELETE){
 
-                    VirtualMachine.diskDriver.deleteFile(fileName);
+                    cpuModule.diskDriver.deleteFile(fileName);
                 }
                 else {
                     validInterrupt = false;
@@ -245,28 +238,16 @@ public class InterruptHandler implements NativeKeyListener {
             }
 
             case CPU.INT_INPUT_CHR -> {
+                char key = 0;
                 try{
-                    // set up a semaphore to block the program execution until input is received
-                    Semaphore programPause = new Semaphore(0);
-                    init();
-
-                    GlobalScreen.addNativeKeyListener(new NativeKeyListener() {
-                        @Override
-                        public void nativeKeyTyped(NativeKeyEvent e) {
-                            chrIN = e.getKeyChar();
-                            programPause.release(); // release and resume execution
-                        }
-                    });
-
-                    programPause.acquire(); // block the program and wait for input
-
+                    key = waitForKey();
                 }catch (Exception e) {e.printStackTrace();}
-                registers[3] = (short) chrIN; // input is placed in: RD
+                registers[3] = (short) key; // input is placed in: RD
             }
 
             default -> validInterrupt = false;
         }
-        Logger.addLog("done. returning to original program.", logDevice);
+        log.debug("done. returning to original program.");
         return validInterrupt;
     }
 
@@ -281,26 +262,22 @@ public class InterruptHandler implements NativeKeyListener {
                 int mode = registers[0]; // store mode register: AL
                 if (mode != CPU.DATA_BYTE_MODE && mode != CPU.DATA_WORD_MODE) mode = CPU.DATA_BYTE_MODE;
 
-                Logger.addLog("Calling interrupt for input string", logDevice);
+                log.debug("Calling interrupt for input string");
                 String input_message = getInputMessage(cpuModule, registers, memory);
 
                 String input = "";
-                if (VirtualMachine.ui){
-                    Logger.addLog("Showing message for ui input", logDevice);
+                if (cpuModule.UIMode){
+                    log.debug("Showing message for ui input");
                     input = JOptionPane.showInputDialog(null, input_message,
                             "Input", JOptionPane.INFORMATION_MESSAGE);
 
                 }else{
                     //System.out.print(input_message);
                     for(int i = 0; i < input_message.length(); i++) {
-                        try {
-                            System.out.print(input_message.charAt(i));
-                            Thread.sleep(cpuModule.delayAmountMilliseconds);
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        }
+                        cpuModule.console().print(input_message.charAt(i));
+                        cpuModule.pacer.tick(1);
                     }
-                    input = new Scanner(System.in).nextLine();
+                    input = cpuModule.consoleInput().nextLine();
                 }
 
 
@@ -337,26 +314,22 @@ public class InterruptHandler implements NativeKeyListener {
             }
 
             case CPU.INT_INPUT_NUM -> {
-                Logger.addLog("Calling interrupt for numeric input", logDevice);
+                log.debug("Calling interrupt for numeric input");
                 String input_message = getInputMessage(cpuModule, registers, memory);
 
                 int input;
 
-                if (VirtualMachine.ui){
-                    Logger.addLog("Showing ui input prompt", logDevice);
+                if (cpuModule.UIMode){
+                    log.debug("Showing ui input prompt");
                     input = Short.parseShort(JOptionPane.showInputDialog(null, input_message, "Numeric input : ",
                             JOptionPane.INFORMATION_MESSAGE));
                 }else{
                     //System.out.print(input_message);
                     for(int i = 0; i < input_message.length(); i++) {
-                        try {
-                            System.out.print(input_message.charAt(i));
-                            Thread.sleep(cpuModule.delayAmountMilliseconds);
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        }
+                        cpuModule.console().print(input_message.charAt(i));
+                        cpuModule.pacer.tick(1);
                     }
-                    input = new Scanner(System.in).nextShort();
+                    input = cpuModule.consoleInput().nextShort();
                 }
 
                 registers[15] = input; // place input in DX
@@ -366,18 +339,18 @@ public class InterruptHandler implements NativeKeyListener {
             }
 
             case CPU.INT_DEBUG -> {
-                Logger.addLog("Calling debug interrupt.", logDevice);
-                System.out.println(cpuModule.dumpRegisters());
-                Scanner s = new Scanner(System.in);
+                log.debug("Calling debug interrupt.");
+                cpuModule.console().println(cpuModule.dumpRegisters());
+                Scanner s = cpuModule.consoleInput();
 
-                if (VirtualMachine.ui){
+                if (cpuModule.UIMode){
                     JOptionPane.showMessageDialog(null, "Debug interrupts are not supported in UI mode.");
                 }
                 else {
                     boolean debugPause = true;
 
                     while (debugPause) {
-                        System.out.print(">> ");
+                        cpuModule.console().print(">> ");
                         String[] x = s.nextLine().trim().split(" ");
                         if (x[0].equals("d")) {
                             int address = 0;
@@ -385,22 +358,22 @@ public class InterruptHandler implements NativeKeyListener {
                                     x[1].substring(0, x[1].length() - 1), 16
                             );
                             else address = Integer.parseInt(x[1]);
-                            System.out.println(cpuModule.memoryController.dumpMemoryDebug(address));
+                            cpuModule.console().println(cpuModule.memoryController.dumpMemoryDebug(address));
 
                         } else if (x[0].equals("g")) debugPause = false;
 
                         else if (x[0].equals("ds")){
 
                             if (cpuModule.functionCallStack.isEmpty()){
-                                System.out.println("The function call stack is currently empty.");
+                                cpuModule.console().println("The function call stack is currently empty.");
                                 continue;
                             }
                             for(int i = cpuModule.functionCallStack.size() - 1; i >= 0; i--){
-                                System.out.printf("[%d] => 0x%04X\n", i, cpuModule.functionCallStack.get(i));
+                                cpuModule.console().printf("[%d] => 0x%04X\n", i, cpuModule.functionCallStack.get(i));
                             }
 
                         }
-                        else System.out.println("Unknown command '" + x[0] + "'");
+                        else cpuModule.console().println("Unknown command '" + x[0] + "'");
                     }
                 }
             }
@@ -483,7 +456,7 @@ public class InterruptHandler implements NativeKeyListener {
                 }
 
                 if (operation == CPU.FILE_READ) {
-                    byte[] file_data = VirtualMachine.diskDriver.readFile(fileName);
+                    byte[] file_data = cpuModule.diskDriver.readFile(fileName);
 
                     for(int i = 0; i < file_data.length; i++) {
                         memory.setMemory(read_write_addr + i, file_data[i], CPU.DATA_BYTE_MODE);
@@ -499,7 +472,7 @@ public class InterruptHandler implements NativeKeyListener {
                     for(int i = 0; i < file_data.length; i++) {
                         file_data[i] = (byte) memory.readByte(read_write_addr + i);
                     }
-                    VirtualMachine.diskDriver.saveFile(fileName, file_data);
+                    cpuModule.diskDriver.saveFile(fileName, file_data);
                 }
 
                 else if (operation == CPU.FILE_APPEND){
@@ -508,12 +481,12 @@ public class InterruptHandler implements NativeKeyListener {
                     for(int i = 0; i < file_data.length; i++){
                         file_data[i] = (byte) memory.readByte(read_write_addr + i);
                     }
-                    VirtualMachine.diskDriver.appendFile(fileName, file_data);
+                    cpuModule.diskDriver.appendFile(fileName, file_data);
                 }
 
                 else if (operation == CPU.FILE_DELETE){
 
-                    VirtualMachine.diskDriver.deleteFile(fileName);
+                    cpuModule.diskDriver.deleteFile(fileName);
                 }
                 else {
                     validInterrupt = false;
@@ -522,21 +495,10 @@ public class InterruptHandler implements NativeKeyListener {
             }
 
             case CPU.INT_INPUT_CHR -> {
+                char key = 0;
                 try{
-                    // set up a semaphore to block the program execution until input is received
-                    Semaphore programPause = new Semaphore(0);
                     InterruptHandler.disableTTYCanonical(); // Prevent linux TTY driver from messing up the input buffer
-                    init();
-
-                    GlobalScreen.addNativeKeyListener(new NativeKeyListener() {
-                        @Override
-                        public void nativeKeyTyped(NativeKeyEvent e) {
-                            chrIN = e.getKeyChar();
-                            programPause.release(); // release and resume execution
-                        }
-                    });
-
-                    programPause.acquire(); // block the program and wait for input
+                    key = waitForKey();
                 }catch (Exception e) {e.printStackTrace();}
                 finally {
                     restoreTTYCanonical(); // restore canonical mode for other forms of input
@@ -547,17 +509,41 @@ public class InterruptHandler implements NativeKeyListener {
                         throw new RuntimeException(e);
                     }
                 }
-                registers[6] = chrIN; // input is placed in: DL
+                registers[6] = key; // input is placed in: DL
                 registers[15] = (registers[7] << 8) | registers[6]; // update DX
             }
 
             default -> validInterrupt = false;
         }
-        Logger.addLog("done. returning to original program.", logDevice);
+        log.debug("done. returning to original program.");
         return validInterrupt;
     }
 
-    private static void init() throws NativeHookException {
+    // blocks until a key is typed. every caller listens with its own listener, so machines on other
+    // threads waiting for a key don't see each other's input slot
+    private static char waitForKey() throws NativeHookException, InterruptedException {
+        // set up a semaphore to block the program execution until input is received
+        Semaphore programPause = new Semaphore(0);
+        char[] typed = new char[1];
+        init();
+
+        NativeKeyListener listener = new NativeKeyListener() {
+            @Override
+            public void nativeKeyTyped(NativeKeyEvent e) {
+                typed[0] = e.getKeyChar();
+                programPause.release(); // release and resume execution
+            }
+        };
+        GlobalScreen.addNativeKeyListener(listener);
+        try {
+            programPause.acquire(); // block the program and wait for input
+        } finally {
+            GlobalScreen.removeNativeKeyListener(listener);
+        }
+        return typed[0];
+    }
+
+    private static synchronized void init() throws NativeHookException {
         if (keybrdListenerInit) return;
         keybrdListenerInit = true;
         GlobalScreen.registerNativeHook();
@@ -584,7 +570,7 @@ public class InterruptHandler implements NativeKeyListener {
         }
     }
 
-    public static void shutdownKeyboardListener() throws NativeHookException {
+    public static synchronized void shutdownKeyboardListener() throws NativeHookException {
         if(keybrdListenerInit) GlobalScreen.unregisterNativeHook();
         keybrdListenerInit = false;
     }
@@ -0,0 +1,110 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class IsolationCheck {
+
+    // Checks that machines running at the same time in one JVM don't share any state.
+    // MACHINES virtual machines, a mix of 8-bit and 16-bit CPUs, each run their own program on a virtual thread.
+    // Every program sums a different step a different number of times and prints the result, so a machine that
+    // picks up another machine's registers, memory layout, output or termination state prints the wrong number
+    // or stops early. The check passes when every machine prints exactly what its own program computes.
+    // The console is swallowed while the machines run, every machine keeps its own copy in outputString.
+
+    static final int MACHINES = 200;
+
+    private static final PrintStream console = System.out;
+
+
+    public static void main(String[] args) throws Exception {
+
+        Launcher.appConfig = Settings.loadSettings();
+        Launcher.appConfig.put("Throttle", "false");
+        if (args.length > 0) Launcher.appConfig.put(ExecutionEngine.CONFIG_KEY, args[0]);
+        Logger.setLevel(Logger.Level.OFF);
+
+        List<Future<String>> results = new ArrayList<>();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < MACHINES; i++) {
+                int id = i;
+                results.add(executor.submit(() -> run(id)));
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        int failures = 0;
+        for (Future<String> result : results) {
+            String failure = result.get();
+            if (failure == null) continue;
+            failures++;
+            System.out.println(failure);
+        }
+
+        System.out.printf("%d machines on %s, %d with the wrong output -> %s\n",
+                MACHINES, ExecutionEngine.fromConfig(), failures, failures == 0 ? "OK" : "FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // returns null when the machine printed what its program computes
+    private static String run(int id){
+        boolean eightBit = id % 3 == 0;
+        int count = 10 + id % 20;
+        int step = 1 + id % 7;
+        // the outer loop only makes the programs run long enough to overlap
+        int repeat = eightBit ? 20 + id % 100 : 200 + id;
+
+        CPU cpu = eightBit ? new CPUModule8BIT() : new CPUModule16BIT();
+        VirtualMachine vm = new VirtualMachine(cpu);
+        String expected = (count * step) + "Program terminated with code : 0";
+
+        try {
+            vm.sendCode(eightBit ? kernel8(repeat, count, step) : kernel16(repeat, count, step));
+            cpu.executeCompiledCode(cpu.machineCode);
+        } catch (RuntimeException e) {
+            return String.format("machine %d (%d-bit) failed: %s", id, cpu.bit_length, e.getMessage());
+        }
+
+        String output = cpu.outputString.toString();
+        if (output.equals(expected)) return null;
+        return String.format("machine %d (%d-bit) printed '%s', expected '%s'", id, cpu.bit_length, output, expected);
+    }
+
+
+    private static String kernel16(int repeat, int count, int step){
+        return  ".MAIN\n" +
+                "set $dx !" + repeat + "\n" +
+                ".outer\n" +
+                "set $ax !0\n" +
+                "set $cx !" + count + "\n" +
+                ".inner\n" +
+                "add $ax !" + step + "\n" +
+                "loop inner\n" +
+                "dec $dx\n" +
+                "cmp $dx !0\n" +
+                "jne outer\n" +
+                "out $ax\n" +
+                "ext\n";
+    }
+
+    private static String kernel8(int repeat, int count, int step){
+        return  ".MAIN\n" +
+                "set $rd !" + repeat + "\n" +
+                ".outer\n" +
+                "set $ra !0\n" +
+                "set $rc !" + count + "\n" +
+                ".inner\n" +
+                "add $ra !" + step + "\n" +
+                "loop inner\n" +
+                "dec $rd\n" +
+                "cmp $rd !0\n" +
+                "jne outer\n" +
+                "out $ra\n" +
+                "ext\n";
+    }
+}
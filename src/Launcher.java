@@ -3,6 +3,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.HashMap;
 import org.apache.commons.cli.*;
 
@@ -96,6 +97,61 @@ public class Launcher{
 
 
 
+            Option.builder("c")
+                    .longOpt("cycles")
+                    .argName("CYCLES")
+                    .hasArg(true)
+                    .required(false)
+                    .desc("Specify the CPU clock rate in cycles per second.")
+                    .get(),
+
+            Option.builder("u")
+                    .longOpt("unthrottled")
+                    .hasArg(false)
+                    .required(false)
+                    .desc("Run as fast as possible, ignoring the configured cycle rate.")
+                    .get(),
+
+            Option.builder("nc")
+                    .longOpt("no-cache")
+                    .hasArg(false)
+                    .required(false)
+                    .desc("Always assemble, without reading or writing the compile cache in " + CompileCache.CACHE_PATH)
+                    .get(),
+
+            Option.builder("l")
+                    .longOpt("log-level")
+                    .argName("LEVELS")
+                    .hasArg(true)
+                    .required(false)
+                    .desc("Set the log level (TRACE, DEBUG, INFO, WARN, ERROR, OFF). " +
+                            "use DEVICE=LEVEL to set a single device, separate multiple entries with commas.")
+                    .get(),
+
+            Option.builder("e")
+                    .longOpt("engine")
+                    .argName("ENGINE")
+                    .hasArg(true)
+                    .required(false)
+                    .desc("Select how the 16-bit CPU executes programs (INTERPRETER, THREADED, JIT).")
+                    .get(),
+
+            Option.builder("p")
+                    .longOpt("profile")
+                    .argName("MODE")
+                    .hasArg(true)
+                    .required(false)
+                    .desc("Profile 16-bit programs (OFF, COUNTS, TIMING). the report is written to " + Profiler.REPORT_PATH)
+                    .get(),
+
+            Option.builder("j")
+                    .longOpt("jobs")
+                    .argName("JOBS")
+                    .hasArg(true)
+                    .required(false)
+                    .desc("Number of machines running programs at the same time in batch mode. defaults to the core count.")
+                    .get(),
+
             Option.builder("ivc")
                             .longOpt("ignore-version-check")
                             .hasArg(false)
@@ -121,6 +177,19 @@ public class Launcher{
             OverwritePC=false
             OverFlowProtection=true
             UiUpdateInterval=35
+            Throttle=true
+            LogLevel=INFO
+            JitThreshold=1000
+            Engine=JIT
+            Profile=OFF
+            CompileCache=true
+            CompileCacheSize=16
+            ConsoleBuffer=4096
+            ConsoleFlushInterval=50
+            ConsoleRate=0
+            ConsoleHistory=65536
+            DiskBackend=CACHED
+            DiskCacheBlocks=256
             """, version);
 
     static void createConfigFile(){
@@ -196,6 +265,72 @@ public class Launcher{
         try {
             Integer.parseInt(appConfig.get("UiUpdateInterval"));
         }catch (Exception e) {triggerLaunchError("Invalid ui interval count : " + appConfig.get("UiUpdateInterval"));}
+
+        String throttle = appConfig.getOrDefault("Throttle", "true");
+        valid = switch (throttle.toLowerCase()){
+            case "true", "false" -> true;
+            default -> false;
+        };
+
+        if (!valid) triggerLaunchError("Invalid option for Throttle=" + throttle);
+
+        String compileCache = appConfig.getOrDefault(CompileCache.CONFIG_KEY, "true");
+        if (!compileCache.equalsIgnoreCase("true") && !compileCache.equalsIgnoreCase("false"))
+            triggerLaunchError("Invalid option for " + CompileCache.CONFIG_KEY + "=" + compileCache);
+
+        try {
+            if (Long.parseLong(appConfig.getOrDefault(CompileCache.SIZE_KEY, "16").trim()) < 0) throw new NumberFormatException();
+        }catch (NumberFormatException e) {
+            triggerLaunchError("Invalid compile cache size (MB) : " + appConfig.get(CompileCache.SIZE_KEY));
+        }
+
+        try {
+            if (Integer.parseInt(appConfig.getOrDefault(ConsoleDevice.BUFFER_KEY, "4096").trim()) < 1) throw new NumberFormatException();
+            if (Long.parseLong(appConfig.getOrDefault(ConsoleDevice.INTERVAL_KEY, "50").trim()) < 0) throw new NumberFormatException();
+            if (Long.parseLong(appConfig.getOrDefault(ConsoleDevice.RATE_KEY, "0").trim()) < 0) throw new NumberFormatException();
+            if (Integer.parseInt(appConfig.getOrDefault(ConsoleDevice.HISTORY_KEY, "65536").trim()) < 0) throw new NumberFormatException();
+        }catch (NumberFormatException e) {
+            triggerLaunchError("Invalid console settings. " + ConsoleDevice.BUFFER_KEY + " must be at least 1, " +
+                    ConsoleDevice.INTERVAL_KEY + ", " + ConsoleDevice.RATE_KEY + " and " + ConsoleDevice.HISTORY_KEY +
+                    " can't be negative.");
+        }
+
+        try {
+            HardDiskDriver.Backend.parse(appConfig.getOrDefault(HardDiskDriver.BACKEND_KEY, "CACHED"));
+        }catch (IllegalArgumentException e) {
+            triggerLaunchError("Invalid disk backend: " + appConfig.get(HardDiskDriver.BACKEND_KEY) +
+                    ". available backends: " + Arrays.toString(HardDiskDriver.Backend.values()));
+        }
+
+        try {
+            if (Integer.parseInt(appConfig.getOrDefault(HardDiskDriver.CACHE_KEY, "256").trim()) < 1) throw new NumberFormatException();
+        }catch (NumberFormatException e) {
+            triggerLaunchError("Invalid disk cache size (blocks) : " + appConfig.get(HardDiskDriver.CACHE_KEY));
+        }
+
+        try {
+            if (Integer.parseInt(appConfig.getOrDefault("JitThreshold", "1000")) < 0) throw new NumberFormatException();
+        }catch (Exception e) {triggerLaunchError("Invalid JIT threshold: " + appConfig.get("JitThreshold"));}
+
+        try {
+            ExecutionEngine.fromConfig();
+        }catch (IllegalArgumentException e) {
+            triggerLaunchError("Invalid execution engine: " + appConfig.get(ExecutionEngine.CONFIG_KEY) +
+                    ". available engines: " + Arrays.toString(ExecutionEngine.values()));
+        }
+
+        try {
+            Profiler.parse(appConfig.getOrDefault(Profiler.CONFIG_KEY, "OFF"));
+        }catch (IllegalArgumentException e) {
+            triggerLaunchError("Invalid profile mode: " + appConfig.get(Profiler.CONFIG_KEY) +
+                    ". available modes: " + Arrays.toString(Profiler.Mode.values()));
+        }
+
+        try {
+            Logger.configure(appConfig);
+        }catch (IllegalArgumentException e) {
+            triggerLaunchError("Invalid log level. available levels: " + Arrays.toString(Logger.Level.values()));
+        }
     }
 
     static void triggerLaunchError(String errMsg){
@@ -268,6 +403,39 @@ public class Launcher{
             System.out.println("Setting overflow protection to: " + state);
         }
 
+        if (cmd.hasOption("c")){
+            appConfig.replace("Cycles", cmd.getOptionValue("c"));
+            System.out.println("Starting with custom cycle rate: " + cmd.getOptionValue("c"));
+        }
+        if (cmd.hasOption("u")){
+            appConfig.put("Throttle", "false");
+            System.out.println("Starting unthrottled.");
+        }
+
+        if (cmd.hasOption("nc")){
+            appConfig.put(CompileCache.CONFIG_KEY, "false");
+            System.out.println("Starting without the compile cache.");
+        }
+
+        if (cmd.hasOption("l")){
+            for (String entry : cmd.getOptionValue("l").split(",")) {
+                String[] level = entry.split("=");
+                if (level.length == 1) appConfig.put(Logger.LEVEL_KEY, level[0]);
+                else appConfig.put(Logger.LEVEL_KEY + "." + level[0], level[1]);
+            }
+            System.out.println("Starting with custom log levels: " + cmd.getOptionValue("l"));
+        }
+
+        if (cmd.hasOption("e")){
+            appConfig.put(ExecutionEngine.CONFIG_KEY, cmd.getOptionValue("e"));
+            System.out.println("Starting with execution engine: " + cmd.getOptionValue("e"));
+        }
+
+        if (cmd.hasOption("p")){
+            appConfig.put(Profiler.CONFIG_KEY, cmd.getOptionValue("p"));
+            System.out.println("Starting with profiler: " + cmd.getOptionValue("p"));
+        }
+
         if (cmd.hasOption("ivc")){
             ignoreVersionCheck = true;
         }
@@ -407,6 +575,29 @@ public class Launcher{
 
                 new CLICompiler(sourceCodeFilePath, outputPath);
                 System.exit(0);
+            } else if (args[0].equalsIgnoreCase("bench")) {
+                checkFlags(options, cmd, formatter);
+                validateSettings();
+
+                BenchmarkSuite.run(args.length > 1 && !args[1].startsWith("-") ? args[1] : null);
+                System.exit(0);
+            } else if (args[0].equalsIgnoreCase("batch")) {
+                if (args.length < 2 || args[1].startsWith("-")) {
+                    System.out.println("Please provide a directory of binaries or a manifest file.");
+                    System.exit(1);
+                }
+                checkFlags(options, cmd, formatter);
+                validateSettings();
+
+                int jobs = BatchRunner.defaultJobs();
+                if (cmd.hasOption("j")) {
+                    try {
+                        jobs = Integer.parseInt(cmd.getOptionValue("j"));
+                        if (jobs < 1) throw new NumberFormatException();
+                    } catch (NumberFormatException e) {triggerLaunchError("Invalid job count: " + cmd.getOptionValue("j"));}
+                }
+
+                System.exit(BatchRunner.run(args[1], jobs) ? 0 : 1);
             } else if (args[0].equalsIgnoreCase("decompile")) {
                 if (args[1] == null || args[2] == null) {
                     System.out.println("Please provide the path to the binary file and the output file.");
@@ -425,6 +616,8 @@ public class Launcher{
                         CLI path/to/binary_file.tky
                         COMPILE -> /path/to/source_code_file.ast /path/to/output_file.tky
                         DECOMPILE /path/to/binary_file.tky /path/to/output_file.ast -> disassemble the given binary file.
+                        BENCH [filter] -> run the emulator benchmarks whose names contain the filter.
+                        BATCH /path/to/directory_or_manifest [-j JOBS] -> run many binaries, one JSON summary line per program.
                         """);
                 formatter.printHelp("cli-example", "TKY CPU EMULATOR", options, null, false);
             }
@@ -3,54 +3,198 @@ import java.io.FileWriter;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class Logger {
     static String singleLog;
     static StringBuilder logString = new StringBuilder();
+    // guards logString and singleLog. machines running on several threads share the log
+    private static final Object lock = new Object();
 
-    public static void addLog(String log){
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
-        LocalDateTime time = LocalDateTime.now();
-        String timeNow = time.format(formatter);
+    // Every message belongs to a level, every device (CPU_MODULE_16_BIT, MEMORY_CONTROLLER, INT_HANDLER, ...)
+    // has a threshold. messages below the threshold of their device are dropped.
+    // Thresholds come from the config file:
+    //   LogLevel=INFO                       default for every device
+    //   LogLevel.MEMORY_CONTROLLER=TRACE    override for a single device
+    //
+    // Hot paths hold on to their Device and call trace()/debug() with a constant format and int arguments,
+    // or check isEnabled() before building a message. either way a disabled call is a single compare.
+    // Messages are only formatted once they pass the threshold.
+    // Every method is safe to call from several threads, the log is shared by all machines in the process.
+    enum Level { TRACE, DEBUG, INFO, WARN, ERROR, OFF }
+
+    static final String LEVEL_KEY = "LogLevel";
+
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
+
+    private static volatile Level defaultLevel = Level.INFO;
+    private static final ConcurrentHashMap<String, Level> deviceLevels = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Device> devices = new ConcurrentHashMap<>();
+
+
+    public static final class Device {
+        final String name;
+        private volatile int threshold;
+
+        private Device(String name, Level level){
+            this.name = name;
+            this.threshold = level.ordinal();
+        }
+
+        public boolean isEnabled(Level level){
+            return level.ordinal() >= threshold;
+        }
+
+        public boolean isTraceEnabled(){
+            return threshold == 0;
+        }
+
+        public void log(Level level, String log){
+            if (level.ordinal() < threshold) return;
+            append(name, log);
+        }
 
-        singleLog = "[" +  timeNow + "  " + "] " + log;
-        logString.append(singleLog).append("\n");
+        public void log(Level level, Supplier<String> log){
+            if (level.ordinal() < threshold) return;
+            append(name, log.get());
+        }
+
+        public void log(Level level, String format, Object... args){
+            if (level.ordinal() < threshold) return;
+            append(name, String.format(format, args));
+        }
+
+        // int overloads so disabled calls don't box their arguments
+        public void trace(String log){
+            if (threshold > 0) return;
+            append(name, log);
+        }
+        public void trace(String format, int a){
+            if (threshold > 0) return;
+            append(name, String.format(format, a));
+        }
+        public void trace(String format, int a, int b){
+            if (threshold > 0) return;
+            append(name, String.format(format, a, b));
+        }
+        public void trace(String format, int a, int b, int c){
+            if (threshold > 0) return;
+            append(name, String.format(format, a, b, c));
+        }
+        public void trace(Supplier<String> log){
+            if (threshold > 0) return;
+            append(name, log.get());
+        }
+
+        public void debug(String log){
+            log(Level.DEBUG, log);
+        }
+        public void debug(String format, Object... args){
+            log(Level.DEBUG, format, args);
+        }
+
+        public void info(String log){
+            log(Level.INFO, log);
+        }
+
+        public void error(String log){
+            log(Level.ERROR, log);
+        }
     }
-    public static void addLog(String log, String source){
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
-        LocalDateTime time = LocalDateTime.now();
-        String timeNow = time.format(formatter);
 
-        singleLog = "[" +  timeNow + "  " + source + "] " + log;
-        logString.append(singleLog).append("\n");
+
+    // returns the shared handle of a device. classes keep it in a field instead of looking it up per message
+    public static Device device(String name){
+        Device device = devices.get(name);
+        if (device != null) return device;
+        return devices.computeIfAbsent(name, key -> new Device(key, deviceLevels.getOrDefault(key, defaultLevel)));
+    }
+
+    // picks up LogLevel and LogLevel.<DEVICE> entries. unknown level names throw IllegalArgumentException
+    public static void configure(Map<String, String> config){
+        defaultLevel = parseLevel(config.getOrDefault(LEVEL_KEY, defaultLevel.name()));
+        deviceLevels.clear();
+
+        for (Map.Entry<String, String> entry : config.entrySet()) {
+            if (entry.getKey().startsWith(LEVEL_KEY + "."))
+                deviceLevels.put(entry.getKey().substring(LEVEL_KEY.length() + 1), parseLevel(entry.getValue()));
+        }
+
+        for (Device device : devices.values())
+            device.threshold = deviceLevels.getOrDefault(device.name, defaultLevel).ordinal();
+    }
+
+    public static void setLevel(Level level){
+        defaultLevel = level;
+        deviceLevels.clear();
+        for (Device device : devices.values()) device.threshold = level.ordinal();
     }
+
+    public static void setLevel(String deviceName, Level level){
+        deviceLevels.put(deviceName, level);
+        device(deviceName).threshold = level.ordinal();
+    }
+
+    static Level parseLevel(String level){
+        return Level.valueOf(level.trim().toUpperCase());
+    }
+
+
+    // the original entry points log at INFO
+    public static void addLog(String log){
+        if (defaultLevel.compareTo(Level.INFO) > 0) return;
+        append("", log);
+    }
+    public static void addLog(String log, String source){
+        device(source).log(Level.INFO, log);
+    }
+    // printed messages are meant for the user and always reach the console, the log only keeps them at INFO
     public static void addLog(String log, String source, boolean printLog){
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
-        LocalDateTime time = LocalDateTime.now();
-        String timeNow = time.format(formatter);
+        Device device = device(source);
+        if (!device.isEnabled(Level.INFO)) {
+            if (printLog) System.out.println(log);
+            return;
+        }
+
+        String line = append(source, log);
+        if (printLog) System.out.println(line);
+    }
 
-        singleLog = "[" +  timeNow + "  " + source + "] " + log;
-        logString.append(singleLog).append("\n");
-        if (printLog) System.out.println(singleLog);
+    private static String append(String source, String log){
+        String timeNow = LocalDateTime.now().format(formatter);
+
+        String line = "[" +  timeNow + "  " + source + "] " + log;
+        synchronized (lock) {
+            singleLog = line;
+            logString.append(line).append("\n");
+        }
+        return line;
     }
 
+    // holds the lock for the whole write so two threads writing the same file don't interleave
     public static void writeLogFile(String filepath){
 
-        try {
-            File file = new File(filepath);
-            FileWriter writer = new FileWriter(file);
-            PrintWriter printer = new PrintWriter(writer);
+        synchronized (lock) {
+            try {
+                File file = new File(filepath);
+                FileWriter writer = new FileWriter(file);
+                PrintWriter printer = new PrintWriter(writer);
 
-            printer.print(logString);
-            printer.close();
-            writer.close();
-        }catch (Exception e){
-            e.printStackTrace();
+                printer.print(logString);
+                printer.close();
+                writer.close();
+            }catch (Exception e){
+                e.printStackTrace();
+            }
         }
     }
 
     public static void resetLogs(){
-        logString = new StringBuilder();
-        singleLog = "";
+        synchronized (lock) {
+            logString = new StringBuilder();
+            singleLog = "";
+        }
     }
 }
@@ -0,0 +1,153 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedDiskStorage extends DiskStorage {
+
+    // The whole disk image mapped into memory (FileChannel.map), every access is a read or write of the buffer.
+    // Changed pages belong to the operating system's file cache from the start, it writes them to the file on its
+    // own schedule (so flush has nothing to do) and sync forces them out.
+    // A mapping can't grow, the disk image is mapped again when its length changes. The driver only writes inside
+    // the image, a write past its end is an error.
+    // The buffer is big-endian like the disk format, the multi-byte values are single buffer accesses.
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    private long syncs = 0;
+
+
+    public MappedDiskStorage(RandomAccessFile file) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        map();
+    }
+
+    private void map() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) throw new IOException("Disk image too large to map : " + size + " bytes");
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    // the position of a count byte access, after checking it's inside the disk image
+    private int index(long position, int count, boolean write) throws IOException {
+        if (position + count > buffer.capacity()) {
+            if (write) throw new IOException("Write past the end of the disk image at " + position);
+            throw new EOFException();
+        }
+        return (int) position;
+    }
+
+    /// ///////////////////////////// BYTES //////////////////////////////////////////////////
+
+    @Override
+    int get(long position) throws IOException {
+        return buffer.get(index(position, 1, false)) & 0xff;
+    }
+
+    @Override
+    void put(long position, int value) throws IOException {
+        buffer.put(index(position, 1, true), (byte) value);
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        short value = buffer.getShort(index(pointer, Short.BYTES, false));
+        pointer += Short.BYTES;
+        return value;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int value = buffer.getInt(index(pointer, Integer.BYTES, false));
+        pointer += Integer.BYTES;
+        return value;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int len) throws IOException {
+        if (len == 0) return 0;
+        if (pointer >= buffer.capacity()) return -1;
+
+        int count = (int) Math.min(len, buffer.capacity() - pointer);
+        buffer.get((int) pointer, bytes, offset, count);
+        pointer += count;
+        return count;
+    }
+
+    @Override
+    public void writeShort(int value) throws IOException {
+        buffer.putShort(index(pointer, Short.BYTES, true), (short) value);
+        pointer += Short.BYTES;
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        buffer.putInt(index(pointer, Integer.BYTES, true), value);
+        pointer += Integer.BYTES;
+    }
+
+    @Override
+    public void write(byte[] bytes) throws IOException {
+        buffer.put(index(pointer, bytes.length, true), bytes);
+        pointer += bytes.length;
+    }
+
+    /// ///////////////////////////// BULK TRANSFERS //////////////////////////////////////////////////
+
+    @Override
+    public void read(ByteBuffer destination, long position) throws IOException {
+        int length = destination.remaining();
+        destination.put(buffer.slice(index(position, length, false), length));
+    }
+
+    @Override
+    public void write(ByteBuffer source, long position) throws IOException {
+        int length = source.remaining();
+        buffer.put(index(position, length, true), source, source.position(), length);
+        source.position(source.position() + length);
+    }
+
+    /// ///////////////////////////// FILE //////////////////////////////////////////////////
+
+    @Override
+    public long length(){
+        return buffer.capacity();
+    }
+
+    @Override
+    public void setLength(long newLength) throws IOException {
+        buffer.force();
+        file.setLength(newLength);
+        map();
+    }
+
+    @Override
+    public void flush(){
+    }
+
+    @Override
+    public void flush(long position, int length){
+    }
+
+    @Override
+    public void sync(){
+        buffer.force();
+        syncs++;
+    }
+
+    // the mapping itself stays until the buffer is garbage collected, its pages are already the file's
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    @Override
+    public String describe(){
+        return String.format("Mapped disk image: %d bytes, %d syncs", buffer.capacity(), syncs);
+    }
+}
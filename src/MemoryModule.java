@@ -1,17 +1,20 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 public class MemoryModule {
 
     private CPU cpu;
 
     int mem_size_B;
 
-    static float memorySizeKB = (Float.parseFloat(Launcher.appConfig.get("MemSize")));
-    static float ROMpercentage = (Float.parseFloat(Launcher.appConfig.get("ROMPercentage")) / 100);
-    static float DATApercentage = (Float.parseFloat(Launcher.appConfig.get("DataPercentage")) / 100);
-    static float STACKpercentage = (Float.parseFloat(Launcher.appConfig.get("StackPercentage")) / 100);
+    float memorySizeKB = (Float.parseFloat(Launcher.appConfig.get("MemSize")));
+    float ROMpercentage = (Float.parseFloat(Launcher.appConfig.get("ROMPercentage")) / 100);
+    float DATApercentage = (Float.parseFloat(Launcher.appConfig.get("DataPercentage")) / 100);
+    float STACKpercentage = (Float.parseFloat(Launcher.appConfig.get("StackPercentage")) / 100);
 
 
     int ROMsizeB, DATAsizeB, STACKsizeB;
-    static int rom_start, rom_end, data_start, data_end, stack_start, stack_end;
+    int rom_start, rom_end, data_start, data_end, stack_start, stack_end;
 
     float originStartPercentage = 0.25f;
     int dataOffset, dataOrigin;
@@ -19,13 +22,14 @@ public class MemoryModule {
 
     float ROMsizeKB, DATAsizeKB, STACKsizeKB;
 
-    private short[] memory;
-    static int file_offset = 0;
+    private byte[] memory;
+    int file_offset = 0;
 
     static final int max_byte_value = 0xff;
     static final int max_pair_value = 0xffff;
 
     String logDevice = "MEMORY_CONTROLLER";
+    Logger.Device log = Logger.device(logDevice);
 
     public MemoryModule(int sizeB, CPU cpu){
         this.cpu = cpu;
@@ -87,7 +91,7 @@ public class MemoryModule {
     }
 
     public void resetMemory(){
-        memory = new short[mem_size_B];
+        memory = new byte[mem_size_B];
         dataOffset = dataOrigin;
     }
 
@@ -95,6 +99,49 @@ public class MemoryModule {
         return memory.length;
     }
 
+    // copies a whole memory image (one byte per element, as the compiler and the loader produce them).
+    // the image may be longer than the memory, the extra elements are ignored
+    public void loadImage(int[] image){
+        if (image.length < memory.length) {
+            String err = String.format("The memory image holds %d bytes, the memory needs %d.", image.length, memory.length);
+            cpu.triggerProgramError(err, ErrorHandler.ERR_CODE_INVALID_MEMORY_LAYOUT);
+        }
+        byte[] memory = this.memory;
+        for (int i = 0; i < memory.length; i++) memory[i] = (byte) image[i];
+    }
+
+    // the opposite of loadImage, every location as 0..255
+    public int[] toImage(){
+        int[] image = new int[memory.length];
+        copyToImage(image, 0, memory.length);
+        return image;
+    }
+
+    // length locations from the given absolute address, to the same place in the image
+    public void copyToImage(int[] image, int address, int length){
+        for (int i = address; i < address + length; i++) image[i] = memory[i] & 0xff;
+    }
+
+    // copies length bytes of source, starting at offset, to the given absolute address in one transfer
+    public void loadSection(int address, ByteBuffer source, int offset, int length){
+        if (address < 0 || length < 0 || address + length > memory.length) {
+            String err = String.format("%d bytes don't fit at 0x%04X(%d), the memory ends at 0x%04X(%d).",
+                    length, address, address, memory.length, memory.length);
+            cpu.triggerProgramError(err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
+        }
+        source.get(offset, memory, address, length);
+    }
+
+    // zeroes every location, the layout stays
+    public void clear(){
+        Arrays.fill(memory, (byte) 0);
+    }
+
+    /// //////////////////////////// ACCESSORS /////////////////////////////////////////////////////
+    /// Every location holds one byte. the accessors below do a single range check up front
+    /// (words check both bytes at once) and keep the error messages in separate methods,
+    /// so the common path stays small enough to inline.
+
     public short getMemory(short address){
 
         short actualAddress = (short) (data_start - file_offset + address);
@@ -104,7 +151,7 @@ public class MemoryModule {
                             ,actualAddress, actualAddress);
             cpu.triggerProgramError(err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
         }
-        else return memory[actualAddress];
+        else return (short) (memory[actualAddress] & 0xff);
 
         return -1;
     }
@@ -112,94 +159,65 @@ public class MemoryModule {
     public int readByte(int address){
 
         int actualAddress = data_start + address;
-        if (!isValidMemoryAddress(actualAddress)){
-            String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
-                            data_start, data_start,
-                            address, address
-                            ,actualAddress, actualAddress);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-        }
-        Logger.addLog(String.format("Reading a byte from address : 0x%04X -> 0x%02X",
-                        actualAddress, memory[actualAddress]),
-                logDevice);
-        return memory[actualAddress];
+        if (!isValidMemoryAddress(actualAddress)) invalidAddress(data_start, address, actualAddress);
+
+        int value = memory[actualAddress] & 0xff;
+        log.trace("Reading a byte from address : 0x%04X -> 0x%02X", actualAddress, value);
+        return value;
     }
 
-    public int[] readWord(int startAddress){
+    // returns the little-endian word stored at the address
+    public int readWord(int startAddress){
 
         int actualAddress = data_start + startAddress;
-        if (!isValidMemoryAddress(actualAddress)){
-            String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
-                            data_start, data_start,
-                            startAddress, startAddress
-                            ,actualAddress, actualAddress);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-        }
-        if (!isValidMemoryAddress(actualAddress + 1)){
-            String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
-                            data_start, data_start,
-                            startAddress + 1, startAddress + 1
-                            ,actualAddress, actualAddress);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
+        if (!isValidMemoryWord(actualAddress)) {
+            if (!isValidMemoryAddress(actualAddress)) invalidAddress(data_start, startAddress, actualAddress);
+            invalidAddress(data_start, startAddress + 1, actualAddress);
         }
 
-        Logger.addLog(String.format("Reading a word from address : 0x%04X -> 0x%02X, 0x%02X",
-                        actualAddress, memory[actualAddress], memory[actualAddress + 1]),
-                logDevice);
-        return new int[] {memory[actualAddress], memory[actualAddress + 1]};
+        int low = memory[actualAddress] & 0xff;
+        int high = memory[actualAddress + 1] & 0xff;
+        log.trace("Reading a word from address : 0x%04X -> 0x%02X, 0x%02X", actualAddress, low, high);
+        return bytePairToWordLE(low, high);
     }
 
     // read in little-endian format
     public int bytePairToWordLE(int lowByte, int highByte){
         return (highByte << 8) | lowByte;
     }
-    public int bytePairToWordLE(int[] pair){
-        return (pair[1] << 8) | pair[0];
-    }
 
     // read in big-endian format
     public int bytePairToWordBE(int lowByte, int highByte){
         return (lowByte << 8) | highByte;
     }
-    public int bytePairToWordBE(int[] pair){
-        return (pair[0] << 8) | pair[1];
-    }
 
     public void setMemory(int address, int value, int mode){
 
         int actualAddress = data_start + address;
-        if (isValidMemoryAddress(actualAddress)){
-            checkOverFlow(actualAddress, value);
-            if (mode == CPU.DATA_BYTE_MODE) memory[actualAddress] = (short) value;
-            else if (mode == CPU.DATA_WORD_MODE){
-                checkOverFlow(actualAddress + 1, value);
-                if (!isValidMemoryAddress(actualAddress + 1)){
-                    String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
-                            data_start - file_offset, data_start - file_offset,
-                            address + 1, address + 1
-                            ,actualAddress, actualAddress);
-                    cpu.triggerProgramError(
-                            err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-                }
-                else{
-                    int low = value & 0xff;
-                    int high = (value >> 8) & 0xff;
-                    memory[actualAddress] = (short) low;
-                    memory[actualAddress + 1] = (short) high;
-                }
-            }
+        if (!isValidMemoryAddress(actualAddress)) invalidAddress(data_start - file_offset, address, actualAddress);
 
-        }else{
-            String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
-                            data_start - file_offset, data_start - file_offset,
-                            address, address
-                            ,actualAddress, actualAddress);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-        }
+        checkOverFlow(actualAddress, value);
+        if (mode == CPU.DATA_BYTE_MODE) memory[actualAddress] = (byte) value;
+        else if (mode == CPU.DATA_WORD_MODE) writeWord(address, actualAddress, value);
+    }
+
+    public void setMemory(int address, int value){
+
+        int actualAddress = data_start + address;
+        if (!isValidMemoryAddress(actualAddress)) invalidAddress(data_start - file_offset, address, actualAddress);
+
+        checkOverFlow(actualAddress, value);
+        if (value <= max_byte_value) memory[actualAddress] = (byte) value;
+        else writeWord(address, actualAddress, value);
+    }
+
+    // the low byte is already checked by the caller
+    private void writeWord(int address, int actualAddress, int value){
+        checkOverFlow(actualAddress + 1, value);
+        if (!isValidMemoryAddress(actualAddress + 1)) invalidAddress(data_start - file_offset, address + 1, actualAddress);
+
+        memory[actualAddress] = (byte) value;
+        memory[actualAddress + 1] = (byte) (value >> 8);
     }
 
     private void checkOverFlow(int actualAddress, int value) {
@@ -207,45 +225,21 @@ public class MemoryModule {
         // it causes a bug where buffer sizes are truncated by 1 byte
         // so we check the value and if we're writing an array terminator that means we hit the end of the input (no trigger)
         // otherwise, buffer overflow
-        if (memory[actualAddress] == CPU.ARRAY_TERMINATOR && value != CPU.ARRAY_TERMINATOR){
-            VirtualMachine.beep(VirtualMachine.beepOverflow[0], VirtualMachine.beepOverflow[1]);
-            if (cpu.overFlowProtection) cpu.triggerProgramError("Buffer overflow error", ErrorHandler.ERR_PROG_BUFF_OVRFLW);
-        }
+        if (memory[actualAddress] == CPU.ARRAY_TERMINATOR && value != CPU.ARRAY_TERMINATOR) bufferOverflow();
     }
 
-    public void setMemory(int address, int value){
-
-
-        int actualAddress = data_start + address;
-        if (isValidMemoryAddress(actualAddress)){
-            checkOverFlow(actualAddress, value);
-            if (value <= max_byte_value) memory[actualAddress] = (short) value;
-            else {
-                checkOverFlow(actualAddress + 1, value);
-                if (!isValidMemoryAddress(actualAddress + 1)){
-                    String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
-                            data_start - file_offset, data_start - file_offset,
-                            address + 1, address + 1
-                            ,actualAddress, actualAddress);
-                    cpu.triggerProgramError(
-                            err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-                }
-                else{
-                    int low = value & 0xff;
-                    int high = (value >> 8) & 0xff;
-                    memory[actualAddress] = (short) low;
-                    memory[actualAddress + 1] = (short) high;
-                }
-            }
+    private void bufferOverflow(){
+        if (cpu.audible) VirtualMachine.beep(VirtualMachine.beepOverflow[0], VirtualMachine.beepOverflow[1]);
+        if (cpu.overFlowProtection) cpu.triggerProgramError("Buffer overflow error", ErrorHandler.ERR_PROG_BUFF_OVRFLW);
+    }
 
-        }else{
-            String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
-                            data_start - file_offset, data_start - file_offset,
-                            address, address
-                            ,actualAddress, actualAddress);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-        }
+    private void invalidAddress(int base, int address, int actualAddress){
+        String err = String.format("0x%X(%d):0x%X(%d) -> 0x%X(%d) is an invalid memory address.",
+                base, base,
+                address, address
+                ,actualAddress, actualAddress);
+        cpu.triggerProgramError(
+                err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
     }
 
 
@@ -253,12 +247,10 @@ public class MemoryModule {
 
         if (isValidAbsoluteAddress(address)) {
 
-            if (mode == CPU.DATA_BYTE_MODE) memory[address] = (short) value;
+            if (mode == CPU.DATA_BYTE_MODE) memory[address] = (byte) value;
             else if (mode == CPU.DATA_WORD_MODE) {
-                int low = value & 0xff;
-                int high = (value >> 8) & 0xff;
-                memory[address] = (short) low;
-                if (address + 1 < memory.length) memory[address + 1] = (short) high;
+                memory[address] = (byte) value;
+                if (address + 1 < memory.length) memory[address + 1] = (byte) (value >> 8);
                 else{
                     String err = String.format("0x%04X(%d) is not a valid memory address.", address + 1, address + 1);
                     cpu.triggerProgramError(err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
@@ -272,38 +264,39 @@ public class MemoryModule {
     }
     
     public int readByteAbsolute(int address){
-        
-        if (!isValidAbsoluteAddress(address)){
-            String err = String.format("0x%X(%d) is an invalid memory address.",
-                    address, address);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-        }
-        Logger.addLog(String.format("Reading a byte from address : 0x%04X -> 0x%02X",
-                        address, memory[address]),
-                logDevice);
-        return memory[address];
+
+        if (!isValidAbsoluteAddress(address)) invalidAbsoluteAddress(address);
+
+        int value = memory[address] & 0xff;
+        log.trace("Reading a byte from address : 0x%04X -> 0x%02X", address, value);
+        return value;
     }
     
-    public int[] readWordAbsolute(int startAddress){
-        
-        if (!isValidAbsoluteAddress(startAddress)){
-            String err = String.format("0x%X(%d) is an invalid memory address."
-                            ,startAddress, startAddress);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-        }
-        if (!isValidAbsoluteAddress(startAddress + 1)){
-            String err = String.format("0x%X(%d) is an invalid memory address.",
-                            startAddress + 1, startAddress + 1);
-            cpu.triggerProgramError(
-                    err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
-        }
+    // little-endian word at an absolute address
+    public int readWordAbsolute(int startAddress){
+        checkAbsoluteWord(startAddress);
+        return bytePairToWordLE(memory[startAddress] & 0xff, memory[startAddress + 1] & 0xff);
+    }
 
-        Logger.addLog(String.format("Reading a word from address : 0x%04X -> 0x%02X, 0x%02X",
-                        startAddress, memory[startAddress], memory[startAddress + 1]),
-                logDevice);
-        return new int[] {memory[startAddress], memory[startAddress + 1]};
+    // big-endian word at an absolute address. the stack stores words this way
+    public int readWordAbsoluteBE(int startAddress){
+        checkAbsoluteWord(startAddress);
+        return bytePairToWordBE(memory[startAddress] & 0xff, memory[startAddress + 1] & 0xff);
+    }
+
+    private void checkAbsoluteWord(int startAddress){
+
+        if (!isValidAbsoluteAddress(startAddress)) invalidAbsoluteAddress(startAddress);
+        if (!isValidAbsoluteAddress(startAddress + 1)) invalidAbsoluteAddress(startAddress + 1);
+
+        log.trace("Reading a word from address : 0x%04X -> 0x%02X, 0x%02X",
+                startAddress, memory[startAddress] & 0xff, memory[startAddress + 1] & 0xff);
+    }
+
+    private void invalidAbsoluteAddress(int address){
+        String err = String.format("0x%X(%d) is an invalid memory address.", address, address);
+        cpu.triggerProgramError(
+                err, ErrorHandler.ERR_CODE_INVALID_MEMORY_ADDRESS);
     }
 
     private boolean isValidAbsoluteAddress(int startAddress) {
@@ -314,6 +307,11 @@ public class MemoryModule {
         return address <= last_addressable_location && address > rom_end;
     }
 
+    // both bytes of a word in one range check
+    private boolean isValidMemoryWord(int address){
+        return address < last_addressable_location && address > rom_end;
+    }
+
     public String dumpMemoryDebug(int startAddress){
         int chunkSize = 10;
         StringBuilder result = new StringBuilder();
@@ -322,8 +320,9 @@ public class MemoryModule {
 
             if (i % chunkSize == 0) result.append(String.format("%05X :\t", i));
 
-            result.append(String.format("0x%02X\t", memory[i] & 0xff));
-            charSet.append( (Character.isLetterOrDigit(memory[i])) ? (char) memory[i] : "." );
+            int value = memory[i] & 0xff;
+            result.append(String.format("0x%02X\t", value));
+            charSet.append( (Character.isLetterOrDigit(value)) ? (char) value : "." );
 
             if ((i + 1) % chunkSize == 0){
                 result.append("\t\t").append("|").append(charSet).append("|").append("\n");
@@ -342,7 +341,7 @@ public class MemoryModule {
                 hexDump.append(String.format("%04X : \t", i));
             }
 
-            hexDump.append(String.format("0x%02X" , memory[i])).append(" ");
+            hexDump.append(String.format("0x%02X" , memory[i] & 0xff)).append(" ");
         }
         return hexDump.toString();
     }
@@ -355,8 +354,9 @@ public class MemoryModule {
 
             if (i % chunkSize == 0) result.append(String.format("%05X :\t", i));
 
-            result.append(String.format("0x%02X\t", memory[i] & 0xff));
-            charSet.append((Character.isLetterOrDigit(memory[i])) ? (char) memory[i] : ".");
+            int value = memory[i] & 0xff;
+            result.append(String.format("0x%02X\t", value));
+            charSet.append((Character.isLetterOrDigit(value)) ? (char) value : ".");
 
             if ((i + 1) % chunkSize == 0) {
                 result.append("\t\t").append("|").append(charSet).append("|").append("\n");
@@ -375,8 +375,9 @@ public class MemoryModule {
 
             if (i % chunkSize == 0) result.append(String.format("%05X :\t", i));
 
-            result.append(String.format("0x%02X", memory[i]));
-            charSet.append((Character.isLetterOrDigit(memory[i])) ? (char) memory[i] : ".");
+            int value = memory[i] & 0xff;
+            result.append(String.format("0x%02X", value));
+            charSet.append((Character.isLetterOrDigit(value)) ? (char) value : ".");
 
             if ((i + 1) % chunkSize == 0) {
                 result.append("\t\t").append("|").append(charSet).append("|").append("\n");
@@ -0,0 +1,179 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class Profiler {
+
+    // Execution profile of a 16-bit program, turned on with Profile=COUNTS or Profile=TIMING (or -p on the command line).
+    //   COUNTS : how many times every opcode and every ROM address executed
+    //   TIMING : the counts, plus the wall time of about one in SAMPLE_INTERVAL instructions, per opcode.
+    //            timing every instruction would cost more than most instructions do. the gap between samples
+    //            is randomized so loops whose length divides the interval don't always sample the same instruction
+    // Counting needs every instruction to go through the interpreter, so the threaded code and the JIT are
+    // skipped while profiling, the same as with trace logging.
+    // The report goes to REPORT_PATH when the program ends. addresses are shown with the function they belong
+    // to (functions map) and the source line they came from (lineMap).
+
+    enum Mode { OFF, COUNTS, TIMING }
+
+    static final String CONFIG_KEY = "Profile";
+    static final String REPORT_PATH = "./profile.log";
+
+    static final int SAMPLE_INTERVAL = 64; // power of two
+    static final int TOP_ADDRESSES = 50;
+
+    private final boolean timing;
+
+    private final long[] opcodeCounts = new long[DispatchTable.OPCODE_COUNT];
+    private final long[] opcodeNanos = new long[DispatchTable.OPCODE_COUNT];
+    private final long[] opcodeSamples = new long[DispatchTable.OPCODE_COUNT];
+    private long[] addressCounts = new long[0];
+    private int[] machineCode = new int[0];
+
+    private int untilSample = SAMPLE_INTERVAL;
+    private int seed = 0x2545F491;
+    private long startTime;
+
+
+    public Profiler(Mode mode){
+        this.timing = mode == Mode.TIMING;
+    }
+
+    // null unless profiling is on
+    public static Profiler fromConfig(){
+        Mode mode = parse(Launcher.appConfig.getOrDefault(CONFIG_KEY, Mode.OFF.name()));
+        return mode == Mode.OFF ? null : new Profiler(mode);
+    }
+
+    // throws IllegalArgumentException for unknown modes
+    public static Mode parse(String name){
+        return Mode.valueOf(name.trim().toUpperCase());
+    }
+
+    // clears the previous run. one counter for every address PC can reach
+    public void bind(int[] machineCode){
+        this.machineCode = machineCode;
+        if (addressCounts.length != machineCode.length) addressCounts = new long[machineCode.length];
+        else Arrays.fill(addressCounts, 0);
+        Arrays.fill(opcodeCounts, 0);
+        Arrays.fill(opcodeNanos, 0);
+        Arrays.fill(opcodeSamples, 0);
+        untilSample = SAMPLE_INTERVAL;
+        startTime = System.nanoTime();
+    }
+
+    /// ///////////////////////////// RECORDING //////////////////////////////////////////////////
+
+    public void count(int opcode, int address){
+        opcodeCounts[opcode]++;
+        addressCounts[address]++;
+    }
+
+    // true when the instruction about to run should be timed
+    public boolean sampleNext(){
+        if (!timing || --untilSample > 0) return false;
+        // xorshift, next gap is somewhere in [SAMPLE_INTERVAL / 2, SAMPLE_INTERVAL * 3 / 2)
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        untilSample = SAMPLE_INTERVAL / 2 + (seed & (SAMPLE_INTERVAL - 1));
+        return true;
+    }
+
+    public void sample(int opcode, long nanos){
+        opcodeNanos[opcode] += nanos;
+        opcodeSamples[opcode]++;
+    }
+
+    /// ///////////////////////////// REPORT //////////////////////////////////////////////////
+
+    public String report(Map<Integer, String> instructionSet, Map<String, Integer> functions, Map<Integer, Integer> lineMap){
+        long total = 0;
+        for (long count : opcodeCounts) total += count;
+        long elapsed = System.nanoTime() - startTime;
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Profile: %d instructions in %.2f ms%n", total, elapsed / 1e6));
+
+        // opcodes, most executed first
+        List<Integer> opcodes = new ArrayList<>();
+        for (int i = 0; i < opcodeCounts.length; i++) if (opcodeCounts[i] > 0) opcodes.add(i);
+        opcodes.sort((a, b) -> Long.compare(opcodeCounts[b], opcodeCounts[a]));
+
+        report.append(String.format("%n== opcodes ==%n"));
+        if (timing) report.append(String.format("%-8s %-6s %14s %8s %12s %14s%n",
+                "mnemonic", "opcode", "count", "%", "ns/instr", "est. ms"));
+        else report.append(String.format("%-8s %-6s %14s %8s%n", "mnemonic", "opcode", "count", "%"));
+
+        for (int opcode : opcodes) {
+            String mnemonic = instructionSet.getOrDefault(opcode, "?");
+            double share = percent(opcodeCounts[opcode], total);
+            if (timing) {
+                // opcodes that never got sampled have no estimate
+                double perInstruction = opcodeSamples[opcode] == 0 ? 0 : (double) opcodeNanos[opcode] / opcodeSamples[opcode];
+                report.append(String.format("%-8s 0x%02X   %14d %7.2f%% %12.1f %14.2f%n", mnemonic, opcode,
+                        opcodeCounts[opcode], share, perInstruction, perInstruction * opcodeCounts[opcode] / 1e6));
+            }
+            else report.append(String.format("%-8s 0x%02X   %14d %7.2f%%%n", mnemonic, opcode, opcodeCounts[opcode], share));
+        }
+
+        // function labels by address, to find the function an address belongs to
+        TreeMap<Integer, String> labels = new TreeMap<>();
+        for (Map.Entry<String, Integer> function : functions.entrySet()) labels.putIfAbsent(function.getValue(), function.getKey());
+
+        // hot addresses
+        List<Integer> addresses = new ArrayList<>();
+        for (int i = 0; i < addressCounts.length; i++) if (addressCounts[i] > 0) addresses.add(i);
+        addresses.sort((a, b) -> Long.compare(addressCounts[b], addressCounts[a]));
+
+        report.append(String.format("%n== hot addresses (top %d) ==%n", TOP_ADDRESSES));
+        report.append(String.format("%-7s %14s %8s %-8s %-24s %s%n", "address", "count", "%", "mnemonic", "function", "line"));
+        for (int address : addresses.subList(0, Math.min(TOP_ADDRESSES, addresses.size()))) {
+            Integer line = lineMap.get(address);
+            report.append(String.format("0x%04X  %14d %7.2f%% %-8s %-24s %s%n", address,
+                    addressCounts[address], percent(addressCounts[address], total),
+                    instructionSet.getOrDefault(machineCode[address] & 0xff, "?"),
+                    functionOf(labels, address), line == null ? "-" : line.toString()));
+        }
+
+        // the counts summed over every function
+        TreeMap<String, Long> functionCounts = new TreeMap<>();
+        for (int address : addresses) {
+            Map.Entry<Integer, String> label = labels.floorEntry(address);
+            functionCounts.merge(label == null ? "?" : label.getValue(), addressCounts[address], Long::sum);
+        }
+        List<Map.Entry<String, Long>> byCount = new ArrayList<>(functionCounts.entrySet());
+        byCount.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        report.append(String.format("%n== functions ==%n"));
+        report.append(String.format("%-24s %14s %8s%n", "function", "count", "%"));
+        for (Map.Entry<String, Long> function : byCount)
+            report.append(String.format("%-24s %14d %7.2f%%%n", function.getKey(), function.getValue(), percent(function.getValue(), total)));
+
+        return report.toString();
+    }
+
+    public void writeReport(String path, Map<Integer, String> instructionSet, Map<String, Integer> functions, Map<Integer, Integer> lineMap){
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path))) {
+            writer.print(report(instructionSet, functions, lineMap));
+        } catch (IOException e) {
+            System.out.println("Failed to write the profile to " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static String functionOf(TreeMap<Integer, String> labels, int address){
+        Map.Entry<Integer, String> label = labels.floorEntry(address);
+        if (label == null) return "?";
+        int offset = address - label.getKey();
+        return offset == 0 ? label.getValue() : label.getValue() + "+" + offset;
+    }
+
+    private static double percent(long count, long total){
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+}
@@ -0,0 +1,124 @@
+public class RegisterBenchmark {
+
+    // Measures what a 16-bit register write costs.
+    //   writes  : setRegister on a byte and on a pair register, which only refreshes the written register's alias,
+    //             next to the old full resync of all six pairs after every write.
+    //   program : an arithmetic loop that writes a register on every instruction, run on each execution engine.
+    // Numbers are the best of ROUNDS runs, after WARMUP_ROUNDS runs for the JIT to settle.
+
+    static final int WRITES = 20_000_000;
+    static final int ITERATIONS = 200_000;
+    static final int ROUNDS = 5;
+    static final int WARMUP_ROUNDS = 5;
+
+    // instructions executed per iteration of the kernel below (loop body + loop)
+    static final int INSTRUCTIONS_PER_ITERATION = 13;
+
+    // keeps the JIT from dropping the write loops
+    static int sink;
+
+
+    public static void main(String[] args) {
+
+        Launcher.appConfig = Settings.loadSettings();
+        Launcher.appConfig.put("Throttle", "false");
+        Launcher.appConfig.put("Architecture", "16");
+        Logger.setLevel(Logger.Level.OFF);
+
+        CPUModule16BIT cpu = new CPUModule16BIT();
+        int al = cpu.getRegisterCode("al");
+        int bx = cpu.getRegisterCode("bx");
+
+        System.out.printf("byte register write (al), full resync : %6.2f ns\n", best(() -> fullResyncBytes(cpu, al)));
+        System.out.printf("byte register write (al), aliased     : %6.2f ns\n", best(() -> aliasedWrites(cpu, al, 0xff)));
+        System.out.printf("pair register write (bx), full resync : %6.2f ns\n", best(() -> fullResyncPairs(cpu, bx)));
+        System.out.printf("pair register write (bx), aliased     : %6.2f ns\n", best(() -> aliasedWrites(cpu, bx, 0xffff)));
+
+        for (ExecutionEngine engine : ExecutionEngine.values()) {
+            Launcher.appConfig.put(ExecutionEngine.CONFIG_KEY, engine.name());
+            CPUModule16BIT engineCpu = new CPUModule16BIT();
+            VirtualMachine engineVm = new VirtualMachine(engineCpu);
+            engineVm.sendCode(kernel(ITERATIONS));
+            int[] image = engineCpu.machineCode;
+
+            double nanos = best(() -> {
+                engineCpu.programEnd = false;
+                long start = System.nanoTime();
+                engineCpu.executeCompiledCode(image);
+                return (double) (System.nanoTime() - start) / ((long) ITERATIONS * INSTRUCTIONS_PER_ITERATION);
+            });
+            System.out.printf("arithmetic loop, %-11s           : %6.2f ns per instruction\n", engine, nanos);
+        }
+    }
+
+    interface Measurement {
+        double run();
+    }
+
+    private static double best(Measurement measurement){
+        for (int i = 0; i < WARMUP_ROUNDS; i++) measurement.run();
+
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) best = Math.min(best, measurement.run());
+        return best;
+    }
+
+    // what setRegister did before byte and pair registers were aliased
+    private static double fullResyncBytes(CPUModule16BIT cpu, int registerID){
+        long start = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            cpu.registers[registerID] = i & 0xff;
+            cpu.updateRegisterPairs();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += cpu.registers[cpu.registerPairStart];
+        return (double) elapsed / WRITES;
+    }
+
+    private static double fullResyncPairs(CPUModule16BIT cpu, int registerID){
+        long start = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            cpu.registers[registerID] = i & 0xffff;
+            cpu.updateRegisterBytes();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += cpu.registers[0];
+        return (double) elapsed / WRITES;
+    }
+
+    private static double aliasedWrites(CPUModule16BIT cpu, int registerID, int mask){
+        long start = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) cpu.setRegister(registerID, i & mask);
+        long elapsed = System.nanoTime() - start;
+        sink += cpu.registers[0] + cpu.registers[cpu.registerPairStart];
+        return (double) elapsed / WRITES;
+    }
+
+
+    // outer counter in $dx, inner counter in $cx (loop). 13 instructions per inner iteration, all register writes
+    private static String kernel(int iterations){
+        int outer = iterations / 100;
+        return  ".MAIN\n" +
+                "set $dx !" + outer + "\n" +
+                ".outer\n" +
+                "set $cx !100\n" +
+                ".inner\n" +
+                "set $ax !7\n" +
+                "add $al !3\n" +
+                "set $ah $al\n" +
+                "add $bx $ax\n" +
+                "and $bx !4095\n" +
+                "set $bl $al\n" +
+                "inc $bh\n" +
+                "and $bh !15\n" +
+                "sub $ax !1\n" +
+                "xor $ex $bx\n" +
+                "and $el !127\n" +
+                "inc $el\n" +
+                "loop inner\n" +
+                "dec $dx\n" +
+                "cmp $dx !0\n" +
+                "jne outer\n" +
+                "ext\n";
+    }
+}
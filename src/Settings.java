@@ -296,7 +296,22 @@ public class Settings extends JFrame {
             printer.println("Cycles=" + CycleSpeedSlider.getValue());
             printer.println("OverwritePC=" + allowDirectManipulationOfCheckBox.isSelected());
             printer.println("OverFlowProtection=" + OverFlowCheckBox.isSelected());
-            printer.print("UiUpdateInterval=" + UIintervalSlider.getValue());
+            printer.println("UiUpdateInterval=" + UIintervalSlider.getValue());
+            printer.println("Throttle=" + Launcher.appConfig.getOrDefault("Throttle", "true"));
+            printer.println("JitThreshold=" + Launcher.appConfig.getOrDefault("JitThreshold", "1000"));
+            printer.println(ExecutionEngine.CONFIG_KEY + "=" + Launcher.appConfig.getOrDefault(ExecutionEngine.CONFIG_KEY, "JIT"));
+            printer.println(Profiler.CONFIG_KEY + "=" + Launcher.appConfig.getOrDefault(Profiler.CONFIG_KEY, "OFF"));
+            printer.println(CompileCache.CONFIG_KEY + "=" + Launcher.appConfig.getOrDefault(CompileCache.CONFIG_KEY, "true"));
+            printer.println(CompileCache.SIZE_KEY + "=" + Launcher.appConfig.getOrDefault(CompileCache.SIZE_KEY, "16"));
+            printer.println(ConsoleDevice.BUFFER_KEY + "=" + Launcher.appConfig.getOrDefault(ConsoleDevice.BUFFER_KEY, "4096"));
+            printer.println(ConsoleDevice.INTERVAL_KEY + "=" + Launcher.appConfig.getOrDefault(ConsoleDevice.INTERVAL_KEY, "50"));
+            printer.println(ConsoleDevice.RATE_KEY + "=" + Launcher.appConfig.getOrDefault(ConsoleDevice.RATE_KEY, "0"));
+            printer.println(ConsoleDevice.HISTORY_KEY + "=" + Launcher.appConfig.getOrDefault(ConsoleDevice.HISTORY_KEY, "65536"));
+            printer.println(HardDiskDriver.BACKEND_KEY + "=" + Launcher.appConfig.getOrDefault(HardDiskDriver.BACKEND_KEY, "CACHED"));
+            printer.println(HardDiskDriver.CACHE_KEY + "=" + Launcher.appConfig.getOrDefault(HardDiskDriver.CACHE_KEY, "256"));
+            printer.print(Logger.LEVEL_KEY + "=" + Launcher.appConfig.getOrDefault(Logger.LEVEL_KEY, "INFO"));
+            for (String key : Launcher.appConfig.keySet())
+                if (key.startsWith(Logger.LEVEL_KEY + ".")) printer.print("\n" + key + "=" + Launcher.appConfig.get(key));
 
             printer.close();
             writer.close();
@@ -0,0 +1,198 @@
+public class ThreadedCode {
+
+    // Closure-threaded form of the 16-bit ROM.
+    // Every instruction start gets a Node the first time execution reaches it. A node holds
+    //   - an action with the operands already bound (cpu -> cpu.add(destination, source)),
+    //   - the address right after the instruction and, for jumps and calls, the target address,
+    //   - direct links to the nodes at those two addresses, filled in the first time they are followed.
+    // run() just keeps calling node.execute(), which returns the next node, so there is no fetch, decode
+    // or opcode dispatch once the links are warm. Anything that lands PC somewhere else (RET, writes to PC)
+    // falls back to a lookup by address.
+    //
+    // Instructions without a specialized action (INT, console I/O, registered instructions) call their
+    // dispatch table handler, so every opcode runs through the same code as in the interpreter.
+
+    interface Action {
+        void run(CPUModule16BIT cpu);
+    }
+
+    static final class Node {
+        final Action action;
+        final int lastByte;
+        final int length;
+        final int fallthrough;
+        final int target; // -1 when the instruction doesn't jump
+        private final ThreadedCode code;
+
+        private Node next;
+        private Node targetNode;
+
+        Node(ThreadedCode code, Action action, int address, int length, int target){
+            this.code = code;
+            this.action = action;
+            this.length = length;
+            this.lastByte = address + length - 1;
+            this.fallthrough = address + length;
+            this.target = target;
+        }
+
+        // runs the instruction the same way the interpreter does and returns the node PC ends up on
+        Node execute(CPUModule16BIT cpu){
+            cpu.registers[CPUModule16BIT.PC] = lastByte;
+            action.run(cpu);
+            cpu.checkError();
+            cpu.finishBlock(length, 1);
+
+            int pc = cpu.registers[CPUModule16BIT.PC];
+            if (pc == fallthrough) {
+                Node node = next;
+                if (node == null) node = next = code.nodeAt(pc);
+                return node;
+            }
+            if (pc == target) {
+                Node node = targetNode;
+                if (node == null) node = targetNode = code.nodeAt(pc);
+                return node;
+            }
+            return code.nodeAt(pc);
+        }
+    }
+
+
+    private final InstructionCache instructionCache;
+    private final DispatchTable<CPUModule16BIT> dispatch;
+    private Node[] nodes = new Node[0];
+
+    // opcodes replaced through registerInstruction always go through the dispatch table
+    private final boolean[] excluded = new boolean[DispatchTable.OPCODE_COUNT];
+
+    String logDevice = "THREADED_CODE";
+    Logger.Device log = Logger.device(logDevice);
+
+
+    public ThreadedCode(InstructionCache instructionCache, DispatchTable<CPUModule16BIT> dispatch){
+        this.instructionCache = instructionCache;
+        this.dispatch = dispatch;
+    }
+
+    // call after InstructionCache.bind. nodes survive as long as the ROM doesn't change
+    public void bind(int codeLength, boolean romChanged){
+        if (!romChanged && nodes.length == codeLength) return;
+        nodes = new Node[codeLength];
+    }
+
+    public void invalidate(){
+        nodes = new Node[nodes.length];
+    }
+
+    public void exclude(int opcode){
+        excluded[opcode & 0xff] = true;
+        invalidate();
+    }
+
+    // runs until the program ends, the CPU stops executing or PC leaves the ROM.
+    // the caller's loop reports a PC outside the ROM
+    public void run(CPUModule16BIT cpu, int address){
+        Node node = nodeAt(address);
+        while (node != null && !cpu.programEnd && cpu.canExecute) node = node.execute(cpu);
+    }
+
+    Node nodeAt(int address){
+        if (address < 0 || address >= nodes.length) return null;
+        Node node = nodes[address];
+        if (node == null) node = nodes[address] = createNode(address);
+        return node;
+    }
+
+    private Node createNode(int address){
+        int record = instructionCache.fetch(address);
+        int opcode = InstructionCache.opcode(record);
+        int length = InstructionCache.length(record);
+        int a = instructionCache.operandA(address);
+        int b = instructionCache.operandB(address);
+        int lastByte = address + length - 1;
+
+        // bind the operands, resolving address operands to their value
+        int target = -1;
+        Action action;
+
+        if (excluded[opcode]) {
+            InstructionHandler<CPUModule16BIT> handler = dispatch.handler(opcode);
+            action = cpu -> handler.execute(cpu, address);
+        }
+        else switch (opcode) {
+            case CPU.INS_NOP -> action = cpu -> {};
+            case CPU.INS_EXT -> action = CPUModule16BIT::ext;
+            case CPU.INS_RET -> action = CPUModule16BIT::ret;
+
+            case CPU.INS_SET -> action = cpu -> cpu.set(a, b);
+            case CPU.INS_SHL -> action = cpu -> cpu.shift_left(a, b);
+            case CPU.INS_SHR -> action = cpu -> cpu.shift_right(a, b);
+            case CPU.INS_ADD -> action = cpu -> cpu.add(a, b);
+            case CPU.INS_SUB -> action = cpu -> cpu.sub(a, b);
+            case CPU.INS_MUL -> action = cpu -> cpu.mul(a, b);
+            case CPU.INS_DIV -> action = cpu -> cpu.div(a, b);
+            case CPU.INS_POW -> action = cpu -> cpu.pow(a, b);
+            case CPU.INS_RND -> action = cpu -> cpu.rnd(a, b);
+            case CPU.INS_AND -> action = cpu -> cpu.and(a, b);
+            case CPU.INS_OR -> action = cpu -> cpu.or(a, b);
+            case CPU.INS_XOR -> action = cpu -> cpu.xor(a, b);
+            case CPU.INS_NAND -> action = cpu -> cpu.nand(a, b);
+            case CPU.INS_NOR -> action = cpu -> cpu.nor(a, b);
+            case CPU.INS_CMP -> action = cpu -> cpu.cmp(a, b);
+
+            case CPU.INS_SQRT -> action = cpu -> cpu.sqrt(a);
+            case CPU.INS_INC -> action = cpu -> cpu.inc(a);
+            case CPU.INS_DEC -> action = cpu -> cpu.dec(a);
+            case CPU.INS_NOT -> action = cpu -> cpu.not(a);
+            case CPU.INS_PUSH -> action = cpu -> cpu.push(a);
+            case CPU.INS_POP -> action = cpu -> cpu.pop(a);
+
+            case CPU.INS_LA, CPU.INS_LLEN, CPU.INS_LENW -> {
+                int dataAddress = CPU.operandValue(b);
+                action = switch (opcode) {
+                    case CPU.INS_LA -> cpu -> cpu.la(a, dataAddress);
+                    case CPU.INS_LLEN -> cpu -> cpu.llen(a, dataAddress);
+                    default -> cpu -> cpu.lenw(a, dataAddress);
+                };
+            }
+
+            case CPU.INS_JMP, CPU.INS_JE, CPU.INS_JNE, CPU.INS_JL, CPU.INS_JLE, CPU.INS_JG, CPU.INS_JGE, CPU.INS_LOOP -> {
+                int jumpTo = CPU.operandValue(a);
+                target = jumpTo;
+                action = switch (opcode) {
+                    case CPU.INS_JMP -> cpu -> cpu.jmp(jumpTo);
+                    case CPU.INS_JE -> cpu -> cpu.je(jumpTo);
+                    case CPU.INS_JNE -> cpu -> cpu.jne(jumpTo);
+                    case CPU.INS_JL -> cpu -> cpu.jl(jumpTo);
+                    case CPU.INS_JLE -> cpu -> cpu.jle(jumpTo);
+                    case CPU.INS_JG -> cpu -> cpu.jg(jumpTo);
+                    case CPU.INS_JGE -> cpu -> cpu.jge(jumpTo);
+                    default -> cpu -> cpu.loop(jumpTo);
+                };
+            }
+
+            case CPU.INS_CALL, CPU.INS_CE, CPU.INS_CNE, CPU.INS_CL, CPU.INS_CLE, CPU.INS_CG, CPU.INS_CGE -> {
+                int function = CPU.operandValue(a);
+                target = function;
+                action = switch (opcode) {
+                    case CPU.INS_CALL -> cpu -> cpu.call(function, lastByte);
+                    case CPU.INS_CE -> cpu -> cpu.ce(function, lastByte);
+                    case CPU.INS_CNE -> cpu -> cpu.cne(function, lastByte);
+                    case CPU.INS_CL -> cpu -> cpu.cl(function, lastByte);
+                    case CPU.INS_CLE -> cpu -> cpu.cle(function, lastByte);
+                    case CPU.INS_CG -> cpu -> cpu.cg(function, lastByte);
+                    default -> cpu -> cpu.cge(function, lastByte);
+                };
+            }
+
+            default -> {
+                InstructionHandler<CPUModule16BIT> handler = dispatch.handler(opcode);
+                action = cpu -> handler.execute(cpu, address);
+            }
+        }
+
+        log.debug("Threaded instruction 0x%X at 0x%04X", opcode, address);
+        return new Node(this, action, address, length, target);
+    }
+}
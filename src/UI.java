@@ -88,6 +88,7 @@ public class UI extends JFrame implements onStepListener {
                 }
 
                 if (vm.readyToExecute){
+                    updateUI(); // an image from the compile cache doesn't go through the assembler's update
                     String c = "Code compiled successfully.";
                     JOptionPane.showMessageDialog(panel1, c, "Success", JOptionPane.INFORMATION_MESSAGE);
                     executeCodeButton.setEnabled(true);
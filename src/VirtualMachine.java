@@ -8,15 +8,14 @@ import java.util.Scanner;
 
 public class VirtualMachine {
 
-    private static CPU cpuModule;
+    private final CPU cpuModule;
     public boolean readyToExecute = false;
     public boolean UIMode = false;
-    public static boolean ui = false;
     public byte compileDirection = 0;
 
     public String err_msg = "";
 
-    static HardDiskDriver diskDriver;
+    HardDiskDriver diskDriver;
     private int[] memImage;
 
     static int[] beepError = {950, 150, 100};
@@ -88,7 +87,7 @@ public class VirtualMachine {
             //else if (compileDirection == 1) cpuModule.machineCode = cpuModule.compileToFileBinary(result.toString());
             loadImageToMemory(result, cpuModule.memoryController);
 
-            ui = UIMode;
+            cpuModule.UIMode = UIMode;
         }catch (RuntimeException e) {
             try {
                 File file = new File("./CompileError.log");
@@ -110,14 +109,28 @@ public class VirtualMachine {
     }
 
     private void loadImageToMemory(StringBuilder result, MemoryModule memory) {
-        memImage = cpuModule.compileToMemoryImage(result.toString());
-        for(int i = 0; i < memory.getMemorySize(); i++)
-            memory.setMemoryAbsolute(i, (short) (memImage[i] & 0xff), CPU.DATA_BYTE_MODE);
+        memImage = compile(result.toString());
+        memory.loadImage(memImage);
+    }
+
+    // the assembled image, from the compile cache when the same source was compiled with the same settings before
+    private int[] compile(String code){
+        CompileCache cache = CompileCache.fromConfig();
+        if (cache == null) return cpuModule.compileToMemoryImage(code);
+
+        int[] image = cache.load(cpuModule, code);
+        if (image != null) {
+            cpuModule.machineCode = image;
+            return image;
+        }
+
+        image = cpuModule.compileToMemoryImage(code);
+        cache.store(cpuModule, code, image);
+        return image;
     }
 
     public void loadImageToMemory(int[] memImage, MemoryModule memory){
-        for(int i = 0; i < memory.getMemorySize(); i++)
-            memory.setMemoryAbsolute(i, (short) (memImage[i] & 0xff), CPU.DATA_BYTE_MODE);
+        memory.loadImage(memImage);
     }
     public void setMemImage(int[] machineCode){
         memImage = machineCode;
@@ -125,7 +138,8 @@ public class VirtualMachine {
 
     public void executeCode(){
         try {
-            diskDriver = new HardDiskDriver("./disk0.img");
+            diskDriver = new HardDiskDriver("./disk0.img", cpuModule.UIMode);
+            cpuModule.diskDriver = diskDriver;
             cpuModule.executeCompiledCode(memImage);
             System.out.println(cpuModule.output);
             diskDriver.closeDrive();
@@ -147,6 +161,11 @@ public class VirtualMachine {
         }
     }
 
+    // routes the program's console output and input (outc, outs, input interrupts ...) to the given streams
+    public void setConsole(PrintStream out, InputStream in){
+        cpuModule.setConsole(out, in);
+    }
+
     public void resetCPU(){
         cpuModule.reset();
 